@@ -0,0 +1,105 @@
+package iterator.benchmarks;
+
+import iterator.RichIterator;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static iterator.benchmarks.OperatorBenchmark.drain;
+
+/**
+ * Long operator chains, where the per-layer hasNext()/next() cost adds up.
+ * Scores are per source element, see {@link OperatorBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@OperationsPerInvocation(Source.SIZE)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChainBenchmark {
+    @Param({"ARRAY", "ITERATE", "EXTRA"})
+    public Source source;
+
+    @Benchmark
+    public void mapFilterChain(Blackhole bh) {
+        drain(source.iterator()
+                .map(x -> x + 1)
+                .filter(x -> x % 3 != 0)
+                .map(x -> x * 2)
+                .filter(x -> x % 5 != 0)
+                .map(x -> x - 1)
+                .drop(10)
+                .take(Source.SIZE), bh);
+    }
+
+    @Benchmark
+    public void mapFilterChainFused(Blackhole bh) {
+        drain(source.iterator()
+                .fused()
+                .map(x -> x + 1)
+                .filter(x -> x % 3 != 0)
+                .map(x -> x * 2)
+                .filter(x -> x % 5 != 0)
+                .map(x -> x - 1)
+                .drop(10)
+                .take(Source.SIZE), bh);
+    }
+
+    @Benchmark
+    public void mapFilterChainBaseline(Blackhole bh) {
+        source.stream()
+                .map(x -> x + 1)
+                .filter(x -> x % 3 != 0)
+                .map(x -> x * 2)
+                .filter(x -> x % 5 != 0)
+                .map(x -> x - 1)
+                .skip(10)
+                .limit(Source.SIZE)
+                .forEach(bh::consume);
+    }
+
+    @Benchmark
+    public void mixedChain(Blackhole bh) {
+        drain(source.iterator()
+                .flatMap(x -> RichIterator.apply(x, -x))
+                .filter(x -> x >= 0)
+                .distinct()
+                .zipWithIndex()
+                .map(p -> p._1 + p._2)
+                .scanLeft(0L, (total, x) -> total + x)
+                .buffered(), bh);
+    }
+
+    @Benchmark
+    public void mixedChainBaseline(Blackhole bh) {
+        long[] total = {0L};
+        int[] index = {0};
+        source.stream()
+                .flatMap(x -> Stream.of(x, -x))
+                .filter(x -> x >= 0)
+                .distinct()
+                .map(x -> x + index[0]++)
+                .map(x -> total[0] += x)
+                .forEach(bh::consume);
+    }
+
+    @Benchmark
+    public long foldChain() {
+        return source.iterator()
+                .map(x -> x * 3)
+                .filter(x -> (x & 1) == 1)
+                .foldLeft(0L, (total, x) -> total + x);
+    }
+
+    @Benchmark
+    public long foldChainBaseline() {
+        return source.stream()
+                .map(x -> x * 3)
+                .filter(x -> (x & 1) == 1)
+                .reduce(0L, (total, x) -> total + x, Long::sum);
+    }
+}
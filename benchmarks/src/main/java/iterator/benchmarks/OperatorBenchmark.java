@@ -0,0 +1,140 @@
+package iterator.benchmarks;
+
+import iterator.Pair;
+import iterator.RichIterator;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * One benchmark per RichIterator operator, each next to its java.util.stream baseline.
+ * <p>
+ * Every invocation drains {@link Source#SIZE} elements, so the score is elements per second.
+ * Run with {@code -prof gc} to get gc.alloc.rate.norm, which is then bytes allocated per element.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@OperationsPerInvocation(Source.SIZE)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OperatorBenchmark {
+    @Param({"ARRAY", "ITERATE", "EXTRA"})
+    public Source source;
+
+    static void drain(Iterator<?> itr, Blackhole bh) {
+        while (itr.hasNext()) {
+            bh.consume(itr.next());
+        }
+    }
+
+    @Benchmark
+    public void map(Blackhole bh) {
+        drain(source.iterator().map(x -> x * 2), bh);
+    }
+
+    @Benchmark
+    public void mapBaseline(Blackhole bh) {
+        source.stream().map(x -> x * 2).forEach(bh::consume);
+    }
+
+    @Benchmark
+    public void filter(Blackhole bh) {
+        drain(source.iterator().filter(x -> (x & 1) == 0), bh);
+    }
+
+    @Benchmark
+    public void filterBaseline(Blackhole bh) {
+        source.stream().filter(x -> (x & 1) == 0).forEach(bh::consume);
+    }
+
+    @Benchmark
+    public void flatMap(Blackhole bh) {
+        drain(source.iterator().flatMap(x -> RichIterator.apply(x, x)), bh);
+    }
+
+    @Benchmark
+    public void flatMapBaseline(Blackhole bh) {
+        source.stream().flatMap(x -> Stream.of(x, x)).forEach(bh::consume);
+    }
+
+    @Benchmark
+    public void distinct(Blackhole bh) {
+        drain(source.iterator().distinct(), bh);
+    }
+
+    @Benchmark
+    public void distinctBaseline(Blackhole bh) {
+        source.stream().distinct().forEach(bh::consume);
+    }
+
+    @Benchmark
+    public void zip(Blackhole bh) {
+        drain(source.iterator().zip(source.iterator()), bh);
+    }
+
+    @Benchmark
+    public void zipBaseline(Blackhole bh) {
+        Iterator<Integer> left = source.stream().iterator();
+        Iterator<Integer> right = source.stream().iterator();
+        while (left.hasNext() && right.hasNext()) {
+            bh.consume(Pair.apply(left.next(), right.next()));
+        }
+    }
+
+    @Benchmark
+    public void scanLeft(Blackhole bh) {
+        drain(source.iterator().scanLeft(0, Integer::sum), bh);
+    }
+
+    @Benchmark
+    public void scanLeftBaseline(Blackhole bh) {
+        int[] total = {0};
+        source.stream().map(x -> total[0] += x).forEach(bh::consume);
+    }
+
+    @Benchmark
+    public void take(Blackhole bh) {
+        drain(source.iterator().take(Source.SIZE / 2), bh);
+    }
+
+    @Benchmark
+    public void takeBaseline(Blackhole bh) {
+        source.stream().limit(Source.SIZE / 2).forEach(bh::consume);
+    }
+
+    @Benchmark
+    public void drop(Blackhole bh) {
+        drain(source.iterator().drop(Source.SIZE / 2), bh);
+    }
+
+    @Benchmark
+    public void dropBaseline(Blackhole bh) {
+        source.stream().skip(Source.SIZE / 2).forEach(bh::consume);
+    }
+
+    @Benchmark
+    public void buffered(Blackhole bh) {
+        drain(source.iterator().buffered(), bh);
+    }
+
+    @Benchmark
+    public void bufferedBaseline(Blackhole bh) {
+        source.stream().forEach(bh::consume);
+    }
+
+    @Benchmark
+    public String mkString() {
+        return source.iterator().mkString("[", ",", "]");
+    }
+
+    @Benchmark
+    public String mkStringBaseline() {
+        return source.stream().map(String::valueOf).collect(Collectors.joining(",", "[", "]"));
+    }
+}
@@ -0,0 +1,68 @@
+package iterator.benchmarks;
+
+import iterator.RichIterator;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+import static iterator.benchmarks.OperatorBenchmark.drain;
+
+/**
+ * A parse-then-process pipeline, with and without prefetch between the two halves.
+ * Parsing and processing cost about the same, so prefetch can at best double the throughput.
+ * Scores are per line.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@OperationsPerInvocation(Source.SIZE)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PrefetchBenchmark {
+    @Param({"1024"})
+    public int capacity;
+
+    private String[] lines;
+
+    @Setup
+    public void setup() {
+        lines = new String[Source.SIZE];
+        for (int i = 0; i < lines.length; i++) {
+            lines[i] = i + "," + (i * 7919L) + "," + Integer.toHexString(i);
+        }
+    }
+
+    static long parse(String line) {
+        String[] fields = line.split(",");
+        return Long.parseLong(fields[0]) ^ Long.parseLong(fields[1]) ^ Long.parseLong(fields[2], 16);
+    }
+
+    static long process(long x) {
+        for (int i = 0; i < 200; i++) {
+            x ^= x << 13;
+            x ^= x >>> 7;
+            x ^= x << 17;
+        }
+        return x;
+    }
+
+    @Benchmark
+    public void parseThenProcess(Blackhole bh) {
+        drain(RichIterator.apply(lines)
+                .fused()
+                .map(PrefetchBenchmark::parse)
+                .map(PrefetchBenchmark::process), bh);
+    }
+
+    @Benchmark
+    public void parseThenProcessPrefetched(Blackhole bh) {
+        drain(RichIterator.apply(lines)
+                .fused()
+                .map(PrefetchBenchmark::parse)
+                .prefetch(capacity)
+                .fused()
+                .map(PrefetchBenchmark::process), bh);
+    }
+}
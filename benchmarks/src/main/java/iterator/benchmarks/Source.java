@@ -0,0 +1,98 @@
+package iterator.benchmarks;
+
+import iterator.Extra;
+import iterator.RichIterator;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * The element sources every benchmark runs over.
+ * Each source yields exactly {@link #SIZE} integers, both as a RichIterator and as a Stream baseline.
+ */
+public enum Source {
+    /**
+     * RichIterator.apply over a pre-built array
+     */
+    ARRAY {
+        @Override
+        public RichIterator<Integer> iterator() {
+            return RichIterator.apply(DATA);
+        }
+
+        @Override
+        public Stream<Integer> stream() {
+            return Arrays.stream(DATA);
+        }
+    },
+    /**
+     * RichIterator.from over Stream.iterate(...).iterator()
+     */
+    ITERATE {
+        @Override
+        public RichIterator<Integer> iterator() {
+            return RichIterator.from(Stream.iterate(0, x -> x + 1).limit(SIZE).iterator());
+        }
+
+        @Override
+        public Stream<Integer> stream() {
+            return Stream.iterate(0, x -> x + 1).limit(SIZE);
+        }
+    },
+    /**
+     * Extra.multiplicationBoard() repeated until SIZE elements were produced
+     */
+    EXTRA {
+        @Override
+        public RichIterator<Integer> iterator() {
+            return RichIterator.from(new Repeat(SIZE));
+        }
+
+        @Override
+        public Stream<Integer> stream() {
+            return StreamSupport.stream(Spliterators.spliterator(new Repeat(SIZE), SIZE, Spliterator.ORDERED), false);
+        }
+    };
+
+    /**
+     * number of elements each source yields, benchmarks report per element.
+     */
+    public static final int SIZE = 10_000;
+
+    private static final Integer[] DATA = Stream.iterate(0, x -> x + 1).limit(SIZE).toArray(Integer[]::new);
+
+    public abstract RichIterator<Integer> iterator();
+
+    public abstract Stream<Integer> stream();
+
+    private static class Repeat implements Iterator<Integer> {
+        private int remaining;
+        private Iterator<Integer> current = Extra.multiplicationBoard();
+
+        Repeat(int size) {
+            this.remaining = size;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return remaining > 0;
+        }
+
+        @Override
+        public Integer next() {
+            if (remaining == 0) {
+                throw new NoSuchElementException();
+            }
+            if (!current.hasNext()) {
+                current = Extra.multiplicationBoard();
+            }
+            remaining--;
+            return current.next();
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package iterator;
+
+import java.util.Spliterator;
+import java.util.Spliterators;
+
+class ArrayIterator<A> extends IndexedIterator<A> {
+    private final A[] array;
+
+    ArrayIterator(A[] array) {
+        super(0, array.length);
+        this.array = array;
+    }
+
+    @Override
+    protected A get(int i) {
+        return array[i];
+    }
+
+    @Override
+    public int nextChunk(Object[] dest, int offset, int max) {
+        int n = Math.min(max, to - from);
+        System.arraycopy(array, from, dest, offset, n);
+        from += n;
+        return n;
+    }
+
+    @Override
+    public Spliterator<A> spliterator() {
+        Spliterator<A> spliterator = Spliterators.spliterator(array, from, to, Spliterator.ORDERED);
+        from = to;
+        return spliterator;
+    }
+}
@@ -0,0 +1,165 @@
+package iterator;
+
+import java.lang.reflect.Method;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Queue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Applies the function to up to maxInFlight elements at the same time.
+ * <p>
+ * The source is read on the consumer thread, every element read is handed to the executor at once and the results
+ * come back in source order (the oldest task is awaited) or in completion order (the first finished task is taken).
+ * An element counts as in flight until its result is returned by next(), so at most maxInFlight results are held.
+ * <p>
+ * Every task runs on its own virtual thread when the runtime has them (Java 21 and later),
+ * otherwise on a pool of up to maxInFlight daemon threads.
+ */
+class AsyncMapIterator<A, B> implements RichIterator<B> {
+    // Executors.newVirtualThreadPerTaskExecutor(), null before Java 21
+    private static final Method VIRTUAL_THREAD_EXECUTOR = virtualThreadExecutor();
+    private static final AtomicInteger threads = new AtomicInteger();
+
+    private final Iterator<A> source;
+    private final Function<? super A, ? extends B> f;
+    private final int maxInFlight;
+    private final boolean ordered;
+
+    private ExecutorService executor;
+    // ordered: the tasks in source order, unordered: the finished tasks in completion order
+    private final Queue<CompletableFuture<B>> pending = new ArrayDeque<>();
+    private final BlockingQueue<CompletableFuture<B>> finished = new LinkedBlockingQueue<>();
+    private int inFlight;
+    private boolean closed;
+
+    AsyncMapIterator(Iterator<A> source, Function<? super A, ? extends B> f, int maxInFlight, boolean ordered) {
+        if (maxInFlight <= 0) {
+            throw new IllegalArgumentException("maxInFlight must be positive: " + maxInFlight);
+        }
+        this.source = source;
+        this.f = f;
+        this.maxInFlight = maxInFlight;
+        this.ordered = ordered;
+    }
+
+    private static Method virtualThreadExecutor() {
+        try {
+            return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    private ExecutorService newExecutor() {
+        if (VIRTUAL_THREAD_EXECUTOR != null) {
+            try {
+                return (ExecutorService) VIRTUAL_THREAD_EXECUTOR.invoke(null);
+            } catch (ReflectiveOperationException e) {
+                // fall back to platform threads
+            }
+        }
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(maxInFlight, maxInFlight, 10, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), task -> {
+            Thread thread = new Thread(task, "RichIterator-mapAsync-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (closed) {
+            return false;
+        }
+        while (inFlight < maxInFlight && source.hasNext()) {
+            submit(source.next());
+        }
+        if (inFlight == 0) {
+            shutdown();
+            return false;
+        }
+        return true;
+    }
+
+    private void submit(A elem) {
+        if (executor == null) {
+            executor = newExecutor();
+        }
+        CompletableFuture<B> task = CompletableFuture.supplyAsync(() -> f.apply(elem), executor);
+        if (ordered) {
+            pending.add(task);
+        } else {
+            task.whenComplete((result, e) -> finished.add(task));
+        }
+        inFlight++;
+    }
+
+    @Override
+    public B next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        try {
+            CompletableFuture<B> task = ordered ? pending.remove() : finished.take();
+            inFlight--;
+            return task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while waiting for mapAsync", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    @Override
+    public int knownSize() {
+        int size = source instanceof RichIterator ? ((RichIterator<?>) source).knownSize() : -1;
+        return size < 0 ? -1 : size + inFlight;
+    }
+
+    private void shutdown() {
+        if (executor != null) {
+            executor.shutdown();
+            executor = null;
+        }
+    }
+
+    /**
+     * interrupts the running tasks, drops the results that were not returned and closes the source
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+        pending.clear();
+        finished.clear();
+        inFlight = 0;
+        Wrapper.close(source);
+    }
+}
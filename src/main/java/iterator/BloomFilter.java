@@ -0,0 +1,78 @@
+package iterator;
+
+/**
+ * A Bloom filter over 64 bit hashes of the elements.
+ * mightContain never answers false for a hash that was put, it may answer true for one that was not.
+ * Elements with the same hash are the same to the filter.
+ */
+final class BloomFilter {
+    private final long[] bits;
+    private final long size;
+    private final int hashes;
+
+    /**
+     * @param expectedElements  the number of elements the false positive rate is computed for
+     * @param falsePositiveRate the chance of mightContain(x) to be true for an x that was not put, in (0, 1)
+     */
+    BloomFilter(long expectedElements, double falsePositiveRate) {
+        if (expectedElements <= 0) {
+            throw new IllegalArgumentException("expectedElements must be positive: " + expectedElements);
+        }
+        if (!(falsePositiveRate > 0 && falsePositiveRate < 1)) {
+            throw new IllegalArgumentException("falsePositiveRate must be in (0, 1): " + falsePositiveRate);
+        }
+        // the optimal number of bits and hash functions, see https://en.wikipedia.org/wiki/Bloom_filter
+        long size = (long) Math.ceil(-expectedElements * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        this.bits = new long[(int) Math.min((size + 63) / 64, Integer.MAX_VALUE - 8)];
+        this.size = bits.length * 64L;
+        this.hashes = (int) Math.max(1, Math.min(30, Math.round((double) this.size / expectedElements * Math.log(2))));
+    }
+
+    /**
+     * @return the hash spread over all 64 bits, it decides the element's bits
+     */
+    static long mix(long hash) {
+        // the finalizer of MurmurHash3, spreads hashes that differ in a few bits (like small ids)
+        long h = hash * 0x9E3779B97F4A7C15L;
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    /**
+     * sets the bits of the hash
+     *
+     * @return true if some bit was not set before, which means the hash was never put
+     */
+    boolean put(long hash) {
+        // double hashing, the i-th bit is h1 + i * h2 (Kirsch and Mitzenmacher)
+        long h1 = hash;
+        long h2 = (hash >>> 32) | 1;
+        boolean changed = false;
+        for (int i = 0; i < hashes; i++) {
+            long bit = ((h1 + i * h2) & Long.MAX_VALUE) % size;
+            long word = bits[(int) (bit >>> 6)];
+            long mask = 1L << bit;
+            if ((word & mask) == 0) {
+                bits[(int) (bit >>> 6)] = word | mask;
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    boolean mightContain(long hash) {
+        long h1 = hash;
+        long h2 = (hash >>> 32) | 1;
+        for (int i = 0; i < hashes; i++) {
+            long bit = ((h1 + i * h2) & Long.MAX_VALUE) % size;
+            if ((bits[(int) (bit >>> 6)] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
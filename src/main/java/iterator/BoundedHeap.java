@@ -0,0 +1,271 @@
+package iterator;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PrimitiveIterator;
+
+/**
+ * The k largest elements seen so far, in a binary min-heap of at most k elements.
+ * <p>
+ * The root is the smallest of the k, so an element that does not make it costs one comparison
+ * and one that does replaces the root, O(n log k) in total with O(k) memory.
+ * The array grows with the elements, so a big k over a few elements does not allocate k slots.
+ * Heaps built on different chunks of the input are combined with merge.
+ * <p>
+ * The primitive variants keep the elements in an int or long heap. The smallest elements are found as the largest
+ * of ~x, which reverses the order without overflowing, and doubles are mapped to longs that are ordered like
+ * Double.compare orders the doubles.
+ */
+final class BoundedHeap<A> {
+    private final int k;
+    private final Comparator<? super A> comparator;
+    private Object[] heap;
+    private int size;
+
+    BoundedHeap(int k, Comparator<? super A> comparator) {
+        checkK(k);
+        this.k = k;
+        this.comparator = comparator;
+        this.heap = new Object[Math.min(k, 16)];
+    }
+
+    private static void checkK(int k) {
+        if (k < 0) {
+            throw new IllegalArgumentException("k must not be negative: " + k);
+        }
+    }
+
+    private static int grow(int length, int k) {
+        return (int) Math.min(k, Math.max(16, 2L * length));
+    }
+
+    @SuppressWarnings("unchecked")
+    void add(A elem) {
+        if (size < k) {
+            if (size == heap.length) {
+                heap = Arrays.copyOf(heap, grow(size, k));
+            }
+            heap[size] = elem;
+            siftUp(size++);
+        } else if (k > 0 && comparator.compare(elem, (A) heap[0]) > 0) {
+            heap[0] = elem;
+            siftDown(0, size);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    BoundedHeap<A> merge(BoundedHeap<A> other) {
+        for (int i = 0; i < other.size; i++) {
+            add((A) other.heap[i]);
+        }
+        return this;
+    }
+
+    /**
+     * empties the heap
+     *
+     * @return the elements, largest first
+     */
+    @SuppressWarnings("unchecked")
+    List<A> toSortedList() {
+        Object[] sorted = new Object[size];
+        for (int i = size - 1; i >= 0; i--) {
+            sorted[i] = heap[0];
+            heap[0] = heap[i];
+            heap[i] = null;
+            siftDown(0, i);
+        }
+        size = 0;
+        return Arrays.asList((A[]) sorted);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void siftUp(int i) {
+        Object elem = heap[i];
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (comparator.compare((A) elem, (A) heap[parent]) >= 0) {
+                break;
+            }
+            heap[i] = heap[parent];
+            i = parent;
+        }
+        heap[i] = elem;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void siftDown(int i, int n) {
+        if (n == 0) {
+            return;
+        }
+        Object elem = heap[i];
+        int half = n >>> 1;
+        while (i < half) {
+            int child = 2 * i + 1;
+            if (child + 1 < n && comparator.compare((A) heap[child + 1], (A) heap[child]) < 0) {
+                child++;
+            }
+            if (comparator.compare((A) elem, (A) heap[child]) <= 0) {
+                break;
+            }
+            heap[i] = heap[child];
+            i = child;
+        }
+        heap[i] = elem;
+    }
+
+    /**
+     * @param itr      the elements
+     * @param k        the number of elements to keep
+     * @param smallest whether to keep the smallest elements instead of the largest
+     * @return the k largest elements, largest first, or the k smallest, smallest first
+     */
+    static int[] top(PrimitiveIterator.OfInt itr, int k, boolean smallest) {
+        checkK(k);
+        int flip = smallest ? -1 : 0;
+        int[] heap = new int[Math.min(k, 16)];
+        int size = 0;
+        while (k > 0 && itr.hasNext()) {
+            heap = ensure(heap, size, k);
+            size = add(heap, size, k, itr.nextInt() ^ flip);
+        }
+        int[] sorted = new int[size];
+        for (int i = size - 1; i >= 0; i--) {
+            sorted[i] = heap[0] ^ flip;
+            siftDown(heap, heap[i], i);
+        }
+        return sorted;
+    }
+
+    private static int[] ensure(int[] heap, int size, int k) {
+        return size == heap.length && size < k ? Arrays.copyOf(heap, grow(size, k)) : heap;
+    }
+
+    // adds x to heap[0, size) if it is one of the k largest and returns the new size
+    private static int add(int[] heap, int size, int k, int x) {
+        if (size < k) {
+            int i = size;
+            while (i > 0 && x < heap[(i - 1) >>> 1]) {
+                heap[i] = heap[(i - 1) >>> 1];
+                i = (i - 1) >>> 1;
+            }
+            heap[i] = x;
+            return size + 1;
+        }
+        if (x > heap[0]) {
+            siftDown(heap, x, size);
+        }
+        return size;
+    }
+
+    // puts x at the root of heap[0, n) and sifts it down
+    private static void siftDown(int[] heap, int x, int n) {
+        int i = 0;
+        int half = n >>> 1;
+        while (i < half) {
+            int child = 2 * i + 1;
+            if (child + 1 < n && heap[child + 1] < heap[child]) {
+                child++;
+            }
+            if (x <= heap[child]) {
+                break;
+            }
+            heap[i] = heap[child];
+            i = child;
+        }
+        if (n > 0) {
+            heap[i] = x;
+        }
+    }
+
+    /**
+     * see top(PrimitiveIterator.OfInt, int, boolean)
+     */
+    static long[] top(PrimitiveIterator.OfLong itr, int k, boolean smallest) {
+        checkK(k);
+        long flip = smallest ? -1 : 0;
+        long[] heap = new long[Math.min(k, 16)];
+        int size = 0;
+        while (k > 0 && itr.hasNext()) {
+            heap = ensure(heap, size, k);
+            size = add(heap, size, k, itr.nextLong() ^ flip);
+        }
+        long[] sorted = new long[size];
+        for (int i = size - 1; i >= 0; i--) {
+            sorted[i] = heap[0] ^ flip;
+            siftDown(heap, heap[i], i);
+        }
+        return sorted;
+    }
+
+    /**
+     * see top(PrimitiveIterator.OfInt, int, boolean), the order is the order of Double.compare
+     */
+    static double[] top(PrimitiveIterator.OfDouble itr, int k, boolean smallest) {
+        checkK(k);
+        long flip = smallest ? -1 : 0;
+        long[] heap = new long[Math.min(k, 16)];
+        int size = 0;
+        while (k > 0 && itr.hasNext()) {
+            heap = ensure(heap, size, k);
+            size = add(heap, size, k, sortable(itr.nextDouble()) ^ flip);
+        }
+        double[] sorted = new double[size];
+        for (int i = size - 1; i >= 0; i--) {
+            sorted[i] = Double.longBitsToDouble(sortable(heap[0] ^ flip));
+            siftDown(heap, heap[i], i);
+        }
+        return sorted;
+    }
+
+    // flips the bits below the sign of negative doubles, so the longs compare like the doubles.
+    // applying it twice gives back the bits
+    private static long sortable(double x) {
+        return sortable(Double.doubleToLongBits(x));
+    }
+
+    private static long sortable(long bits) {
+        return bits ^ ((bits >> 63) & Long.MAX_VALUE);
+    }
+
+    private static long[] ensure(long[] heap, int size, int k) {
+        return size == heap.length && size < k ? Arrays.copyOf(heap, grow(size, k)) : heap;
+    }
+
+    // adds x to heap[0, size) if it is one of the k largest and returns the new size
+    private static int add(long[] heap, int size, int k, long x) {
+        if (size < k) {
+            int i = size;
+            while (i > 0 && x < heap[(i - 1) >>> 1]) {
+                heap[i] = heap[(i - 1) >>> 1];
+                i = (i - 1) >>> 1;
+            }
+            heap[i] = x;
+            return size + 1;
+        }
+        if (x > heap[0]) {
+            siftDown(heap, x, size);
+        }
+        return size;
+    }
+
+    private static void siftDown(long[] heap, long x, int n) {
+        int i = 0;
+        int half = n >>> 1;
+        while (i < half) {
+            int child = 2 * i + 1;
+            if (child + 1 < n && heap[child + 1] < heap[child]) {
+                child++;
+            }
+            if (x <= heap[child]) {
+                break;
+            }
+            heap[i] = heap[child];
+            i = child;
+        }
+        if (n > 0) {
+            heap[i] = x;
+        }
+    }
+}
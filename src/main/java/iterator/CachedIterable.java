@@ -0,0 +1,300 @@
+package iterator;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * The elements of an iterator, recorded by the first traversal and replayed by the next ones.
+ * <p>
+ * Nothing is read before an iterator asks for it: every iterator() starts from the first element, reads the
+ * elements that were already recorded and pulls (and records) the rest from the source, so two iterators can
+ * also move in step. The first memoryBudget elements are kept in segments of SEGMENT references, a new segment
+ * is added when the last one is full and nothing is ever copied. The elements after them are appended with the
+ * serializer to a file in the spill directory, and every iterator that gets there reads the file with a stream of
+ * its own.
+ * <p>
+ * The source is closed when it is exhausted, close() closes it before that and deletes the file.
+ * Not thread safe, the iterators must be used by one thread at a time.
+ */
+public final class CachedIterable<A> implements Iterable<A>, AutoCloseable {
+    private static final int SEGMENT = 1024;
+    private static final int BUFFER_SIZE = 16 * 1024;
+
+    private final Iterator<A> source;
+    private final int memoryBudget;
+    private final Serializer<A> serializer;
+    private final Path directory;
+
+    private final List<Object[]> segments = new ArrayList<>();
+    // the number of elements recorded, in memory and in the file
+    private long size;
+    private boolean complete;
+    private boolean closed;
+
+    // the elements from memoryBudget on, null until the first one is written
+    private Path file;
+    private DataOutputStream out;
+    // the number of elements of the file that readers can see
+    private long flushed;
+    private final List<Replay> readers = new ArrayList<>();
+
+    CachedIterable(Iterator<A> source, int memoryBudget, Serializer<A> serializer, Path directory) {
+        if (memoryBudget <= 0) {
+            throw new IllegalArgumentException("memoryBudget must be positive: " + memoryBudget);
+        }
+        this.source = source;
+        this.memoryBudget = memoryBudget;
+        this.serializer = serializer;
+        this.directory = directory;
+    }
+
+    /**
+     * @return an iterator from the first element, the elements that were not recorded yet are read from the source
+     * @throws IllegalStateException if the cache was closed
+     */
+    @Override
+    public RichIterator<A> iterator() {
+        if (closed) {
+            throw new IllegalStateException("the cache was closed");
+        }
+        return new Replay();
+    }
+
+    /**
+     * @return the number of elements recorded so far
+     */
+    public long recorded() {
+        return size;
+    }
+
+    /**
+     * @return true if the source was exhausted, so recorded() is the number of elements
+     */
+    public boolean isComplete() {
+        return complete;
+    }
+
+    // reads the next element of the source into the cache, false if there is none
+    private boolean record() {
+        if (complete || closed) {
+            return false;
+        }
+        if (!source.hasNext()) {
+            complete = true;
+            try {
+                Wrapper.close(source);
+            } finally {
+                closeOutput();
+            }
+            return false;
+        }
+        A elem = source.next();
+        if (size < memoryBudget) {
+            int offset = (int) (size & (SEGMENT - 1));
+            if (offset == 0) {
+                segments.add(new Object[SEGMENT]);
+            }
+            segments.get(segments.size() - 1)[offset] = elem;
+        } else {
+            write(elem);
+        }
+        size++;
+        return true;
+    }
+
+    private void write(A elem) {
+        if (serializer == null) {
+            throw new IllegalStateException("more than " + memoryBudget + " elements and no serializer to spill them");
+        }
+        try {
+            if (out == null) {
+                file = Files.createTempFile(directory, "cache", ".spill");
+                out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), BUFFER_SIZE));
+            }
+            serializer.write(out, elem);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // makes the first count elements of the file readable
+    private void flush(long count) {
+        if (count > flushed && out != null) {
+            try {
+                out.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            flushed = size - memoryBudget;
+        }
+    }
+
+    private void closeOutput() {
+        if (out != null) {
+            try {
+                out.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } finally {
+                out = null;
+                flushed = size - memoryBudget;
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private A memory(long i) {
+        return (A) segments.get((int) (i / SEGMENT))[(int) (i & (SEGMENT - 1))];
+    }
+
+    /**
+     * closes the source if it was not exhausted and the readers of the file, and deletes the file.
+     * iterators that were returned before have no more elements.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        segments.clear();
+        try {
+            if (!complete) {
+                Wrapper.close(source);
+            }
+        } finally {
+            try {
+                for (Replay reader : new ArrayList<>(readers)) {
+                    reader.close();
+                }
+                closeOutput();
+            } finally {
+                if (file != null) {
+                    try {
+                        Files.deleteIfExists(file);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    } finally {
+                        file = null;
+                    }
+                }
+            }
+        }
+    }
+
+    private class Replay implements RichIterator<A> {
+        private long pos;
+        // reads the file from element memoryBudget + read, null until pos gets there
+        private DataInputStream in;
+        private long read;
+        private boolean done;
+
+        @Override
+        public boolean hasNext() {
+            if (!done && !closed && (pos < size || record())) {
+                return true;
+            }
+            close();
+            return false;
+        }
+
+        @Override
+        public A next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            if (pos < memoryBudget) {
+                return memory(pos++);
+            }
+            A elem = readFile();
+            pos++;
+            return elem;
+        }
+
+        private A readFile() {
+            try {
+                if (in == null) {
+                    in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), BUFFER_SIZE));
+                    readers.add(this);
+                }
+                flush(read + 1);
+                A elem = serializer.read(in);
+                read++;
+                return elem;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public int nextChunk(Object[] dest, int offset, int max) {
+            int n = 0;
+            while (n < max && pos < memoryBudget && hasNext()) {
+                // copy what was recorded of the current segment in one go
+                int from = (int) (pos & (SEGMENT - 1));
+                long end = Math.min(Math.min(size, memoryBudget), pos - from + SEGMENT);
+                int count = (int) Math.min(max - n, end - pos);
+                System.arraycopy(segments.get((int) (pos / SEGMENT)), from, dest, offset + n, count);
+                n += count;
+                pos += count;
+            }
+            while (n < max && hasNext()) {
+                dest[offset + n++] = next();
+            }
+            return n;
+        }
+
+        @Override
+        public int knownSize() {
+            long remaining = -1;
+            if (complete) {
+                remaining = size - pos;
+            } else if (!closed && source instanceof RichIterator) {
+                int sourceSize = ((RichIterator<A>) source).knownSize();
+                remaining = sourceSize < 0 ? -1 : size + sourceSize - pos;
+            }
+            return done || closed ? 0 : remaining <= Integer.MAX_VALUE ? (int) remaining : -1;
+        }
+
+        /**
+         * skips the recorded elements in memory without reading them
+         */
+        @Override
+        public RichIterator<A> drop(int n) {
+            long skip = Math.max(0, Math.min(n, Math.min(size, memoryBudget) - pos));
+            pos += skip;
+            for (long i = skip; i < n && hasNext(); i++) {
+                next();
+            }
+            return this;
+        }
+
+        /**
+         * closes the file reader of this iterator, the cache and the source stay open
+         */
+        @Override
+        public void close() {
+            done = true;
+            readers.remove(this);
+            if (in != null) {
+                try {
+                    in.close();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                } finally {
+                    in = null;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,408 @@
+package iterator;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.OptionalDouble;
+import java.util.PrimitiveIterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.*;
+import java.util.stream.DoubleStream;
+import java.util.stream.StreamSupport;
+
+/**
+ * A RichIterator specialized for double values.
+ * The elements are never boxed unless boxed() is called.
+ */
+public interface DoubleRichIterator extends PrimitiveIterator.OfDouble, AutoCloseable {
+
+    /**
+     * @return true if there are no more elements, false otherwise
+     */
+    default boolean isEmpty() {
+        return !hasNext();
+    }
+
+    /**
+     * @return number of elements
+     */
+    default int length() {
+        int length = 0;
+        while (hasNext()) {
+            nextDouble();
+            length++;
+        }
+        return length;
+    }
+
+    /**
+     * executes the given Consumer on all the elements
+     *
+     * @param f the Consumer
+     */
+    default void foreach(DoubleConsumer f) {
+        while (hasNext()) {
+            f.accept(nextDouble());
+        }
+    }
+
+    /**
+     * converts the iterator to new one after the mapping function
+     *
+     * @param f the function
+     * @return a new Iterator.
+     */
+    default DoubleRichIterator map(DoubleUnaryOperator f) {
+        DoubleRichIterator self = this;
+        return new DoubleRichIterator() {
+            @Override
+            public boolean hasNext() {
+                return self.hasNext();
+            }
+
+            @Override
+            public double nextDouble() {
+                return f.applyAsDouble(self.nextDouble());
+            }
+
+            @Override
+            public void close() {
+                self.close();
+            }
+        };
+    }
+
+    /**
+     * @param f   the function
+     * @param <B> the new type
+     * @return a new Iterator of B
+     */
+    default <B> RichIterator<B> mapToObj(DoubleFunction<? extends B> f) {
+        DoubleRichIterator self = this;
+        return new RichIterator<B>() {
+            @Override
+            public boolean hasNext() {
+                return self.hasNext();
+            }
+
+            @Override
+            public B next() {
+                return f.apply(self.nextDouble());
+            }
+
+            @Override
+            public void close() {
+                self.close();
+            }
+        };
+    }
+
+    /**
+     * @param f the function
+     * @return a new Iterator of int
+     */
+    default IntRichIterator mapToInt(DoubleToIntFunction f) {
+        DoubleRichIterator self = this;
+        return new IntRichIterator() {
+            @Override
+            public boolean hasNext() {
+                return self.hasNext();
+            }
+
+            @Override
+            public int nextInt() {
+                return f.applyAsInt(self.nextDouble());
+            }
+
+            @Override
+            public void close() {
+                self.close();
+            }
+        };
+    }
+
+    /**
+     * @param f the function
+     * @return a new Iterator of long
+     */
+    default LongRichIterator mapToLong(DoubleToLongFunction f) {
+        DoubleRichIterator self = this;
+        return new LongRichIterator() {
+            @Override
+            public boolean hasNext() {
+                return self.hasNext();
+            }
+
+            @Override
+            public long nextLong() {
+                return f.applyAsLong(self.nextDouble());
+            }
+
+            @Override
+            public void close() {
+                self.close();
+            }
+        };
+    }
+
+    /**
+     * return an iterator with only the elements fit the predicate
+     *
+     * @param f the predicate
+     * @return an iterator
+     */
+    default DoubleRichIterator filter(DoublePredicate f) {
+        DoubleRichIterator self = this;
+        return new DoubleRichIterator() {
+            private boolean ready;
+            private double head;
+
+            @Override
+            public boolean hasNext() {
+                while (!ready && self.hasNext()) {
+                    head = self.nextDouble();
+                    ready = f.test(head);
+                }
+                return ready;
+            }
+
+            @Override
+            public double nextDouble() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                ready = false;
+                return head;
+            }
+
+            @Override
+            public void close() {
+                self.close();
+            }
+        };
+    }
+
+    /**
+     * "sums" the elements on the iterator from left to right
+     *
+     * @param zero the first element usually neutral
+     * @param acc  accumulate function
+     * @return the accumulated result
+     * e.g.
+     * DoubleRichIterator.of(1,2,3,4,5).foldLeft(0, (x,y) -> x + y) // 15
+     */
+    default double foldLeft(double zero, DoubleBinaryOperator acc) {
+        double total = zero;
+        while (hasNext()) {
+            total = acc.applyAsDouble(total, nextDouble());
+        }
+        return total;
+    }
+
+    /**
+     * @return the sum of the elements, 0 if empty
+     */
+    default double sum() {
+        double sum = 0;
+        while (hasNext()) {
+            sum += nextDouble();
+        }
+        return sum;
+    }
+
+    /**
+     * @return the average of the elements or empty if the iterator is empty
+     */
+    default OptionalDouble average() {
+        double sum = 0;
+        long count = 0;
+        while (hasNext()) {
+            sum += nextDouble();
+            count++;
+        }
+        return count == 0 ? OptionalDouble.empty() : OptionalDouble.of(sum / count);
+    }
+
+    /**
+     * @return the maximum element
+     * @throws NoSuchElementException if the iterator is empty
+     */
+    default double max() {
+        double max = nextDouble();
+        while (hasNext()) {
+            max = Math.max(max, nextDouble());
+        }
+        return max;
+    }
+
+    /**
+     * @return the minimum element
+     * @throws NoSuchElementException if the iterator is empty
+     */
+    default double min() {
+        double min = nextDouble();
+        while (hasNext()) {
+            min = Math.min(min, nextDouble());
+        }
+        return min;
+    }
+
+    /**
+     * finds the k largest elements in the order of Double.compare (-0.0 before 0.0, NaN last)
+     * with a heap of k doubles, in O(n log k) time and O(k) memory.
+     * <p>
+     * for example:
+     * DoubleRichIterator.of(5,1,4,2,3).topK(2) // [5.0, 4.0]
+     *
+     * @param k the number of elements
+     * @return the k largest elements (or all of them if there are fewer), largest first
+     */
+    default double[] topK(int k) {
+        return BoundedHeap.top(this, k, false);
+    }
+
+    /**
+     * finds the k smallest elements, see topK
+     * <p>
+     * for example:
+     * DoubleRichIterator.of(5,1,4,2,3).bottomK(2) // [1.0, 2.0]
+     *
+     * @param k the number of elements
+     * @return the k smallest elements (or all of them if there are fewer), smallest first
+     */
+    default double[] bottomK(int k) {
+        return BoundedHeap.top(this, k, true);
+    }
+
+    /**
+     * @return an array built from the iterator's elements
+     */
+    default double[] toArray() {
+        double[] arr = new double[16];
+        int size = 0;
+        while (hasNext()) {
+            if (size == arr.length) {
+                arr = Arrays.copyOf(arr, size * 2);
+            }
+            arr[size++] = nextDouble();
+        }
+        return Arrays.copyOf(arr, size);
+    }
+
+    /**
+     * hands the remaining elements over to a Spliterator, the iterator should not be used afterwards.
+     * of(...) and range(...) split in exact halves, other iterators are split by copying batches.
+     *
+     * @return a spliterator over the remaining elements
+     */
+    default Spliterator.OfDouble spliterator() {
+        return Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED);
+    }
+
+    /**
+     * @return a sequential DoubleStream over the remaining elements
+     */
+    default DoubleStream stream() {
+        return StreamSupport.doubleStream(spliterator(), false).onClose(this::close);
+    }
+
+    /**
+     * @return a parallel DoubleStream over the remaining elements, see spliterator()
+     */
+    default DoubleStream parallelStream() {
+        return StreamSupport.doubleStream(spliterator(), true).onClose(this::close);
+    }
+
+    /**
+     * releases the resources held by the iterator, operators pass close() on to the iterator they were built on.
+     * see RichIterator.close()
+     */
+    @Override
+    default void close() {
+    }
+
+    /**
+     * @return the same iterator with every element boxed to Double
+     */
+    default RichIterator<Double> boxed() {
+        return RichIterator.from(this);
+    }
+
+    /**
+     * creates DoubleRichIterator based on the given elements
+     *
+     * @param elements the elements
+     * @return the iterator
+     */
+    static DoubleRichIterator of(double... elements) {
+        return new DoubleRichIterator() {
+            private int i = 0;
+
+            @Override
+            public boolean hasNext() {
+                return i < elements.length;
+            }
+
+            @Override
+            public double nextDouble() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return elements[i++];
+            }
+
+            @Override
+            public Spliterator.OfDouble spliterator() {
+                Spliterator.OfDouble spliterator = Spliterators.spliterator(elements, i, elements.length, Spliterator.ORDERED);
+                i = elements.length;
+                return spliterator;
+            }
+
+            @Override
+            public void close() {
+                i = elements.length;
+            }
+        };
+    }
+
+    /**
+     * generates a serial of elements that every element leads to the next one.
+     *
+     * @param first    the first element
+     * @param progress the progress function
+     * @return an infinite iterator
+     */
+    static DoubleRichIterator iterate(double first, DoubleUnaryOperator progress) {
+        return new DoubleRichIterator() {
+            private double current = first;
+            private boolean started = false;
+            private boolean closed = false;
+
+            @Override
+            public boolean hasNext() {
+                return !closed;
+            }
+
+            @Override
+            public double nextDouble() {
+                if (closed) {
+                    throw new NoSuchElementException();
+                }
+                if (started) {
+                    current = progress.applyAsDouble(current);
+                }
+                started = true;
+                return current;
+            }
+
+            @Override
+            public void close() {
+                closed = true;
+            }
+        };
+    }
+
+    static DoubleRichIterator empty() {
+        return of();
+    }
+}
@@ -16,4 +16,9 @@ public class EmptyIterator implements RichIterator {
     public Object next() {
         return Stream.empty().iterator().next();
     }
+
+    @Override
+    public int knownSize() {
+        return 0;
+    }
 }
@@ -0,0 +1,341 @@
+package iterator;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A stable sort that keeps at most memoryBudget elements in memory.
+ * <p>
+ * Nothing is read before the first hasNext(). Then the source is read in runs of memoryBudget elements,
+ * every run is sorted and written to its own file with the serializer, and the runs are merged by a
+ * MergeSortedIterator. The last run stays in memory and takes part in the merge,
+ * so a source that fits in the budget never touches the disk. When there are more than FAN_IN runs,
+ * they are merged in rounds, consecutive groups of up to FAN_IN runs into one file each, until FAN_IN are left,
+ * so the open files (and their read buffers) stay bounded however big the source is and every element is
+ * rewritten once per round.
+ * <p>
+ * In parallel mode the budget is split between two runs: while one is sorted (with Arrays.parallelSort)
+ * and written on a writer thread, the next one is read from the source.
+ * The files are deleted when the iterator is exhausted or closed.
+ */
+class ExternalSortIterator<A> implements RichIterator<A> {
+    private static final int FAN_IN = 128;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final AtomicInteger threads = new AtomicInteger();
+
+    private final Iterator<A> source;
+    private final Comparator<Object> comparator;
+    private final int runSize;
+    private final Serializer<A> serializer;
+    private final Path directory;
+    private final boolean parallel;
+    private final Object[][] buffers;
+
+    // the spilled runs, in the order they were read. only the writer thread touches it while it runs
+    private final List<Run> runs = new ArrayList<>();
+    private Thread writer;
+    private Throwable writeFailure;
+
+    private RichIterator<A> output;
+    private boolean closed;
+
+    @SuppressWarnings("unchecked")
+    ExternalSortIterator(Iterator<A> source, Comparator<? super A> comparator, int memoryBudget,
+                         Serializer<A> serializer, Path directory, boolean parallel) {
+        if (memoryBudget <= 0) {
+            throw new IllegalArgumentException("memoryBudget must be positive: " + memoryBudget);
+        }
+        this.source = source;
+        this.comparator = (Comparator<Object>) comparator;
+        this.runSize = parallel ? Math.max(1, memoryBudget / 2) : memoryBudget;
+        this.serializer = serializer;
+        this.directory = directory;
+        this.parallel = parallel;
+        this.buffers = new Object[parallel ? 2 : 1][];
+    }
+
+    /**
+     * A spilled run, count elements written to file.
+     */
+    private static final class Run {
+        final Path file;
+        long count;
+
+        Run(Path file) {
+            this.file = file;
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (closed) {
+            return false;
+        }
+        if (output == null) {
+            sort();
+        }
+        if (output.hasNext()) {
+            return true;
+        }
+        close();
+        return false;
+    }
+
+    @Override
+    public A next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return output.next();
+    }
+
+    private void sort() {
+        int current = 0;
+        int n;
+        while (true) {
+            n = fill(current);
+            if (n < runSize || !source.hasNext()) {
+                break;
+            }
+            if (parallel) {
+                awaitWriter();
+                spillAsync(buffers[current], n);
+                current = 1 - current;
+            } else {
+                sortRun(buffers[current], n);
+                spill(buffers[current], n);
+            }
+        }
+        awaitWriter();
+        try {
+            while (runs.size() > FAN_IN) {
+                mergeRound();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        List<Iterator<A>> inputs = new ArrayList<>();
+        for (Run run : runs) {
+            inputs.add(new SpillFileIterator<>(run.file, run.count, serializer, BUFFER_SIZE));
+        }
+        if (n > 0) {
+            sortRun(buffers[current], n);
+            inputs.add(new MemoryRun<>(buffers[current], n));
+        }
+        Arrays.fill(buffers, null);
+        output = new MergeSortedIterator<>(comparator, inputs, false);
+    }
+
+    // reads up to runSize elements into buffers[index], growing it as needed
+    private int fill(int index) {
+        Object[] buffer = buffers[index];
+        if (buffer == null) {
+            buffer = new Object[Math.min(runSize, 1024)];
+        }
+        int n = 0;
+        while (n < runSize && source.hasNext()) {
+            if (n == buffer.length) {
+                buffer = Arrays.copyOf(buffer, (int) Math.min(runSize, 2L * buffer.length));
+            }
+            buffer[n++] = source.next();
+        }
+        buffers[index] = buffer;
+        return n;
+    }
+
+    private void sortRun(Object[] run, int n) {
+        if (parallel) {
+            Arrays.parallelSort(run, 0, n, comparator);
+        } else {
+            Arrays.sort(run, 0, n, comparator);
+        }
+    }
+
+    private void spillAsync(Object[] run, int n) {
+        writer = new Thread(() -> {
+            try {
+                sortRun(run, n);
+                spill(run, n);
+            } catch (Throwable e) {
+                writeFailure = e;
+            }
+        }, "RichIterator-sort-" + threads.incrementAndGet());
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    private void awaitWriter() {
+        Thread w = writer;
+        if (w == null) {
+            return;
+        }
+        boolean interrupted = false;
+        while (true) {
+            try {
+                w.join();
+                break;
+            } catch (InterruptedException e) {
+                // the run has to be complete before it is merged or its file deleted
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        writer = null;
+        Throwable failure = writeFailure;
+        writeFailure = null;
+        if (failure instanceof RuntimeException) {
+            throw (RuntimeException) failure;
+        }
+        if (failure instanceof Error) {
+            throw (Error) failure;
+        }
+        if (failure != null) {
+            throw new IllegalStateException(failure);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void spill(Object[] run, int n) {
+        try {
+            Run spilled = newRun();
+            try (DataOutputStream out = open(spilled.file)) {
+                for (int i = 0; i < n; i++) {
+                    serializer.write(out, (A) run[i]);
+                    run[i] = null;
+                }
+            }
+            spilled.count = n;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Run newRun() throws IOException {
+        Run run = new Run(Files.createTempFile(directory, "sort", ".run"));
+        runs.add(run);
+        return run;
+    }
+
+    private DataOutputStream open(Path file) throws IOException {
+        return new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), BUFFER_SIZE));
+    }
+
+    // merges consecutive groups of up to FAN_IN runs once each, stopping as soon as FAN_IN runs are left,
+    // so every element is rewritten once per round and there are log(runs) / log(FAN_IN) rounds
+    private void mergeRound() throws IOException {
+        for (int from = 0; from < runs.size() && runs.size() > FAN_IN; from++) {
+            int group = Math.min(FAN_IN, Math.min(runs.size() - from, runs.size() - FAN_IN + 1));
+            if (group < 2) {
+                return;
+            }
+            mergeRuns(from, group);
+        }
+    }
+
+    // merges the n runs at from into one run that takes their place, so the merge stays stable
+    private void mergeRuns(int from, int n) throws IOException {
+        List<Run> group = new ArrayList<>(runs.subList(from, from + n));
+        Run merged = new Run(Files.createTempFile(directory, "sort", ".run"));
+        runs.add(from, merged);
+        List<Iterator<A>> inputs = new ArrayList<>();
+        for (Run run : group) {
+            inputs.add(new SpillFileIterator<>(run.file, run.count, serializer, BUFFER_SIZE));
+        }
+        try (RichIterator<A> merge = new MergeSortedIterator<>(comparator, inputs, false);
+             DataOutputStream out = open(merged.file)) {
+            while (merge.hasNext()) {
+                serializer.write(out, merge.next());
+                merged.count++;
+            }
+        }
+        for (Run run : group) {
+            Files.deleteIfExists(run.file);
+        }
+        runs.subList(from + 1, from + n + 1).clear();
+    }
+
+    /**
+     * stops the writer thread, closes the source and deletes the files
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        Arrays.fill(buffers, null);
+        try {
+            try {
+                awaitWriter();
+            } finally {
+                try {
+                    if (output != null) {
+                        output.close();
+                    }
+                } finally {
+                    Wrapper.close(source);
+                }
+            }
+        } finally {
+            deleteFiles();
+        }
+    }
+
+    private void deleteFiles() {
+        IOException failure = null;
+        for (Run run : runs) {
+            try {
+                Files.deleteIfExists(run.file);
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+        runs.clear();
+        if (failure != null) {
+            throw new UncheckedIOException(failure);
+        }
+    }
+
+    /**
+     * The sorted run that stayed in memory, every element is released when it is returned.
+     */
+    private static final class MemoryRun<A> implements Iterator<A> {
+        private final Object[] run;
+        private final int size;
+        private int position;
+
+        MemoryRun(Object[] run, int size) {
+            this.run = run;
+            this.size = size;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return position < size;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public A next() {
+            if (position >= size) {
+                throw new NoSuchElementException();
+            }
+            A elem = (A) run[position];
+            run[position++] = null;
+            return elem;
+        }
+    }
+}
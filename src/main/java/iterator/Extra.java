@@ -38,6 +38,8 @@ public final class Extra {
      * @param <B> type B
      * @return Cartesian product
      * @implNote try implement it with only one line of code !
+     * iterating b again for every element of a pays the cost of b |a| times,
+     * see RichIterator.product for an operator that reads b once
      */
     public static <A, B> RichIterator<Pair<A, B>> product(Iterable<A> a, Iterable<B> b) {
         // TODO: implement this method
@@ -0,0 +1,273 @@
+package iterator;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * A single stage that runs a chain of stateless operators (map, filter, tapEach, take, drop, takeWhile)
+ * in one loop over the source, instead of one hasNext()/next() layer per operator.
+ * <p>
+ * Chaining one of those operators on a FusedIterator appends to the chain and returns a new stage,
+ * the previous stage must not be used afterwards (same as any other operator).
+ * <p>
+ * The source is closed as soon as the stage runs out of elements, so a take or takeWhile that stops early
+ * releases the source without waiting for close().
+ */
+class FusedIterator<A> implements RichIterator<A> {
+    private static final int MAP = 0;
+    private static final int FILTER = 1;
+    private static final int TAP = 2;
+    private static final int TAKE = 3;
+    private static final int DROP = 4;
+    private static final int TAKE_WHILE = 5;
+
+    private static final Object SKIP = new Object();
+
+    private final Iterator<?> source;
+    private final int[] kinds;
+    private final Object[] functions;
+    private final int[] counters;
+    // operators before this index may reject elements, so they run in hasNext(), the rest run in next()
+    private final int eager;
+    // takeWhile cannot tell in advance how many elements it will accept, so it disables bulk pulling
+    private final boolean bulk;
+
+    private boolean done;
+    private boolean closed;
+    private boolean ready;
+    private Object head;
+
+    FusedIterator(Iterator<A> source) {
+        this(source, new int[0], new Object[0], new int[0], false);
+    }
+
+    private FusedIterator(Iterator<?> source, int[] kinds, Object[] functions, int[] counters, boolean done) {
+        this.source = source;
+        this.kinds = kinds;
+        this.functions = functions;
+        this.counters = counters;
+        int eager = 0;
+        boolean bulk = source instanceof RichIterator;
+        for (int i = 0; i < kinds.length; i++) {
+            if (kinds[i] == FILTER || kinds[i] == DROP || kinds[i] == TAKE_WHILE) {
+                eager = i + 1;
+            }
+            if (kinds[i] == TAKE && counters[i] <= 0) {
+                done = true;
+            }
+            if (kinds[i] == TAKE_WHILE) {
+                bulk = false;
+            }
+        }
+        this.eager = eager;
+        this.bulk = bulk;
+        this.done = done;
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (!ready && !done && source.hasNext()) {
+            Object elem = run(source.next(), 0, eager);
+            if (elem != SKIP) {
+                head = elem;
+                ready = true;
+            }
+        }
+        if (!ready && !closed) {
+            close();
+        }
+        return ready;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public A next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        Object elem = head;
+        head = null;
+        ready = false;
+        return (A) run(elem, eager, kinds.length);
+    }
+
+    @Override
+    public int knownSize() {
+        if (done) {
+            return ready ? 1 : 0;
+        }
+        int size = source instanceof RichIterator ? ((RichIterator<?>) source).knownSize() : -1;
+        if (size < 0) {
+            return -1;
+        }
+        size = sizeAfter(0, eager, size);
+        if (size < 0) {
+            return -1;
+        }
+        return sizeAfter(eager, kinds.length, ready ? size + 1 : size);
+    }
+
+    // the number of elements left out of size elements that pass the operators [from, to), -1 if unknown
+    private int sizeAfter(int from, int to, int size) {
+        for (int i = from; i < to; i++) {
+            switch (kinds[i]) {
+                case FILTER:
+                case TAKE_WHILE:
+                    return -1;
+                case TAKE:
+                    size = Math.min(size, counters[i]);
+                    break;
+                case DROP:
+                    size = Math.max(size - counters[i], 0);
+                    break;
+                default:
+                    break;
+            }
+        }
+        return size;
+    }
+
+    @Override
+    public int nextChunk(Object[] dest, int offset, int max) {
+        // source elements land in dest before they are mapped, which only a plain Object[] can hold
+        if (!bulk || dest.getClass() != Object[].class) {
+            return RichIterator.super.nextChunk(dest, offset, max);
+        }
+        int n = 0;
+        if (ready && max > 0) {
+            dest[offset + n++] = next();
+        }
+        while (n < max && !done) {
+            // never pull more than any take can still accept, so the source is not over-consumed
+            int pull = max - n;
+            for (int i = 0; i < kinds.length; i++) {
+                if (kinds[i] == TAKE) {
+                    pull = Math.min(pull, counters[i]);
+                }
+            }
+            int start = offset + n;
+            int end = start + ((RichIterator<?>) source).nextChunk(dest, start, pull);
+            if (end == start) {
+                // the source is exhausted
+                done = true;
+                break;
+            }
+            for (int j = start; j < end; j++) {
+                Object elem = run(dest[j], 0, kinds.length);
+                if (elem != SKIP) {
+                    dest[offset + n++] = elem;
+                }
+            }
+            Arrays.fill(dest, offset + n, end, null);
+        }
+        if (done && !closed) {
+            close();
+        }
+        return n;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private Object run(Object elem, int from, int to) {
+        for (int i = from; i < to; i++) {
+            switch (kinds[i]) {
+                case MAP:
+                    elem = ((Function) functions[i]).apply(elem);
+                    break;
+                case FILTER:
+                    if (!((Predicate) functions[i]).test(elem)) {
+                        return SKIP;
+                    }
+                    break;
+                case TAP:
+                    ((Consumer) functions[i]).accept(elem);
+                    break;
+                case TAKE:
+                    if (--counters[i] == 0) {
+                        done = true;
+                    }
+                    break;
+                case DROP:
+                    if (counters[i] > 0) {
+                        counters[i]--;
+                        return SKIP;
+                    }
+                    break;
+                case TAKE_WHILE:
+                    if (!((Predicate) functions[i]).test(elem)) {
+                        done = true;
+                        return SKIP;
+                    }
+                    break;
+                default:
+                    throw new IllegalStateException("unknown operator " + kinds[i]);
+            }
+        }
+        return elem;
+    }
+
+    private <B> FusedIterator<B> then(int kind, Object function, int counter) {
+        if (ready) {
+            // an element was already pulled through this chain, so start a new chain on top of it
+            return new FusedIterator<>(this, new int[]{kind}, new Object[]{function}, new int[]{counter}, false);
+        }
+        int n = kinds.length;
+        int[] newKinds = Arrays.copyOf(kinds, n + 1);
+        Object[] newFunctions = Arrays.copyOf(functions, n + 1);
+        int[] newCounters = Arrays.copyOf(counters, n + 1);
+        newKinds[n] = kind;
+        newFunctions[n] = function;
+        newCounters[n] = counter;
+        return new FusedIterator<>(source, newKinds, newFunctions, newCounters, done);
+    }
+
+    @Override
+    public <B> RichIterator<B> map(Function<? super A, ? extends B> f) {
+        return then(MAP, f, 0);
+    }
+
+    @Override
+    public RichIterator<A> filter(Predicate<? super A> f) {
+        return then(FILTER, f, 0);
+    }
+
+    @Override
+    public RichIterator<A> tapEach(Consumer<? super A> f) {
+        return then(TAP, f, 0);
+    }
+
+    @Override
+    public RichIterator<A> take(int n) {
+        return then(TAKE, null, Math.max(n, 0));
+    }
+
+    @Override
+    public RichIterator<A> drop(int n) {
+        return then(DROP, null, Math.max(n, 0));
+    }
+
+    @Override
+    public RichIterator<A> takeWhile(Predicate<? super A> predicate) {
+        return then(TAKE_WHILE, predicate, 0);
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        done = true;
+        ready = false;
+        head = null;
+        Wrapper.close(source);
+    }
+
+    @Override
+    public RichIterator<A> fused() {
+        return this;
+    }
+}
@@ -0,0 +1,336 @@
+package iterator;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * A hash join, the right side is the build side and the left side is streamed.
+ * <p>
+ * Nothing is read before the first hasNext(). Then the right elements are put in a HashMap from key to elements
+ * (and the right side is closed), and every left element is looked up in it,
+ * so the left elements come out in their order.
+ * <p>
+ * When there are more than memoryBudget right elements the join turns into a grace hash join: both sides are
+ * written with their serializers to PARTITIONS files each, by the hash of the key, and the partitions are joined
+ * one after the other by a join with the same budget, over another hash, so a partition that is still too big
+ * is partitioned again (up to MAX_DEPTH times, after that it is loaded whatever its size, e.g. one huge key).
+ * The left elements then come out partition by partition. The files are deleted when the iterator is exhausted
+ * or closed.
+ */
+class HashJoinIterator<A, B, K> extends JoinIterator<A, B> {
+    private static final int PARTITIONS = 64;
+    private static final int MAX_DEPTH = 3;
+    private static final int BUFFER_SIZE = 16 * 1024;
+
+    private final Iterator<A> left;
+    private final Iterator<B> right;
+    private final Function<? super A, ? extends K> leftKey;
+    private final Function<? super B, ? extends K> rightKey;
+    private final JoinType type;
+    private final int memoryBudget;
+    private final Serializer<A> leftSerializer;
+    private final Serializer<B> rightSerializer;
+    private final Path directory;
+    private final int depth;
+
+    private Map<K, List<B>> table;
+    // the partition files, null once joined
+    private Path[] leftFiles;
+    private Path[] rightFiles;
+    private long[] leftCounts;
+    private long[] rightCounts;
+    private int partition;
+    private RichIterator<Pair<A, B>> partitionJoin;
+    private boolean closed;
+
+    HashJoinIterator(Iterator<A> left, Iterator<B> right, Function<? super A, ? extends K> leftKey,
+                     Function<? super B, ? extends K> rightKey, JoinType type, int memoryBudget,
+                     Serializer<A> leftSerializer, Serializer<B> rightSerializer, Path directory, int depth) {
+        super(left, type);
+        if (memoryBudget <= 0) {
+            throw new IllegalArgumentException("memoryBudget must be positive: " + memoryBudget);
+        }
+        // a spill writes both sides, so a missing left serializer would only fail after the right side was spilled
+        if ((leftSerializer == null) != (rightSerializer == null)) {
+            throw new IllegalArgumentException("leftSerializer and rightSerializer must be both given or both null");
+        }
+        this.left = left;
+        this.right = right;
+        this.leftKey = leftKey;
+        this.rightKey = rightKey;
+        this.type = type;
+        this.memoryBudget = memoryBudget;
+        this.leftSerializer = leftSerializer;
+        this.rightSerializer = rightSerializer;
+        this.directory = directory;
+        this.depth = depth;
+    }
+
+    /**
+     * a join that builds on the left side instead when it is an inner join and both sides know their sizes
+     * and the left one is smaller, the pairs then come in the order of the right side.
+     * without serializers the build side is never spilled.
+     */
+    static <A, B, K> RichIterator<Pair<A, B>> join(RichIterator<A> left, Iterator<B> right,
+                                                   Function<? super A, ? extends K> leftKey,
+                                                   Function<? super B, ? extends K> rightKey, JoinType type,
+                                                   int memoryBudget, Serializer<A> leftSerializer,
+                                                   Serializer<B> rightSerializer, Path directory) {
+        int leftSize = left.knownSize();
+        int rightSize = right instanceof RichIterator ? ((RichIterator<B>) right).knownSize() : -1;
+        if (type != JoinType.INNER || leftSize < 0 || rightSize < 0 || leftSize >= rightSize) {
+            return new HashJoinIterator<>(left, right, leftKey, rightKey, type, memoryBudget,
+                    leftSerializer, rightSerializer, directory, 0);
+        }
+        RichIterator<Pair<B, A>> swapped = new HashJoinIterator<>(right, left, rightKey, leftKey, type, memoryBudget,
+                rightSerializer, leftSerializer, directory, 0);
+        return new RichIterator<Pair<A, B>>() {
+            @Override
+            public boolean hasNext() {
+                return swapped.hasNext();
+            }
+
+            @Override
+            public Pair<A, B> next() {
+                Pair<B, A> pair = swapped.next();
+                return Pair.apply(pair._2, pair._1);
+            }
+
+            @Override
+            public void close() {
+                swapped.close();
+            }
+        };
+    }
+
+    @Override
+    List<B> matches(A elem) {
+        return table.get(leftKey.apply(elem));
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (table == null && leftFiles == null && !closed) {
+            build();
+        }
+        if (leftFiles == null) {
+            return super.hasNext();
+        }
+        while (true) {
+            if (partitionJoin != null) {
+                if (partitionJoin.hasNext()) {
+                    return true;
+                }
+                partitionJoin = null;
+                deletePartition(partition);
+            }
+            if (++partition == PARTITIONS) {
+                close();
+                return false;
+            }
+            if (leftCounts[partition] == 0) {
+                deletePartition(partition);
+                continue;
+            }
+            partitionJoin = new HashJoinIterator<>(
+                    new SpillFileIterator<>(leftFiles[partition], leftCounts[partition], leftSerializer, BUFFER_SIZE),
+                    new SpillFileIterator<>(rightFiles[partition], rightCounts[partition], rightSerializer, BUFFER_SIZE),
+                    leftKey, rightKey, type, memoryBudget, leftSerializer, rightSerializer, directory, depth + 1);
+        }
+    }
+
+    @Override
+    public Pair<A, B> next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return leftFiles == null ? super.next() : partitionJoin.next();
+    }
+
+    private void build() {
+        Function<K, List<B>> newGroup = k -> new ArrayList<>(1);
+        table = new HashMap<>();
+        int count = 0;
+        boolean canSpill = rightSerializer != null && depth < MAX_DEPTH;
+        while (right.hasNext()) {
+            B elem = right.next();
+            if (count == memoryBudget && canSpill) {
+                spill(elem);
+                return;
+            }
+            table.computeIfAbsent(rightKey.apply(elem), newGroup).add(elem);
+            count++;
+        }
+        Wrapper.close(right);
+    }
+
+    // writes the table, pending and the rest of both sides to the partition files
+    private void spill(B pending) {
+        try {
+            rightFiles = new Path[PARTITIONS];
+            createFiles(rightFiles);
+            rightCounts = new long[PARTITIONS];
+            DataOutputStream[] outs = open(rightFiles);
+            try {
+                for (Map.Entry<K, List<B>> group : table.entrySet()) {
+                    int p = partitionOf(group.getKey());
+                    for (B elem : group.getValue()) {
+                        rightSerializer.write(outs[p], elem);
+                        rightCounts[p]++;
+                    }
+                }
+                table = null;
+                write(outs, rightCounts, rightSerializer, pending, rightKey.apply(pending));
+                while (right.hasNext()) {
+                    B elem = right.next();
+                    write(outs, rightCounts, rightSerializer, elem, rightKey.apply(elem));
+                }
+                Wrapper.close(right);
+            } finally {
+                close(outs);
+            }
+            leftFiles = new Path[PARTITIONS];
+            createFiles(leftFiles);
+            leftCounts = new long[PARTITIONS];
+            outs = open(leftFiles);
+            try {
+                while (left.hasNext()) {
+                    A elem = left.next();
+                    write(outs, leftCounts, leftSerializer, elem, leftKey.apply(elem));
+                }
+            } finally {
+                close(outs);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        partition = -1;
+    }
+
+    private <T> void write(DataOutputStream[] outs, long[] counts, Serializer<T> serializer, T elem, Object key)
+            throws IOException {
+        int p = partitionOf(key);
+        serializer.write(outs[p], elem);
+        counts[p]++;
+    }
+
+    // murmur3's finalizer over the hashCode and the depth, so every level partitions differently
+    private int partitionOf(Object key) {
+        int h = Objects.hashCode(key) + depth * 0x9E3779B9;
+        h ^= h >>> 16;
+        h *= 0x85EBCA6B;
+        h ^= h >>> 13;
+        h *= 0xC2B2AE35;
+        h ^= h >>> 16;
+        return h & (PARTITIONS - 1);
+    }
+
+    // fills the array that is already a field, so close() deletes the files that were created if one fails
+    private void createFiles(Path[] files) throws IOException {
+        for (int i = 0; i < files.length; i++) {
+            files[i] = Files.createTempFile(directory, "join", ".spill");
+        }
+    }
+
+    private static DataOutputStream[] open(Path[] files) throws IOException {
+        DataOutputStream[] outs = new DataOutputStream[files.length];
+        try {
+            for (int i = 0; i < files.length; i++) {
+                outs[i] = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(files[i]), BUFFER_SIZE));
+            }
+        } catch (IOException e) {
+            close(outs);
+            throw e;
+        }
+        return outs;
+    }
+
+    private static void close(DataOutputStream[] outs) throws IOException {
+        IOException failure = null;
+        for (DataOutputStream out : outs) {
+            try {
+                if (out != null) {
+                    out.close();
+                }
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private void deletePartition(int p) {
+        try {
+            Files.deleteIfExists(leftFiles[p]);
+            Files.deleteIfExists(rightFiles[p]);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        leftFiles[p] = null;
+        rightFiles[p] = null;
+    }
+
+    /**
+     * closes both sides and deletes the files
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        table = null;
+        try {
+            try {
+                if (partitionJoin != null) {
+                    partitionJoin.close();
+                }
+            } finally {
+                try {
+                    super.close();
+                } finally {
+                    Wrapper.close(right);
+                }
+            }
+        } finally {
+            deleteFiles();
+        }
+    }
+
+    private void deleteFiles() {
+        IOException failure = null;
+        for (Path[] files : new Path[][]{leftFiles, rightFiles}) {
+            if (files == null) {
+                continue;
+            }
+            for (Path file : files) {
+                try {
+                    if (file != null) {
+                        Files.deleteIfExists(file);
+                    }
+                } catch (IOException e) {
+                    failure = e;
+                }
+            }
+        }
+        leftFiles = null;
+        rightFiles = null;
+        if (failure != null) {
+            throw new UncheckedIOException(failure);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package iterator;
+
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+
+/**
+ * An iterator over the positions [from, to) of an indexed source (array, random access list...).
+ */
+abstract class IndexedIterator<A> implements RichIterator<A> {
+    protected int from;
+    protected final int to;
+
+    protected IndexedIterator(int from, int to) {
+        this.from = from;
+        this.to = to;
+    }
+
+    /**
+     * @param i the position in the source
+     * @return the element at position i
+     */
+    protected abstract A get(int i);
+
+    @Override
+    public boolean hasNext() {
+        return from < to;
+    }
+
+    @Override
+    public A next() {
+        if (from >= to) {
+            throw new NoSuchElementException();
+        }
+        return get(from++);
+    }
+
+    @Override
+    public int knownSize() {
+        return to - from;
+    }
+
+    @Override
+    public int nextChunk(Object[] dest, int offset, int max) {
+        int n = Math.min(max, to - from);
+        for (int i = 0; i < n; i++) {
+            dest[offset + i] = get(from + i);
+        }
+        from += n;
+        return n;
+    }
+
+    @Override
+    public Spliterator<A> spliterator() {
+        Spliterator<A> spliterator = new IndexedSpliterator<>(this, from, to);
+        from = to;
+        return spliterator;
+    }
+
+    @Override
+    public void close() {
+        from = to;
+    }
+}
@@ -0,0 +1,58 @@
+package iterator;
+
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * Splits the positions [from, to) of an indexed source in halves, so every split keeps an exact size.
+ */
+class IndexedSpliterator<A> implements Spliterator<A> {
+    private final IndexedIterator<A> source;
+    private int from;
+    private final int to;
+
+    IndexedSpliterator(IndexedIterator<A> source, int from, int to) {
+        this.source = source;
+        this.from = from;
+        this.to = to;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super A> action) {
+        if (from >= to) {
+            return false;
+        }
+        action.accept(source.get(from++));
+        return true;
+    }
+
+    @Override
+    public void forEachRemaining(Consumer<? super A> action) {
+        int end = to;
+        for (int i = from; i < end; i++) {
+            action.accept(source.get(i));
+        }
+        from = end;
+    }
+
+    @Override
+    public Spliterator<A> trySplit() {
+        int mid = (from + to) >>> 1;
+        if (mid <= from) {
+            return null;
+        }
+        Spliterator<A> prefix = new IndexedSpliterator<>(source, from, mid);
+        from = mid;
+        return prefix;
+    }
+
+    @Override
+    public long estimateSize() {
+        return to - from;
+    }
+
+    @Override
+    public int characteristics() {
+        return ORDERED | SIZED | SUBSIZED;
+    }
+}
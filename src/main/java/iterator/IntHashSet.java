@@ -0,0 +1,168 @@
+package iterator;
+
+/**
+ * A set of int values that are never boxed.
+ * <p>
+ * Sparse values are kept in an open addressing hash table (linear probing, 4 bytes per slot, at most 75% full),
+ * values from a small dense range in a bitset (1 bit per value of the range).
+ * Whenever the set outgrows its table or its bitset it switches to the smaller of the two,
+ * e.g. ten million random ids take 64 MB, the ids 0 to ten million take 2 MB.
+ */
+public final class IntHashSet {
+    private static final int MIN_CAPACITY = 16;
+    private static final int MAX_CAPACITY = 1 << 30;
+
+    // hash mode: the table, 0 marks a free slot so the value 0 is kept in hasZero
+    private int[] slots;
+    private boolean hasZero;
+    // bitset mode (slots is null): bit i is the value base + i
+    private long[] bits;
+    private long base;
+
+    private int size;
+    private int min = Integer.MAX_VALUE;
+    private int max = Integer.MIN_VALUE;
+
+    public IntHashSet() {
+        slots = new int[MIN_CAPACITY];
+    }
+
+    /**
+     * @param value the value
+     * @return true if the value was added, false if it was already in the set
+     */
+    public boolean add(int value) {
+        if (contains(value)) {
+            return false;
+        }
+        if (slots != null ? size + 1 > slots.length / 4 * 3 : !inBitset(value)) {
+            resize(Math.min(min, value), Math.max(max, value), size + 1);
+        }
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+        size++;
+        if (slots != null) {
+            insert(value);
+        } else {
+            long i = value - base;
+            bits[(int) (i >>> 6)] |= 1L << i;
+        }
+        return true;
+    }
+
+    public boolean contains(int value) {
+        if (slots == null) {
+            long i = value - base;
+            return i >= 0 && i < bits.length * 64L && (bits[(int) (i >>> 6)] & (1L << i)) != 0;
+        }
+        if (value == 0) {
+            return hasZero;
+        }
+        int mask = slots.length - 1;
+        for (int i = mix(value) & mask; slots[i] != 0; i = (i + 1) & mask) {
+            if (slots[i] == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @return the values of the set, ascending when the set is a bitset
+     */
+    public int[] toArray() {
+        int[] values = new int[size];
+        int n = 0;
+        if (slots == null) {
+            for (int w = 0; w < bits.length; w++) {
+                for (long word = bits[w]; word != 0; word &= word - 1) {
+                    values[n++] = (int) (base + w * 64L + Long.numberOfTrailingZeros(word));
+                }
+            }
+            return values;
+        }
+        if (hasZero) {
+            values[n++] = 0;
+        }
+        for (int value : slots) {
+            if (value != 0) {
+                values[n++] = value;
+            }
+        }
+        return values;
+    }
+
+    /**
+     * @return an iterator over a copy of the values
+     */
+    public IntRichIterator iterator() {
+        return IntRichIterator.of(toArray());
+    }
+
+    private boolean inBitset(int value) {
+        long i = value - base;
+        return i >= 0 && i < bits.length * 64L;
+    }
+
+    // rebuilds the set as a table or a bitset for size values in [min, max], whichever is smaller
+    private void resize(int min, int max, int size) {
+        int[] values = toArray();
+        int capacity = MIN_CAPACITY;
+        while (capacity < MAX_CAPACITY && size > capacity / 4 * 3) {
+            capacity *= 2;
+        }
+        long range = (long) max - min + 1;
+        // leave room on both sides, so a range that keeps growing is not rebuilt on every new value
+        long slack = range / 4;
+        long from = Math.max((long) min - slack, Integer.MIN_VALUE);
+        long to = Math.min((long) max + slack, Integer.MAX_VALUE);
+        long words = (to - from + 64) / 64;
+        if (words * 8 <= capacity * 4L) {
+            slots = null;
+            hasZero = false;
+            bits = new long[(int) words];
+            base = from;
+            for (int value : values) {
+                long i = value - base;
+                bits[(int) (i >>> 6)] |= 1L << i;
+            }
+        } else {
+            bits = null;
+            hasZero = false;
+            slots = new int[capacity];
+            for (int value : values) {
+                insert(value);
+            }
+        }
+    }
+
+    private void insert(int value) {
+        if (value == 0) {
+            hasZero = true;
+            return;
+        }
+        int mask = slots.length - 1;
+        int i = mix(value) & mask;
+        while (slots[i] != 0) {
+            i = (i + 1) & mask;
+        }
+        slots[i] = value;
+    }
+
+    // the finalizer of MurmurHash3, so values that differ only in their high bits do not share slots
+    private static int mix(int value) {
+        int h = value ^ (value >>> 16);
+        h *= 0x85EBCA6B;
+        h ^= h >>> 13;
+        h *= 0xC2B2AE35;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,532 @@
+package iterator;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.OptionalDouble;
+import java.util.PrimitiveIterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.*;
+import java.util.stream.IntStream;
+import java.util.stream.StreamSupport;
+
+/**
+ * A RichIterator specialized for int values.
+ * The elements are never boxed unless boxed() is called.
+ */
+public interface IntRichIterator extends PrimitiveIterator.OfInt, AutoCloseable {
+
+    /**
+     * @return true if there are no more elements, false otherwise
+     */
+    default boolean isEmpty() {
+        return !hasNext();
+    }
+
+    /**
+     * @return number of elements
+     */
+    default int length() {
+        int length = 0;
+        while (hasNext()) {
+            nextInt();
+            length++;
+        }
+        return length;
+    }
+
+    /**
+     * executes the given Consumer on all the elements
+     *
+     * @param f the Consumer
+     */
+    default void foreach(IntConsumer f) {
+        while (hasNext()) {
+            f.accept(nextInt());
+        }
+    }
+
+    /**
+     * consumes the iterator up to the element and closes it when the element is found.
+     * for many lookups build the set once with toSet() and ask it.
+     *
+     * @param elem the element
+     * @return true if exists, false otherwise
+     */
+    default boolean contains(int elem) {
+        while (hasNext()) {
+            if (nextInt() == elem) {
+                close();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * converts the iterator to new one after the mapping function
+     *
+     * @param f the function
+     * @return a new Iterator.
+     */
+    default IntRichIterator map(IntUnaryOperator f) {
+        IntRichIterator self = this;
+        return new IntRichIterator() {
+            @Override
+            public boolean hasNext() {
+                return self.hasNext();
+            }
+
+            @Override
+            public int nextInt() {
+                return f.applyAsInt(self.nextInt());
+            }
+
+            @Override
+            public void close() {
+                self.close();
+            }
+        };
+    }
+
+    /**
+     * @param f   the function
+     * @param <B> the new type
+     * @return a new Iterator of B
+     */
+    default <B> RichIterator<B> mapToObj(IntFunction<? extends B> f) {
+        IntRichIterator self = this;
+        return new RichIterator<B>() {
+            @Override
+            public boolean hasNext() {
+                return self.hasNext();
+            }
+
+            @Override
+            public B next() {
+                return f.apply(self.nextInt());
+            }
+
+            @Override
+            public void close() {
+                self.close();
+            }
+        };
+    }
+
+    /**
+     * @param f the function
+     * @return a new Iterator of long
+     */
+    default LongRichIterator mapToLong(IntToLongFunction f) {
+        IntRichIterator self = this;
+        return new LongRichIterator() {
+            @Override
+            public boolean hasNext() {
+                return self.hasNext();
+            }
+
+            @Override
+            public long nextLong() {
+                return f.applyAsLong(self.nextInt());
+            }
+
+            @Override
+            public void close() {
+                self.close();
+            }
+        };
+    }
+
+    /**
+     * @param f the function
+     * @return a new Iterator of double
+     */
+    default DoubleRichIterator mapToDouble(IntToDoubleFunction f) {
+        IntRichIterator self = this;
+        return new DoubleRichIterator() {
+            @Override
+            public boolean hasNext() {
+                return self.hasNext();
+            }
+
+            @Override
+            public double nextDouble() {
+                return f.applyAsDouble(self.nextInt());
+            }
+
+            @Override
+            public void close() {
+                self.close();
+            }
+        };
+    }
+
+    /**
+     * return an iterator with only the elements fit the predicate
+     *
+     * @param f the predicate
+     * @return an iterator
+     */
+    default IntRichIterator filter(IntPredicate f) {
+        IntRichIterator self = this;
+        return new IntRichIterator() {
+            private boolean ready;
+            private int head;
+
+            @Override
+            public boolean hasNext() {
+                while (!ready && self.hasNext()) {
+                    head = self.nextInt();
+                    ready = f.test(head);
+                }
+                return ready;
+            }
+
+            @Override
+            public int nextInt() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                ready = false;
+                return head;
+            }
+
+            @Override
+            public void close() {
+                self.close();
+            }
+        };
+    }
+
+    /**
+     * distinct the elements without boxing them, the seen elements are kept in a IntHashSet.
+     * e.g. IntRichIterator.of(1,2,3,3,2,1,4).distinct() // IntRichIterator(1,2,3,4)
+     *
+     * @return an iterator with the first occurrence of every element, in order
+     */
+    default IntRichIterator distinct() {
+        IntHashSet seen = new IntHashSet();
+        return filter(seen::add);
+    }
+
+    /**
+     * "sums" the elements on the iterator from left to right
+     *
+     * @param zero the first element usually neutral
+     * @param acc  accumulate function
+     * @return the accumulated result
+     * e.g.
+     * IntRichIterator.of(1,2,3,4,5).foldLeft(0, (x,y) -> x + y) // 15
+     */
+    default int foldLeft(int zero, IntBinaryOperator acc) {
+        int total = zero;
+        while (hasNext()) {
+            total = acc.applyAsInt(total, nextInt());
+        }
+        return total;
+    }
+
+    /**
+     * @return the sum of the elements, 0 if empty
+     */
+    default int sum() {
+        int sum = 0;
+        while (hasNext()) {
+            sum += nextInt();
+        }
+        return sum;
+    }
+
+    /**
+     * @return the average of the elements or empty if the iterator is empty
+     */
+    default OptionalDouble average() {
+        long sum = 0;
+        long count = 0;
+        while (hasNext()) {
+            sum += nextInt();
+            count++;
+        }
+        return count == 0 ? OptionalDouble.empty() : OptionalDouble.of((double) sum / count);
+    }
+
+    /**
+     * @return the maximum element
+     * @throws NoSuchElementException if the iterator is empty
+     */
+    default int max() {
+        int max = nextInt();
+        while (hasNext()) {
+            max = Math.max(max, nextInt());
+        }
+        return max;
+    }
+
+    /**
+     * @return the minimum element
+     * @throws NoSuchElementException if the iterator is empty
+     */
+    default int min() {
+        int min = nextInt();
+        while (hasNext()) {
+            min = Math.min(min, nextInt());
+        }
+        return min;
+    }
+
+    /**
+     * finds the k largest elements with a heap of k ints, in O(n log k) time and O(k) memory.
+     * <p>
+     * for example:
+     * IntRichIterator.of(5,1,4,2,3).topK(2) // [5, 4]
+     *
+     * @param k the number of elements
+     * @return the k largest elements (or all of them if there are fewer), largest first
+     */
+    default int[] topK(int k) {
+        return BoundedHeap.top(this, k, false);
+    }
+
+    /**
+     * finds the k smallest elements, see topK
+     * <p>
+     * for example:
+     * IntRichIterator.of(5,1,4,2,3).bottomK(2) // [1, 2]
+     *
+     * @param k the number of elements
+     * @return the k smallest elements (or all of them if there are fewer), smallest first
+     */
+    default int[] bottomK(int k) {
+        return BoundedHeap.top(this, k, true);
+    }
+
+    /**
+     * @return an array built from the iterator's elements
+     */
+    default int[] toArray() {
+        int[] arr = new int[16];
+        int size = 0;
+        while (hasNext()) {
+            if (size == arr.length) {
+                arr = Arrays.copyOf(arr, size * 2);
+            }
+            arr[size++] = nextInt();
+        }
+        return Arrays.copyOf(arr, size);
+    }
+
+    /**
+     * @return a set of the iterator's elements, a hash table of ints or a bitset if the elements are dense
+     */
+    default IntHashSet toSet() {
+        IntHashSet set = new IntHashSet();
+        while (hasNext()) {
+            set.add(nextInt());
+        }
+        return set;
+    }
+
+    /**
+     * hands the remaining elements over to a Spliterator, the iterator should not be used afterwards.
+     * of(...) and range(...) split in exact halves, other iterators are split by copying batches.
+     *
+     * @return a spliterator over the remaining elements
+     */
+    default Spliterator.OfInt spliterator() {
+        return Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED);
+    }
+
+    /**
+     * @return a sequential IntStream over the remaining elements
+     */
+    default IntStream stream() {
+        return StreamSupport.intStream(spliterator(), false).onClose(this::close);
+    }
+
+    /**
+     * @return a parallel IntStream over the remaining elements, see spliterator()
+     */
+    default IntStream parallelStream() {
+        return StreamSupport.intStream(spliterator(), true).onClose(this::close);
+    }
+
+    /**
+     * releases the resources held by the iterator, operators pass close() on to the iterator they were built on.
+     * see RichIterator.close()
+     */
+    @Override
+    default void close() {
+    }
+
+    /**
+     * @return the same iterator with every element boxed to Integer
+     */
+    default RichIterator<Integer> boxed() {
+        return RichIterator.from(this);
+    }
+
+    /**
+     * creates IntRichIterator based on the given elements
+     *
+     * @param elements the elements
+     * @return the iterator
+     */
+    static IntRichIterator of(int... elements) {
+        return new IntRichIterator() {
+            private int i = 0;
+
+            @Override
+            public boolean hasNext() {
+                return i < elements.length;
+            }
+
+            @Override
+            public int nextInt() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return elements[i++];
+            }
+
+            @Override
+            public Spliterator.OfInt spliterator() {
+                Spliterator.OfInt spliterator = Spliterators.spliterator(elements, i, elements.length, Spliterator.ORDERED);
+                i = elements.length;
+                return spliterator;
+            }
+
+            @Override
+            public void close() {
+                i = elements.length;
+            }
+        };
+    }
+
+    /**
+     * @param from first element (inclusive)
+     * @param to   last element (exclusive)
+     * @return an iterator over from, from + 1, ..., to - 1
+     */
+    static IntRichIterator range(int from, int to) {
+        return new IntRichIterator() {
+            private int i = from;
+
+            @Override
+            public boolean hasNext() {
+                return i < to;
+            }
+
+            @Override
+            public int nextInt() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return i++;
+            }
+
+            @Override
+            public Spliterator.OfInt spliterator() {
+                Spliterator.OfInt spliterator = IntStream.range(i, to).spliterator();
+                i = to;
+                return spliterator;
+            }
+
+            @Override
+            public void close() {
+                i = to;
+            }
+        };
+    }
+
+    /**
+     * generates a serial of elements that every element leads to the next one.
+     *
+     * @param first    the first element
+     * @param progress the progress function
+     * @return an infinite iterator
+     */
+    static IntRichIterator iterate(int first, IntUnaryOperator progress) {
+        return new IntRichIterator() {
+            private int current = first;
+            private boolean started = false;
+            private boolean closed = false;
+
+            @Override
+            public boolean hasNext() {
+                return !closed;
+            }
+
+            @Override
+            public int nextInt() {
+                if (closed) {
+                    throw new NoSuchElementException();
+                }
+                if (started) {
+                    current = progress.applyAsInt(current);
+                }
+                started = true;
+                return current;
+            }
+
+            @Override
+            public void close() {
+                closed = true;
+            }
+        };
+    }
+
+    /**
+     * iterates one int column of a file of fixed-width records through a memory mapping.
+     * every element is read straight from the mapped file, without a buffer or a copy.
+     *
+     * @param file       the file
+     * @param recordSize the size of every record in bytes
+     * @param offset     the position of the int inside a record
+     * @param order      the byte order of the file
+     * @return the iterator
+     * @throws IOException if the file cannot be mapped or its size is not a multiple of recordSize
+     * @see RichIterator#fromMappedFile
+     */
+    static IntRichIterator fromMappedFile(Path file, int recordSize, int offset, ByteOrder order) throws IOException {
+        if (offset < 0 || offset + 4 > recordSize) {
+            throw new IllegalArgumentException("offset " + offset + " is outside of a " + recordSize + " bytes record");
+        }
+        MappedFile mapped = MappedFile.map(file, recordSize, order);
+        return new IntRichIterator() {
+            private long i = 0;
+
+            @Override
+            public boolean hasNext() {
+                return i < mapped.records;
+            }
+
+            @Override
+            public int nextInt() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return mapped.getInt(i++, offset);
+            }
+
+            @Override
+            public int length() {
+                int length = Math.toIntExact(mapped.records - i);
+                i = mapped.records;
+                return length;
+            }
+
+            @Override
+            public void close() {
+                i = mapped.records;
+            }
+        };
+    }
+
+    static IntRichIterator empty() {
+        return of();
+    }
+}
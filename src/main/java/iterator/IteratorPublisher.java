@@ -0,0 +1,184 @@
+package iterator;
+
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.util.Iterator;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Publishes the elements of an iterator to a single subscriber, pulling them only as the subscriber requests them.
+ * <p>
+ * The subscriber's demand is kept in an AtomicLong, the request that raises it from 0 schedules a drain on the
+ * executor and the drain runs until the demand is back to 0, so there is never more than one drain at a time.
+ * A drain emits at most BATCH elements before it schedules itself again, to share the executor with other tasks.
+ * The iterator is only used by the drains, which also close it (on completion, error or cancel).
+ */
+class IteratorPublisher<A> implements Publisher<A> {
+    private static final int BATCH = 128;
+
+    private final Iterator<A> itr;
+    private final Executor executor;
+    private final AtomicBoolean subscribed = new AtomicBoolean();
+
+    IteratorPublisher(Iterator<A> itr, Executor executor) {
+        this.itr = itr;
+        this.executor = executor;
+    }
+
+    @Override
+    public void subscribe(Subscriber<? super A> subscriber) {
+        if (subscriber == null) {
+            throw new NullPointerException("subscriber");
+        }
+        if (!subscribed.compareAndSet(false, true)) {
+            // an iterator can only be read once
+            subscriber.onSubscribe(new Subscription() {
+                @Override
+                public void request(long n) {
+                }
+
+                @Override
+                public void cancel() {
+                }
+            });
+            subscriber.onError(new IllegalStateException("the iterator was already subscribed to"));
+            return;
+        }
+        new IteratorSubscription(subscriber).start();
+    }
+
+    private class IteratorSubscription implements Subscription, Runnable {
+        private final Subscriber<? super A> subscriber;
+        private final AtomicLong requested = new AtomicLong();
+        private volatile boolean cancelled;
+        private volatile Throwable badRequest;
+        private boolean done;
+
+        IteratorSubscription(Subscriber<? super A> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        void start() {
+            try {
+                subscriber.onSubscribe(this);
+            } catch (Throwable e) {
+                cancel();
+            }
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                badRequest = new IllegalArgumentException("request must be positive: " + n);
+                cancelled = true;
+            }
+            schedule(n <= 0 ? 1 : n);
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            schedule(1);
+        }
+
+        // adds to the demand and starts a drain if none is running
+        private void schedule(long n) {
+            long before = requested.getAndAccumulate(n, (r, add) -> r + add < 0 ? Long.MAX_VALUE : r + add);
+            if (before == 0) {
+                execute();
+            }
+        }
+
+        private void execute() {
+            try {
+                executor.execute(this);
+            } catch (RejectedExecutionException e) {
+                cancelled = true;
+                finish(e);
+            }
+        }
+
+        @Override
+        public void run() {
+            long emitted = 0;
+            long demand = requested.get();
+            while (true) {
+                while (emitted < demand) {
+                    if (done) {
+                        return;
+                    }
+                    if (cancelled) {
+                        finish(badRequest);
+                        return;
+                    }
+                    A elem;
+                    try {
+                        if (!itr.hasNext()) {
+                            finish(null);
+                            return;
+                        }
+                        elem = itr.next();
+                        if (elem == null) {
+                            throw new NullPointerException("reactive streams cannot emit null elements");
+                        }
+                    } catch (Throwable e) {
+                        finish(e);
+                        return;
+                    }
+                    try {
+                        subscriber.onNext(elem);
+                    } catch (Throwable e) {
+                        // a subscriber that throws is treated as cancelled (rule 2.13)
+                        cancelled = true;
+                        finish(null);
+                        return;
+                    }
+                    emitted++;
+                    if (emitted == BATCH) {
+                        if (requested.addAndGet(-emitted) > 0) {
+                            execute();
+                        }
+                        return;
+                    }
+                }
+                if (done) {
+                    return;
+                }
+                if (cancelled) {
+                    finish(badRequest);
+                    return;
+                }
+                demand = requested.addAndGet(-emitted);
+                emitted = 0;
+                if (demand == 0) {
+                    return;
+                }
+            }
+        }
+
+        // closes the iterator and signals the subscriber, unless it cancelled without a bad request
+        private void finish(Throwable error) {
+            if (done) {
+                return;
+            }
+            done = true;
+            try {
+                Wrapper.close(itr);
+            } catch (Throwable e) {
+                if (error == null) {
+                    error = e;
+                }
+            }
+            if (error != null) {
+                subscriber.onError(error);
+            } else if (!cancelled) {
+                subscriber.onComplete();
+            }
+        }
+    }
+}
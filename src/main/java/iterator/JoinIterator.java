@@ -0,0 +1,112 @@
+package iterator;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Streams the left elements and pairs every one of them with its matches, as the join type says.
+ * The subclasses find the matches, the right elements with the same key, in the order they return them.
+ */
+abstract class JoinIterator<A, B> implements RichIterator<Pair<A, B>> {
+    private final Iterator<A> left;
+    private final JoinType type;
+
+    private A current;
+    private List<B> matches;
+    private int matchIndex;
+    private Pair<A, B> head;
+    private boolean ready;
+    private boolean closed;
+
+    JoinIterator(Iterator<A> left, JoinType type) {
+        this.left = left;
+        this.type = type;
+    }
+
+    /**
+     * @param elem a left element
+     * @return the right elements with the key of elem, null or empty if there are none.
+     * the list is only read until the next call
+     */
+    abstract List<B> matches(A elem);
+
+    @Override
+    public boolean hasNext() {
+        while (!ready && !closed) {
+            if (matches != null && matchIndex < matches.size()) {
+                head = Pair.apply(current, matches.get(matchIndex++));
+                ready = true;
+                break;
+            }
+            current = null;
+            matches = null;
+            if (!left.hasNext()) {
+                break;
+            }
+            A elem = left.next();
+            List<B> found = matches(elem);
+            boolean matched = found != null && !found.isEmpty();
+            switch (type) {
+                case INNER:
+                case LEFT_OUTER:
+                    if (matched) {
+                        current = elem;
+                        matches = found;
+                        matchIndex = 0;
+                    } else if (type == JoinType.LEFT_OUTER) {
+                        emit(elem, null);
+                    }
+                    break;
+                case SEMI:
+                    if (matched) {
+                        emit(elem, found.get(0));
+                    }
+                    break;
+                case ANTI:
+                    if (!matched) {
+                        emit(elem, null);
+                    }
+                    break;
+                default:
+                    throw new IllegalStateException("unknown join type " + type);
+            }
+        }
+        if (!ready && !closed) {
+            close();
+        }
+        return ready;
+    }
+
+    private void emit(A elem, B match) {
+        head = Pair.apply(elem, match);
+        ready = true;
+    }
+
+    @Override
+    public Pair<A, B> next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        ready = false;
+        Pair<A, B> pair = head;
+        head = null;
+        return pair;
+    }
+
+    /**
+     * closes the left iterator, subclasses close the right side
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        ready = false;
+        head = null;
+        current = null;
+        matches = null;
+        Wrapper.close(left);
+    }
+}
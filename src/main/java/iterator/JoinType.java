@@ -0,0 +1,23 @@
+package iterator;
+
+/**
+ * The elements a join returns, for a left element a and the right elements b that have its key.
+ */
+public enum JoinType {
+    /**
+     * (a, b) for every matching b
+     */
+    INNER,
+    /**
+     * (a, b) for every matching b, and (a, null) for an a without one
+     */
+    LEFT_OUTER,
+    /**
+     * (a, b) once for every a that has a matching b, with the first matching b
+     */
+    SEMI,
+    /**
+     * (a, null) for every a without a matching b
+     */
+    ANTI
+}
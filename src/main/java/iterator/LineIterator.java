@@ -0,0 +1,229 @@
+package iterator;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.NoSuchElementException;
+
+/**
+ * Reads the lines of a file through a FileChannel into one reused direct buffer.
+ * <p>
+ * For UTF-8, US-ASCII and ISO-8859-1 the line breaks are found on the raw bytes and the line bytes are
+ * collected in a reused array, a line is decoded only when it is turned into a String
+ * (or, in view mode, when a non ASCII line is read as a CharSequence).
+ * Other charsets are read through a BufferedReader.
+ * <p>
+ * Lines end at '\n', '\r' or "\r\n", like {@link BufferedReader#readLine()}.
+ * The file is closed when the last line was read or on close().
+ */
+class LineIterator<A> implements RichIterator<A> {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Charset charset;
+    private final boolean views;
+    private FileChannel channel;
+    private BufferedReader reader;
+    private ByteBuffer buffer;
+
+    private byte[] line = new byte[256];
+    private int length;
+    // OR of all the line bytes, negative when the line has a non ASCII byte
+    private int bits;
+    private boolean skipLf;
+    private boolean ready;
+    // counts the lines handed out, so the view knows when its decoded chars are stale
+    private long lines;
+    private String readerLine;
+    private final View view;
+
+    LineIterator(Path file, Charset charset, boolean views) throws IOException {
+        this.charset = charset;
+        this.views = views;
+        this.view = new View();
+        if (charset.equals(StandardCharsets.UTF_8) || charset.equals(StandardCharsets.US_ASCII) || charset.equals(StandardCharsets.ISO_8859_1)) {
+            channel = FileChannel.open(file, StandardOpenOption.READ);
+            buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+            ((Buffer) buffer).limit(0);
+        } else {
+            reader = Files.newBufferedReader(file, charset);
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (!ready && (channel != null || reader != null)) {
+            try {
+                ready = reader != null ? readLine() : advance();
+            } catch (IOException e) {
+                close();
+                throw new UncheckedIOException(e);
+            }
+            if (!ready) {
+                close();
+            }
+        }
+        return ready;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public A next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        ready = false;
+        lines++;
+        if (reader != null) {
+            return (A) readerLine;
+        }
+        return views ? (A) view : (A) new String(line, 0, length, charset);
+    }
+
+    private boolean readLine() throws IOException {
+        readerLine = reader.readLine();
+        return readerLine != null;
+    }
+
+    // reads the next line into line[0, length), false if the file has no more lines
+    private boolean advance() throws IOException {
+        length = 0;
+        bits = 0;
+        boolean read = false;
+        while (true) {
+            if (!buffer.hasRemaining() && !fill()) {
+                return read;
+            }
+            int start = buffer.position();
+            int limit = buffer.limit();
+            if (skipLf) {
+                skipLf = false;
+                if (buffer.get(start) == '\n') {
+                    start++;
+                }
+            }
+            for (int i = start; i < limit; i++) {
+                byte b = buffer.get(i);
+                if (b == '\n' || b == '\r') {
+                    append(start, i);
+                    ((Buffer) buffer).position(i + 1);
+                    skipLf = b == '\r';
+                    return true;
+                }
+                bits |= b;
+            }
+            read |= limit > start;
+            append(start, limit);
+            ((Buffer) buffer).position(limit);
+        }
+    }
+
+    private boolean fill() throws IOException {
+        if (channel == null) {
+            return false;
+        }
+        ((Buffer) buffer).clear();
+        int n;
+        do {
+            n = channel.read(buffer);
+        } while (n == 0);
+        ((Buffer) buffer).flip();
+        return n > 0;
+    }
+
+    private void append(int from, int to) {
+        int n = to - from;
+        if (length + n > line.length) {
+            byte[] bigger = new byte[Math.max(line.length * 2, length + n)];
+            System.arraycopy(line, 0, bigger, 0, length);
+            line = bigger;
+        }
+        ((Buffer) buffer).position(from);
+        buffer.get(line, length, n);
+        length += n;
+    }
+
+    @Override
+    public void close() {
+        try {
+            if (channel != null) {
+                channel.close();
+            }
+            if (reader != null) {
+                reader.close();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            channel = null;
+            reader = null;
+            buffer = null;
+            ready = false;
+        }
+    }
+
+    /**
+     * The current line as a CharSequence, valid until the next call to hasNext() or next().
+     * ASCII lines are read straight from the line bytes, other lines are decoded on first access.
+     */
+    private class View implements CharSequence {
+        private final CharsetDecoder decoder = charset.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        private long decodedLine = -1;
+        private CharBuffer decoded;
+
+        private CharBuffer decoded() {
+            if (decodedLine != lines) {
+                try {
+                    decoded = decoder.decode(ByteBuffer.wrap(line, 0, length));
+                } catch (CharacterCodingException e) {
+                    throw new IllegalStateException(e);
+                }
+                decodedLine = lines;
+            }
+            return decoded;
+        }
+
+        private boolean ascii() {
+            return bits >= 0;
+        }
+
+        @Override
+        public int length() {
+            return ascii() ? length : decoded().length();
+        }
+
+        @Override
+        public char charAt(int index) {
+            if (ascii()) {
+                if (index < 0 || index >= length) {
+                    throw new IndexOutOfBoundsException("index " + index + ", length " + length);
+                }
+                return (char) line[index];
+            }
+            return decoded().get(index);
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return toString().substring(start, end);
+        }
+
+        @Override
+        public String toString() {
+            return new String(line, 0, length, charset);
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package iterator;
+
+/**
+ * A set of long values that are never boxed.
+ * <p>
+ * Sparse values are kept in an open addressing hash table (linear probing, 8 bytes per slot, at most 75% full),
+ * values from a small dense range in a bitset (1 bit per value of the range).
+ * Whenever the set outgrows its table or its bitset it switches to the smaller of the two,
+ * e.g. ten million random ids take 128 MB, the ids 0 to ten million take 2 MB.
+ */
+public final class LongHashSet {
+    private static final int MIN_CAPACITY = 16;
+    private static final int MAX_CAPACITY = 1 << 30;
+
+    // hash mode: the table, 0 marks a free slot so the value 0 is kept in hasZero
+    private long[] slots;
+    private boolean hasZero;
+    // bitset mode (slots is null): bit i is the value base + i
+    private long[] bits;
+    private long base;
+
+    private int size;
+    private long min = Long.MAX_VALUE;
+    private long max = Long.MIN_VALUE;
+
+    public LongHashSet() {
+        slots = new long[MIN_CAPACITY];
+    }
+
+    /**
+     * @param value the value
+     * @return true if the value was added, false if it was already in the set
+     */
+    public boolean add(long value) {
+        if (contains(value)) {
+            return false;
+        }
+        if (slots != null ? size + 1 > slots.length / 4 * 3 : !inBitset(value)) {
+            resize(Math.min(min, value), Math.max(max, value), size + 1);
+        }
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+        size++;
+        if (slots != null) {
+            insert(value);
+        } else {
+            long i = value - base;
+            bits[(int) (i >>> 6)] |= 1L << i;
+        }
+        return true;
+    }
+
+    public boolean contains(long value) {
+        if (slots == null) {
+            long i = value - base;
+            return inBitset(value) && (bits[(int) (i >>> 6)] & (1L << i)) != 0;
+        }
+        if (value == 0) {
+            return hasZero;
+        }
+        int mask = slots.length - 1;
+        for (int i = mix(value) & mask; slots[i] != 0; i = (i + 1) & mask) {
+            if (slots[i] == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @return the values of the set, ascending when the set is a bitset
+     */
+    public long[] toArray() {
+        long[] values = new long[size];
+        int n = 0;
+        if (slots == null) {
+            for (int w = 0; w < bits.length; w++) {
+                for (long word = bits[w]; word != 0; word &= word - 1) {
+                    values[n++] = base + w * 64L + Long.numberOfTrailingZeros(word);
+                }
+            }
+            return values;
+        }
+        if (hasZero) {
+            values[n++] = 0;
+        }
+        for (long value : slots) {
+            if (value != 0) {
+                values[n++] = value;
+            }
+        }
+        return values;
+    }
+
+    /**
+     * @return an iterator over a copy of the values
+     */
+    public LongRichIterator iterator() {
+        return LongRichIterator.of(toArray());
+    }
+
+    private boolean inBitset(long value) {
+        // value - base overflows when value < base, so compare first
+        return value >= base && value - base < bits.length * 64L;
+    }
+
+    // rebuilds the set as a table or a bitset for size values in [min, max], whichever is smaller
+    private void resize(long min, long max, int size) {
+        long[] values = toArray();
+        int capacity = MIN_CAPACITY;
+        while (capacity < MAX_CAPACITY && size > capacity / 4 * 3) {
+            capacity *= 2;
+        }
+        // max - min overflows for ranges wider than Long.MAX_VALUE, those are never dense
+        long span = max - min;
+        if (span >= 0 && span / 64 < capacity) {
+            // leave room on both sides, so a range that keeps growing is not rebuilt on every new value
+            long slack = span / 4;
+            long from = min - slack > min ? Long.MIN_VALUE : min - slack;
+            long to = max + slack < max ? Long.MAX_VALUE : max + slack;
+            long words = (to - from) / 64 + 1;
+            if (words <= capacity) {
+                slots = null;
+                hasZero = false;
+                bits = new long[(int) words];
+                base = from;
+                for (long value : values) {
+                    long i = value - base;
+                    bits[(int) (i >>> 6)] |= 1L << i;
+                }
+                return;
+            }
+        }
+        bits = null;
+        hasZero = false;
+        slots = new long[capacity];
+        for (long value : values) {
+            insert(value);
+        }
+    }
+
+    private void insert(long value) {
+        if (value == 0) {
+            hasZero = true;
+            return;
+        }
+        int mask = slots.length - 1;
+        int i = mix(value) & mask;
+        while (slots[i] != 0) {
+            i = (i + 1) & mask;
+        }
+        slots[i] = value;
+    }
+
+    // the finalizer of MurmurHash3, so values that differ only in their high bits do not share slots
+    private static int mix(long value) {
+        long h = value ^ (value >>> 33);
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        return (int) (h ^ (h >>> 33));
+    }
+}
@@ -0,0 +1,532 @@
+package iterator;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.OptionalDouble;
+import java.util.PrimitiveIterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.*;
+import java.util.stream.LongStream;
+import java.util.stream.StreamSupport;
+
+/**
+ * A RichIterator specialized for long values.
+ * The elements are never boxed unless boxed() is called.
+ */
+public interface LongRichIterator extends PrimitiveIterator.OfLong, AutoCloseable {
+
+    /**
+     * @return true if there are no more elements, false otherwise
+     */
+    default boolean isEmpty() {
+        return !hasNext();
+    }
+
+    /**
+     * @return number of elements
+     */
+    default int length() {
+        int length = 0;
+        while (hasNext()) {
+            nextLong();
+            length++;
+        }
+        return length;
+    }
+
+    /**
+     * executes the given Consumer on all the elements
+     *
+     * @param f the Consumer
+     */
+    default void foreach(LongConsumer f) {
+        while (hasNext()) {
+            f.accept(nextLong());
+        }
+    }
+
+    /**
+     * consumes the iterator up to the element and closes it when the element is found.
+     * for many lookups build the set once with toSet() and ask it.
+     *
+     * @param elem the element
+     * @return true if exists, false otherwise
+     */
+    default boolean contains(long elem) {
+        while (hasNext()) {
+            if (nextLong() == elem) {
+                close();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * converts the iterator to new one after the mapping function
+     *
+     * @param f the function
+     * @return a new Iterator.
+     */
+    default LongRichIterator map(LongUnaryOperator f) {
+        LongRichIterator self = this;
+        return new LongRichIterator() {
+            @Override
+            public boolean hasNext() {
+                return self.hasNext();
+            }
+
+            @Override
+            public long nextLong() {
+                return f.applyAsLong(self.nextLong());
+            }
+
+            @Override
+            public void close() {
+                self.close();
+            }
+        };
+    }
+
+    /**
+     * @param f   the function
+     * @param <B> the new type
+     * @return a new Iterator of B
+     */
+    default <B> RichIterator<B> mapToObj(LongFunction<? extends B> f) {
+        LongRichIterator self = this;
+        return new RichIterator<B>() {
+            @Override
+            public boolean hasNext() {
+                return self.hasNext();
+            }
+
+            @Override
+            public B next() {
+                return f.apply(self.nextLong());
+            }
+
+            @Override
+            public void close() {
+                self.close();
+            }
+        };
+    }
+
+    /**
+     * @param f the function
+     * @return a new Iterator of int
+     */
+    default IntRichIterator mapToInt(LongToIntFunction f) {
+        LongRichIterator self = this;
+        return new IntRichIterator() {
+            @Override
+            public boolean hasNext() {
+                return self.hasNext();
+            }
+
+            @Override
+            public int nextInt() {
+                return f.applyAsInt(self.nextLong());
+            }
+
+            @Override
+            public void close() {
+                self.close();
+            }
+        };
+    }
+
+    /**
+     * @param f the function
+     * @return a new Iterator of double
+     */
+    default DoubleRichIterator mapToDouble(LongToDoubleFunction f) {
+        LongRichIterator self = this;
+        return new DoubleRichIterator() {
+            @Override
+            public boolean hasNext() {
+                return self.hasNext();
+            }
+
+            @Override
+            public double nextDouble() {
+                return f.applyAsDouble(self.nextLong());
+            }
+
+            @Override
+            public void close() {
+                self.close();
+            }
+        };
+    }
+
+    /**
+     * return an iterator with only the elements fit the predicate
+     *
+     * @param f the predicate
+     * @return an iterator
+     */
+    default LongRichIterator filter(LongPredicate f) {
+        LongRichIterator self = this;
+        return new LongRichIterator() {
+            private boolean ready;
+            private long head;
+
+            @Override
+            public boolean hasNext() {
+                while (!ready && self.hasNext()) {
+                    head = self.nextLong();
+                    ready = f.test(head);
+                }
+                return ready;
+            }
+
+            @Override
+            public long nextLong() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                ready = false;
+                return head;
+            }
+
+            @Override
+            public void close() {
+                self.close();
+            }
+        };
+    }
+
+    /**
+     * distinct the elements without boxing them, the seen elements are kept in a LongHashSet.
+     * e.g. LongRichIterator.of(1,2,3,3,2,1,4).distinct() // LongRichIterator(1,2,3,4)
+     *
+     * @return an iterator with the first occurrence of every element, in order
+     */
+    default LongRichIterator distinct() {
+        LongHashSet seen = new LongHashSet();
+        return filter(seen::add);
+    }
+
+    /**
+     * "sums" the elements on the iterator from left to right
+     *
+     * @param zero the first element usually neutral
+     * @param acc  accumulate function
+     * @return the accumulated result
+     * e.g.
+     * LongRichIterator.of(1,2,3,4,5).foldLeft(0, (x,y) -> x + y) // 15
+     */
+    default long foldLeft(long zero, LongBinaryOperator acc) {
+        long total = zero;
+        while (hasNext()) {
+            total = acc.applyAsLong(total, nextLong());
+        }
+        return total;
+    }
+
+    /**
+     * @return the sum of the elements, 0 if empty
+     */
+    default long sum() {
+        long sum = 0;
+        while (hasNext()) {
+            sum += nextLong();
+        }
+        return sum;
+    }
+
+    /**
+     * @return the average of the elements or empty if the iterator is empty
+     */
+    default OptionalDouble average() {
+        long sum = 0;
+        long count = 0;
+        while (hasNext()) {
+            sum += nextLong();
+            count++;
+        }
+        return count == 0 ? OptionalDouble.empty() : OptionalDouble.of((double) sum / count);
+    }
+
+    /**
+     * @return the maximum element
+     * @throws NoSuchElementException if the iterator is empty
+     */
+    default long max() {
+        long max = nextLong();
+        while (hasNext()) {
+            max = Math.max(max, nextLong());
+        }
+        return max;
+    }
+
+    /**
+     * @return the minimum element
+     * @throws NoSuchElementException if the iterator is empty
+     */
+    default long min() {
+        long min = nextLong();
+        while (hasNext()) {
+            min = Math.min(min, nextLong());
+        }
+        return min;
+    }
+
+    /**
+     * finds the k largest elements with a heap of k longs, in O(n log k) time and O(k) memory.
+     * <p>
+     * for example:
+     * LongRichIterator.of(5,1,4,2,3).topK(2) // [5, 4]
+     *
+     * @param k the number of elements
+     * @return the k largest elements (or all of them if there are fewer), largest first
+     */
+    default long[] topK(int k) {
+        return BoundedHeap.top(this, k, false);
+    }
+
+    /**
+     * finds the k smallest elements, see topK
+     * <p>
+     * for example:
+     * LongRichIterator.of(5,1,4,2,3).bottomK(2) // [1, 2]
+     *
+     * @param k the number of elements
+     * @return the k smallest elements (or all of them if there are fewer), smallest first
+     */
+    default long[] bottomK(int k) {
+        return BoundedHeap.top(this, k, true);
+    }
+
+    /**
+     * @return an array built from the iterator's elements
+     */
+    default long[] toArray() {
+        long[] arr = new long[16];
+        int size = 0;
+        while (hasNext()) {
+            if (size == arr.length) {
+                arr = Arrays.copyOf(arr, size * 2);
+            }
+            arr[size++] = nextLong();
+        }
+        return Arrays.copyOf(arr, size);
+    }
+
+    /**
+     * @return a set of the iterator's elements, a hash table of longs or a bitset if the elements are dense
+     */
+    default LongHashSet toSet() {
+        LongHashSet set = new LongHashSet();
+        while (hasNext()) {
+            set.add(nextLong());
+        }
+        return set;
+    }
+
+    /**
+     * hands the remaining elements over to a Spliterator, the iterator should not be used afterwards.
+     * of(...) and range(...) split in exact halves, other iterators are split by copying batches.
+     *
+     * @return a spliterator over the remaining elements
+     */
+    default Spliterator.OfLong spliterator() {
+        return Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED);
+    }
+
+    /**
+     * @return a sequential LongStream over the remaining elements
+     */
+    default LongStream stream() {
+        return StreamSupport.longStream(spliterator(), false).onClose(this::close);
+    }
+
+    /**
+     * @return a parallel LongStream over the remaining elements, see spliterator()
+     */
+    default LongStream parallelStream() {
+        return StreamSupport.longStream(spliterator(), true).onClose(this::close);
+    }
+
+    /**
+     * releases the resources held by the iterator, operators pass close() on to the iterator they were built on.
+     * see RichIterator.close()
+     */
+    @Override
+    default void close() {
+    }
+
+    /**
+     * @return the same iterator with every element boxed to Long
+     */
+    default RichIterator<Long> boxed() {
+        return RichIterator.from(this);
+    }
+
+    /**
+     * creates LongRichIterator based on the given elements
+     *
+     * @param elements the elements
+     * @return the iterator
+     */
+    static LongRichIterator of(long... elements) {
+        return new LongRichIterator() {
+            private int i = 0;
+
+            @Override
+            public boolean hasNext() {
+                return i < elements.length;
+            }
+
+            @Override
+            public long nextLong() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return elements[i++];
+            }
+
+            @Override
+            public Spliterator.OfLong spliterator() {
+                Spliterator.OfLong spliterator = Spliterators.spliterator(elements, i, elements.length, Spliterator.ORDERED);
+                i = elements.length;
+                return spliterator;
+            }
+
+            @Override
+            public void close() {
+                i = elements.length;
+            }
+        };
+    }
+
+    /**
+     * @param from first element (inclusive)
+     * @param to   last element (exclusive)
+     * @return an iterator over from, from + 1, ..., to - 1
+     */
+    static LongRichIterator range(long from, long to) {
+        return new LongRichIterator() {
+            private long i = from;
+
+            @Override
+            public boolean hasNext() {
+                return i < to;
+            }
+
+            @Override
+            public long nextLong() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return i++;
+            }
+
+            @Override
+            public Spliterator.OfLong spliterator() {
+                Spliterator.OfLong spliterator = LongStream.range(i, to).spliterator();
+                i = to;
+                return spliterator;
+            }
+
+            @Override
+            public void close() {
+                i = to;
+            }
+        };
+    }
+
+    /**
+     * generates a serial of elements that every element leads to the next one.
+     *
+     * @param first    the first element
+     * @param progress the progress function
+     * @return an infinite iterator
+     */
+    static LongRichIterator iterate(long first, LongUnaryOperator progress) {
+        return new LongRichIterator() {
+            private long current = first;
+            private boolean started = false;
+            private boolean closed = false;
+
+            @Override
+            public boolean hasNext() {
+                return !closed;
+            }
+
+            @Override
+            public long nextLong() {
+                if (closed) {
+                    throw new NoSuchElementException();
+                }
+                if (started) {
+                    current = progress.applyAsLong(current);
+                }
+                started = true;
+                return current;
+            }
+
+            @Override
+            public void close() {
+                closed = true;
+            }
+        };
+    }
+
+    /**
+     * iterates one long column of a file of fixed-width records through a memory mapping.
+     * every element is read straight from the mapped file, without a buffer or a copy.
+     *
+     * @param file       the file
+     * @param recordSize the size of every record in bytes
+     * @param offset     the position of the long inside a record
+     * @param order      the byte order of the file
+     * @return the iterator
+     * @throws IOException if the file cannot be mapped or its size is not a multiple of recordSize
+     * @see RichIterator#fromMappedFile
+     */
+    static LongRichIterator fromMappedFile(Path file, int recordSize, int offset, ByteOrder order) throws IOException {
+        if (offset < 0 || offset + 8 > recordSize) {
+            throw new IllegalArgumentException("offset " + offset + " is outside of a " + recordSize + " bytes record");
+        }
+        MappedFile mapped = MappedFile.map(file, recordSize, order);
+        return new LongRichIterator() {
+            private long i = 0;
+
+            @Override
+            public boolean hasNext() {
+                return i < mapped.records;
+            }
+
+            @Override
+            public long nextLong() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return mapped.getLong(i++, offset);
+            }
+
+            @Override
+            public int length() {
+                int length = Math.toIntExact(mapped.records - i);
+                i = mapped.records;
+                return length;
+            }
+
+            @Override
+            public void close() {
+                i = mapped.records;
+            }
+        };
+    }
+
+    static LongRichIterator empty() {
+        return of();
+    }
+}
@@ -0,0 +1,82 @@
+package iterator;
+
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A file of fixed-width records mapped to memory.
+ * A single mapping is limited to 2 GB, so bigger files are mapped in segments of whole records.
+ */
+final class MappedFile {
+    final int recordSize;
+    final long records;
+    private final int recordsPerSegment;
+    private final MappedByteBuffer[] segments;
+
+    private MappedFile(int recordSize, long records, int recordsPerSegment, MappedByteBuffer[] segments) {
+        this.recordSize = recordSize;
+        this.records = records;
+        this.recordsPerSegment = recordsPerSegment;
+        this.segments = segments;
+    }
+
+    static MappedFile map(Path file, int recordSize, ByteOrder order) throws IOException {
+        if (recordSize <= 0) {
+            throw new IllegalArgumentException("recordSize must be positive: " + recordSize);
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size % recordSize != 0) {
+                throw new IOException(file + " size " + size + " is not a multiple of the record size " + recordSize);
+            }
+            long records = size / recordSize;
+            int recordsPerSegment = Integer.MAX_VALUE / recordSize;
+            long segmentBytes = (long) recordsPerSegment * recordSize;
+            MappedByteBuffer[] segments = new MappedByteBuffer[(int) ((size + segmentBytes - 1) / segmentBytes)];
+            for (int i = 0; i < segments.length; i++) {
+                long position = i * segmentBytes;
+                segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(segmentBytes, size - position));
+                segments[i].order(order);
+            }
+            // the mappings stay valid after the channel is closed
+            return new MappedFile(recordSize, records, recordsPerSegment, segments);
+        }
+    }
+
+    int segment(long record) {
+        return (int) (record / recordsPerSegment);
+    }
+
+    /**
+     * @return a view over the segment, for use with {@link #slice}
+     */
+    ByteBuffer view(int segment) {
+        return segments[segment].duplicate();
+    }
+
+    /**
+     * @param view   a view from {@link #view} of the record's segment
+     * @param record the record number
+     * @return the record's bytes without copying them, position 0 is the first byte of the record
+     */
+    ByteBuffer slice(ByteBuffer view, long record) {
+        int offset = (int) (record % recordsPerSegment) * recordSize;
+        // through Buffer, ByteBuffer.limit/position only return ByteBuffer since java 9
+        ((Buffer) view).limit(offset + recordSize).position(offset);
+        return view.slice();
+    }
+
+    int getInt(long record, int offset) {
+        return segments[segment(record)].getInt((int) (record % recordsPerSegment) * recordSize + offset);
+    }
+
+    long getLong(long record, int offset) {
+        return segments[segment(record)].getLong((int) (record % recordsPerSegment) * recordSize + offset);
+    }
+}
@@ -0,0 +1,90 @@
+package iterator;
+
+import java.nio.ByteBuffer;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Decodes the records [from, to) of a {@link MappedFile} one at a time, only when they are requested.
+ * drop, take, length and last are record arithmetic and never touch the skipped records.
+ */
+class MappedIterator<A> implements RichIterator<A> {
+    private final MappedFile file;
+    private final Function<? super ByteBuffer, ? extends A> decoder;
+    private long from;
+    private final long to;
+    private int segment = -1;
+    private ByteBuffer view;
+
+    MappedIterator(MappedFile file, Function<? super ByteBuffer, ? extends A> decoder, long from, long to) {
+        this.file = file;
+        this.decoder = decoder;
+        this.from = from;
+        this.to = to;
+    }
+
+    private A decode(long record) {
+        int recordSegment = file.segment(record);
+        if (recordSegment != segment) {
+            segment = recordSegment;
+            view = file.view(recordSegment);
+        }
+        return decoder.apply(file.slice(view, record));
+    }
+
+    @Override
+    public boolean hasNext() {
+        return from < to;
+    }
+
+    @Override
+    public A next() {
+        if (from >= to) {
+            throw new NoSuchElementException();
+        }
+        return decode(from++);
+    }
+
+    @Override
+    public int knownSize() {
+        return to - from <= Integer.MAX_VALUE ? (int) (to - from) : -1;
+    }
+
+    @Override
+    public int length() {
+        int length = Math.toIntExact(to - from);
+        from = to;
+        return length;
+    }
+
+    @Override
+    public A last() {
+        if (from >= to) {
+            throw new NoSuchElementException();
+        }
+        from = to;
+        return decode(to - 1);
+    }
+
+    @Override
+    public Optional<A> lastOptional() {
+        return from < to ? Optional.of(last()) : Optional.empty();
+    }
+
+    @Override
+    public RichIterator<A> drop(int n) {
+        return new MappedIterator<>(file, decoder, from + Math.min(Math.max(n, 0), to - from), to);
+    }
+
+    @Override
+    public RichIterator<A> take(int n) {
+        return new MappedIterator<>(file, decoder, from, from + Math.min(Math.max(n, 0), to - from));
+    }
+
+    @Override
+    public void close() {
+        from = to;
+        view = null;
+    }
+}
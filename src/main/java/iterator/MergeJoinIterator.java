@@ -0,0 +1,86 @@
+package iterator;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * A sort-merge join of two iterators sorted by key, both are read once and in step.
+ * <p>
+ * The right elements with the key of the current left element are kept in a list, which is all the memory the join
+ * needs, and they are reused while the left elements have the same key. Right elements with smaller keys are skipped.
+ */
+class MergeJoinIterator<A, B, K> extends JoinIterator<A, B> {
+    private final Iterator<B> right;
+    private final Function<? super A, ? extends K> leftKey;
+    private final Function<? super B, ? extends K> rightKey;
+    private final Comparator<? super K> comparator;
+
+    // the first right element that was read but is not in the group
+    private B rightHead;
+    private K rightHeadKey;
+    private boolean hasRightHead;
+    // the right elements of groupKey
+    private final List<B> group = new ArrayList<>();
+    private K groupKey;
+    private boolean hasGroup;
+
+    MergeJoinIterator(Iterator<A> left, Iterator<B> right, Function<? super A, ? extends K> leftKey,
+                      Function<? super B, ? extends K> rightKey, Comparator<? super K> comparator, JoinType type) {
+        super(left, type);
+        this.right = right;
+        this.leftKey = leftKey;
+        this.rightKey = rightKey;
+        this.comparator = comparator;
+    }
+
+    @Override
+    List<B> matches(A elem) {
+        K key = leftKey.apply(elem);
+        if (hasGroup && comparator.compare(groupKey, key) == 0) {
+            return group;
+        }
+        group.clear();
+        hasGroup = false;
+        groupKey = null;
+        while (hasRightHead || right.hasNext()) {
+            if (!hasRightHead) {
+                rightHead = right.next();
+                rightHeadKey = rightKey.apply(rightHead);
+                hasRightHead = true;
+            }
+            int c = comparator.compare(rightHeadKey, key);
+            if (c > 0) {
+                break;
+            }
+            if (c == 0) {
+                group.add(rightHead);
+            }
+            hasRightHead = false;
+            rightHead = null;
+            rightHeadKey = null;
+        }
+        if (group.isEmpty()) {
+            return null;
+        }
+        groupKey = key;
+        hasGroup = true;
+        return group;
+    }
+
+    /**
+     * closes both sides
+     */
+    @Override
+    public void close() {
+        group.clear();
+        rightHead = null;
+        try {
+            super.close();
+        } finally {
+            Wrapper.close(right);
+        }
+    }
+}
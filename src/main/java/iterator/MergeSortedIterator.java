@@ -0,0 +1,168 @@
+package iterator;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * A k-way merge of sorted iterators over a loser tree.
+ * <p>
+ * The tree has a leaf per input, holding the input's next element, and every inner node keeps the input that lost
+ * the match played there, while the overall winner is kept in tree[0]. After the winner's element is taken only
+ * its path to the root is replayed, one comparison per level where a binary heap needs two.
+ * An exhausted input loses every match, equal elements are won by the earlier input so the merge is stable.
+ * <p>
+ * No input is read before the first hasNext(), and every input is closed once it is exhausted.
+ * In distinct mode only the first of the equal elements (by the comparator) is returned.
+ */
+class MergeSortedIterator<A> implements RichIterator<A> {
+    private final Comparator<? super A> comparator;
+    private final List<Iterator<? extends A>> inputs;
+    private final boolean distinct;
+    private final int k;
+    private final Object[] heads;
+    private final boolean[] exhausted;
+    // tree[0] is the winner, tree[1, k) the losers of the inner nodes. leaf i is node k + i
+    private final int[] tree;
+
+    private boolean started;
+    private boolean hasLast;
+    private A last;
+    private boolean closed;
+
+    MergeSortedIterator(Comparator<? super A> comparator, List<? extends Iterator<? extends A>> inputs, boolean distinct) {
+        this.comparator = comparator;
+        this.inputs = new ArrayList<>(inputs);
+        this.distinct = distinct;
+        this.k = inputs.size();
+        this.heads = new Object[k];
+        this.exhausted = new boolean[k];
+        this.tree = new int[Math.max(1, k)];
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (closed) {
+            return false;
+        }
+        if (!started) {
+            started = true;
+            if (k == 0) {
+                close();
+                return false;
+            }
+            for (int i = 0; i < k; i++) {
+                advance(i);
+            }
+            tree[0] = build(1);
+        }
+        if (distinct && hasLast) {
+            while (!exhausted[tree[0]] && compare(tree[0], last) == 0) {
+                take();
+            }
+        }
+        if (exhausted[tree[0]]) {
+            close();
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public A next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        A elem = take();
+        if (distinct) {
+            last = elem;
+            hasLast = true;
+        }
+        return elem;
+    }
+
+    // removes the winner's element and replays its path
+    @SuppressWarnings("unchecked")
+    private A take() {
+        int winner = tree[0];
+        A elem = (A) heads[winner];
+        advance(winner);
+        for (int node = (winner + k) >>> 1; node > 0; node >>>= 1) {
+            if (beats(tree[node], winner)) {
+                int loser = winner;
+                winner = tree[node];
+                tree[node] = loser;
+            }
+        }
+        tree[0] = winner;
+        return elem;
+    }
+
+    // plays the matches under node and returns the winner
+    private int build(int node) {
+        if (node >= k) {
+            return node - k;
+        }
+        int left = build(2 * node);
+        int right = build(2 * node + 1);
+        if (beats(left, right)) {
+            tree[node] = right;
+            return left;
+        }
+        tree[node] = left;
+        return right;
+    }
+
+    private void advance(int i) {
+        Iterator<? extends A> input = inputs.get(i);
+        if (input.hasNext()) {
+            heads[i] = input.next();
+        } else {
+            heads[i] = null;
+            exhausted[i] = true;
+            inputs.set(i, RichIterator.<A>empty());
+            Wrapper.close(input);
+        }
+    }
+
+    // whether input i wins against input j
+    private boolean beats(int i, int j) {
+        if (exhausted[i] || exhausted[j]) {
+            return !exhausted[i] || (exhausted[j] && i < j);
+        }
+        int c = compare(i, heads[j]);
+        return c < 0 || (c == 0 && i < j);
+    }
+
+    @SuppressWarnings("unchecked")
+    private int compare(int i, Object elem) {
+        return comparator.compare((A) heads[i], (A) elem);
+    }
+
+    /**
+     * closes every input that was not exhausted
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        last = null;
+        RuntimeException failure = null;
+        for (int i = 0; i < k; i++) {
+            heads[i] = null;
+            try {
+                Wrapper.close(inputs.get(i));
+            } catch (RuntimeException e) {
+                failure = e;
+            }
+        }
+        inputs.clear();
+        if (failure != null) {
+            throw failure;
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package iterator;
+
+/**
+ * Records the elements that pass through it and the time spent getting them from the source in a StageMetrics.
+ * The time of a hasNext() that is followed by next() is counted with the element of that next().
+ */
+class MeteredIterator<A> implements RichIterator<A> {
+    private final RichIterator<A> source;
+    private final StageMetrics metrics;
+    // the time of the hasNext() calls since the last element
+    private long pending;
+
+    MeteredIterator(RichIterator<A> source, StageMetrics metrics) {
+        this.source = source;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public boolean hasNext() {
+        long start = System.nanoTime();
+        boolean hasNext = source.hasNext();
+        long elapsed = System.nanoTime() - start;
+        if (hasNext) {
+            pending += elapsed;
+        } else {
+            metrics.recordIdle(pending + elapsed);
+            pending = 0;
+        }
+        return hasNext;
+    }
+
+    @Override
+    public A next() {
+        long start = System.nanoTime();
+        A elem = source.next();
+        metrics.record(1, System.nanoTime() - start + pending);
+        pending = 0;
+        return elem;
+    }
+
+    @Override
+    public int nextChunk(Object[] dest, int offset, int max) {
+        long start = System.nanoTime();
+        int n = source.nextChunk(dest, offset, max);
+        metrics.record(n, System.nanoTime() - start + pending);
+        pending = 0;
+        return n;
+    }
+
+    @Override
+    public int knownSize() {
+        return source.knownSize();
+    }
+
+    @Override
+    public void close() {
+        source.close();
+    }
+}
@@ -0,0 +1,110 @@
+package iterator;
+
+import javax.management.InstanceNotFoundException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The switch and the registry of the stage metrics of RichIterator.metered.
+ * <p>
+ * Metering is off unless the system property iterator.metrics is true or setEnabled(true) was called.
+ * metered() looks at the switch once, when the pipeline is built, and returns the iterator itself when it is off,
+ * so a pipeline built while metering is off runs exactly as if metered() was not there.
+ * <p>
+ * A stage is registered with the platform MBeanServer the first time it is metered, as
+ * iterator:type=Pipeline,pipeline="name",stage="name", and stays registered (every iterator built with the same
+ * names adds to it) until unregister(pipeline). The stages of a pipeline are ordered by their first metered() call,
+ * which is the order of the pipeline since a pipeline is built from its source on.
+ */
+public final class PipelineMetrics {
+    private static volatile boolean enabled = Boolean.getBoolean("iterator.metrics");
+    // pipeline name -> stage name -> metrics, in the order of the stages
+    private static final Map<String, Map<String, StageMetrics>> pipelines = new LinkedHashMap<>();
+
+    private PipelineMetrics() {
+    }
+
+    /**
+     * @param enabled whether the pipelines built from now on are metered
+     */
+    public static void setEnabled(boolean enabled) {
+        PipelineMetrics.enabled = enabled;
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @param pipeline the pipeline name
+     * @param stage    the stage name
+     * @return the name of the MBean of the stage
+     */
+    public static ObjectName objectName(String pipeline, String stage) {
+        try {
+            return new ObjectName("iterator:type=Pipeline,pipeline=" + ObjectName.quote(pipeline)
+                    + ",stage=" + ObjectName.quote(stage));
+        } catch (MalformedObjectNameException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+    // the metrics of the stage, registered on the first call
+    static synchronized StageMetrics stage(String pipeline, String stage) {
+        Map<String, StageMetrics> stages = pipelines.computeIfAbsent(pipeline, p -> new LinkedHashMap<>());
+        StageMetrics metrics = stages.get(stage);
+        if (metrics == null) {
+            StageMetrics previous = null;
+            for (StageMetrics s : stages.values()) {
+                previous = s;
+            }
+            metrics = new StageMetrics(previous);
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = objectName(pipeline, stage);
+            try {
+                if (server.isRegistered(name)) {
+                    server.unregisterMBean(name);
+                }
+                server.registerMBean(metrics, name);
+            } catch (JMException e) {
+                throw new IllegalStateException("cannot register " + name, e);
+            }
+            stages.put(stage, metrics);
+        }
+        return metrics;
+    }
+
+    /**
+     * unregisters the MBeans of the stages of the pipeline, the iterators that are still running keep counting
+     * into the old metrics but the next metered() calls start new ones.
+     *
+     * @param pipeline the pipeline name
+     */
+    public static synchronized void unregister(String pipeline) {
+        Map<String, StageMetrics> stages = pipelines.remove(pipeline);
+        if (stages == null) {
+            return;
+        }
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        List<JMException> failures = new ArrayList<>();
+        for (String stage : stages.keySet()) {
+            try {
+                server.unregisterMBean(objectName(pipeline, stage));
+            } catch (InstanceNotFoundException e) {
+                // already unregistered through JMX
+            } catch (JMException e) {
+                failures.add(e);
+            }
+        }
+        if (!failures.isEmpty()) {
+            throw new IllegalStateException("cannot unregister " + pipeline, failures.get(0));
+        }
+    }
+}
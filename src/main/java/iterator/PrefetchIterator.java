@@ -0,0 +1,266 @@
+package iterator;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Drains the source on a producer thread into a single-producer/single-consumer ring buffer.
+ * <p>
+ * The producer pulls up to a batch of elements straight into the free slots of the ring before publishing them,
+ * and the consumer publishes the slots it freed once per batch,
+ * so the two threads only touch each other's counters once per batch while the consumer is behind.
+ * When the consumer has read everything that was published (it is waiting, or about to) the producer publishes
+ * every element as soon as it has it, so a slow source never makes the consumer wait for a whole batch.
+ * A thread that finds the ring full (producer) or empty (consumer) spins for a while and then parks
+ * until the other thread publishes.
+ * <p>
+ * Only the producer thread touches the source: it closes the source when the source is exhausted, fails,
+ * or when close() was called. close() interrupts the producer and waits up to CLOSE_WAIT_MILLIS for it,
+ * a source that ignores the interrupt is closed by the producer once its next() returns.
+ */
+class PrefetchIterator<A> implements RichIterator<A> {
+    private static final int SPINS = 100;
+    private static final long PARK_NANOS = 1_000_000;
+    private static final long CLOSE_WAIT_MILLIS = 1000;
+    private static final AtomicInteger threads = new AtomicInteger();
+
+    private final Iterator<A> source;
+    private final Object[] ring;
+    private final int mask;
+    private final int batch;
+
+    // the next slot the consumer reads, published by the consumer
+    private final AtomicLong head = new AtomicLong();
+    // the next slot the producer writes, published by the producer
+    private final AtomicLong tail = new AtomicLong();
+    private volatile boolean finished;
+    private volatile Throwable failure;
+    private volatile boolean closed;
+    private volatile boolean consumerParked;
+    private volatile boolean producerParked;
+    private volatile Thread consumer;
+    private Thread producer;
+
+    // consumer side: the next slot to read, the published tail it has seen and the last head it published
+    private long read;
+    private long available;
+    private long published;
+
+    PrefetchIterator(Iterator<A> source, int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        }
+        int size = Integer.highestOneBit(Math.min(capacity, 1 << 30));
+        if (size < capacity) {
+            size <<= 1;
+        }
+        this.source = source;
+        this.ring = new Object[size];
+        this.mask = size - 1;
+        this.batch = Math.max(1, Math.min(size / 4, 256));
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (read < available) {
+            return true;
+        }
+        if (closed) {
+            return false;
+        }
+        if (producer == null) {
+            producer = new Thread(this::produce, "RichIterator-prefetch-" + threads.incrementAndGet());
+            producer.setDaemon(true);
+            producer.start();
+        }
+        return await();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public A next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        int i = (int) (read & mask);
+        A elem = (A) ring[i];
+        ring[i] = null;
+        read++;
+        if (read - published >= batch) {
+            publish();
+        }
+        return elem;
+    }
+
+    @Override
+    public int nextChunk(Object[] dest, int offset, int max) {
+        int n = 0;
+        while (n < max) {
+            if (read == available) {
+                // hand over what is already here rather than waiting for a full chunk
+                available = tail.get();
+                if (read == available && (n > 0 || !hasNext())) {
+                    break;
+                }
+            }
+            int start = (int) (read & mask);
+            int count = (int) Math.min(Math.min(available - read, max - n), ring.length - start);
+            System.arraycopy(ring, start, dest, offset + n, count);
+            Arrays.fill(ring, start, start + count, null);
+            read += count;
+            n += count;
+            if (read - published >= batch) {
+                publish();
+            }
+        }
+        return n;
+    }
+
+    // waits until the producer publishes more elements, false if it finished without any
+    private boolean await() {
+        publish();
+        for (int spins = 0; ; spins++) {
+            available = tail.get();
+            if (read < available) {
+                return true;
+            }
+            if (finished) {
+                // the producer publishes its last elements before it finishes
+                available = tail.get();
+                if (read < available) {
+                    return true;
+                }
+                Throwable e = failure;
+                if (e instanceof RuntimeException) {
+                    throw (RuntimeException) e;
+                }
+                if (e instanceof Error) {
+                    throw (Error) e;
+                }
+                if (e != null) {
+                    throw new IllegalStateException(e);
+                }
+                return false;
+            }
+            if (spins < SPINS) {
+                Thread.yield();
+            } else {
+                consumer = Thread.currentThread();
+                consumerParked = true;
+                if (tail.get() == read && !finished) {
+                    LockSupport.parkNanos(this, PARK_NANOS);
+                }
+                consumerParked = false;
+            }
+        }
+    }
+
+    private void publish() {
+        published = read;
+        head.set(read);
+        if (producerParked) {
+            LockSupport.unpark(producer);
+        }
+    }
+
+    private void produce() {
+        long write = 0;
+        try {
+            while (!closed && source.hasNext()) {
+                long limit = awaitSpace(write);
+                if (closed) {
+                    break;
+                }
+                int start = (int) (write & mask);
+                int max = (int) Math.min(Math.min(limit - write, ring.length - start), batch);
+                // element by element rather than nextChunk, so the elements before a failing one are still handed over
+                int n = 0;
+                try {
+                    while (n < max && source.hasNext()) {
+                        ring[start + n] = source.next();
+                        n++;
+                        if (head.get() == write) {
+                            // the consumer read everything published so far, hand this element over now
+                            break;
+                        }
+                    }
+                } finally {
+                    write += n;
+                    tail.set(write);
+                }
+                if (consumerParked) {
+                    LockSupport.unpark(consumer);
+                }
+            }
+        } catch (Throwable e) {
+            failure = e;
+        } finally {
+            try {
+                Wrapper.close(source);
+            } catch (Throwable e) {
+                if (failure == null) {
+                    failure = e;
+                }
+            }
+            finished = true;
+            Thread waiting = consumer;
+            if (waiting != null) {
+                LockSupport.unpark(waiting);
+            }
+        }
+    }
+
+    // waits until the ring has a free slot, returns the first slot the producer may not write
+    private long awaitSpace(long write) {
+        for (int spins = 0; ; spins++) {
+            long limit = head.get() + ring.length;
+            if (write < limit || closed) {
+                return limit;
+            }
+            if (spins < SPINS) {
+                Thread.yield();
+            } else {
+                producerParked = true;
+                if (head.get() + ring.length == write && !closed) {
+                    LockSupport.parkNanos(this, PARK_NANOS);
+                }
+                producerParked = false;
+            }
+        }
+    }
+
+    /**
+     * stops the producer: interrupts it and waits up to CLOSE_WAIT_MILLIS for it to close the source
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        available = read;
+        if (producer == null) {
+            Wrapper.close(source);
+            return;
+        }
+        producer.interrupt();
+        long deadline = System.nanoTime() + CLOSE_WAIT_MILLIS * 1_000_000;
+        boolean interrupted = false;
+        for (long left = CLOSE_WAIT_MILLIS; producer.isAlive() && left > 0;
+             left = (deadline - System.nanoTime()) / 1_000_000) {
+            try {
+                producer.join(left);
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        Arrays.fill(ring, null);
+    }
+}
@@ -0,0 +1,229 @@
+package iterator;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+
+/**
+ * The Cartesian product of two iterables, a block nested loop.
+ * <p>
+ * The inner iterable is iterated once, on the first call that needs it, into an array (toArray() of a collection),
+ * and the outer one is read in blocks of BLOCK elements (with nextChunk when it is a RichIterator), so neither
+ * is iterated more than once. The whole inner array is walked for every outer element, so the pairs keep the order
+ * of the nested loop, (a1, b1), (a1, b2)... (a2, b1)...
+ * <p>
+ * When the outer iterable is a collection and the inner one is a collection or was read, the number of pairs is
+ * known: knownSize() and length() are arithmetic, and drop(n) skips whole outer elements without pairing them,
+ * in O(1) when the outer iterable is a random access list.
+ */
+class ProductIterator<A, B> implements RichIterator<Pair<A, B>> {
+    private static final int BLOCK = 1024;
+
+    private final Iterable<B> inner;
+    private final List<A> outerList;
+    private final Iterator<A> outerItr;
+    private final long outerSize;
+    // the number of outer elements read into blocks (or skipped)
+    private long outerRead;
+
+    private Object[] innerArr;
+    private final Object[] block = new Object[BLOCK];
+    private int blockSize;
+    private int blockPos;
+    private int innerPos;
+    private boolean closed;
+
+    ProductIterator(Iterable<A> outer, Iterable<B> inner) {
+        this.inner = inner;
+        if (outer instanceof List && outer instanceof RandomAccess) {
+            this.outerList = (List<A>) outer;
+            this.outerItr = null;
+        } else {
+            this.outerList = null;
+            this.outerItr = outer.iterator();
+        }
+        this.outerSize = outer instanceof Collection ? ((Collection<A>) outer).size() : -1;
+    }
+
+    private Object[] innerArr() {
+        if (innerArr == null) {
+            if (inner instanceof Collection) {
+                innerArr = ((Collection<B>) inner).toArray();
+            } else {
+                Iterator<B> itr = inner.iterator();
+                Object[] arr = new Object[16];
+                int size = 0;
+                while (itr.hasNext()) {
+                    if (size == arr.length) {
+                        arr = Arrays.copyOf(arr, size * 2);
+                    }
+                    arr[size++] = itr.next();
+                }
+                Wrapper.close(itr);
+                innerArr = Arrays.copyOf(arr, size);
+            }
+        }
+        return innerArr;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (closed) {
+            return false;
+        }
+        if (blockPos < blockSize && innerArr().length > 0) {
+            return true;
+        }
+        if (innerArr().length > 0 && fill()) {
+            return true;
+        }
+        close();
+        return false;
+    }
+
+    // reads the next block of outer elements
+    private boolean fill() {
+        blockPos = 0;
+        innerPos = 0;
+        if (outerList != null) {
+            int from = (int) outerRead;
+            blockSize = (int) Math.min(BLOCK, outerSize - outerRead);
+            for (int i = 0; i < blockSize; i++) {
+                block[i] = outerList.get(from + i);
+            }
+        } else if (outerItr instanceof RichIterator) {
+            blockSize = ((RichIterator<A>) outerItr).nextChunk(block, 0, BLOCK);
+        } else {
+            blockSize = 0;
+            while (blockSize < BLOCK && outerItr.hasNext()) {
+                block[blockSize++] = outerItr.next();
+            }
+        }
+        outerRead += blockSize;
+        return blockSize > 0;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Pair<A, B> next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        Pair<A, B> pair = Pair.apply((A) block[blockPos], (B) innerArr[innerPos]);
+        if (++innerPos == innerArr.length) {
+            innerPos = 0;
+            block[blockPos++] = null;
+        }
+        return pair;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public int nextChunk(Object[] dest, int offset, int max) {
+        int n = 0;
+        while (n < max && hasNext()) {
+            A outer = (A) block[blockPos];
+            int count = Math.min(max - n, innerArr.length - innerPos);
+            for (int i = 0; i < count; i++) {
+                dest[offset + n + i] = Pair.apply(outer, (B) innerArr[innerPos + i]);
+            }
+            n += count;
+            innerPos += count;
+            if (innerPos == innerArr.length) {
+                innerPos = 0;
+                block[blockPos++] = null;
+            }
+        }
+        return n;
+    }
+
+    // the number of pairs left, or -1 if the sizes are not known
+    private long remaining() {
+        long innerSize = innerArr != null ? innerArr.length
+                : inner instanceof Collection ? ((Collection<B>) inner).size() : -1;
+        if (closed || innerSize == 0) {
+            return 0;
+        }
+        if (outerSize < 0 || innerSize < 0) {
+            return -1;
+        }
+        long inBlock = (long) (blockSize - blockPos) * innerSize - (blockPos < blockSize ? innerPos : 0);
+        return inBlock + (outerSize - outerRead) * innerSize;
+    }
+
+    @Override
+    public int knownSize() {
+        long remaining = remaining();
+        return remaining <= Integer.MAX_VALUE ? (int) remaining : -1;
+    }
+
+    @Override
+    public int length() {
+        long remaining = remaining();
+        if (remaining < 0) {
+            int length = 0;
+            while (hasNext()) {
+                next();
+                length++;
+            }
+            return length;
+        }
+        close();
+        return Math.toIntExact(remaining);
+    }
+
+    @Override
+    public RichIterator<Pair<A, B>> drop(int n) {
+        if (n <= 0 || !hasNext()) {
+            return this;
+        }
+        int innerSize = innerArr.length;
+        long skip = n;
+        // the rest of the current block
+        long inBlock = (long) (blockSize - blockPos) * innerSize - innerPos;
+        if (skip < inBlock) {
+            long pos = (long) blockPos * innerSize + innerPos + skip;
+            clearBlock((int) (pos / innerSize));
+            innerPos = (int) (pos % innerSize);
+            return this;
+        }
+        skip -= inBlock;
+        clearBlock(blockSize);
+        long outerSkip = skip / innerSize;
+        if (outerList != null) {
+            outerRead = Math.min(outerSize, outerRead + outerSkip);
+        } else {
+            for (; outerSkip > 0 && outerItr.hasNext(); outerSkip--) {
+                outerItr.next();
+                outerRead++;
+            }
+        }
+        if (fill()) {
+            innerPos = (int) (skip % innerSize);
+        }
+        return this;
+    }
+
+    // releases the outer elements of the block before position to
+    private void clearBlock(int to) {
+        for (; blockPos < to; blockPos++) {
+            block[blockPos] = null;
+        }
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        blockPos = blockSize = 0;
+        innerArr = new Object[0];
+        if (outerItr != null) {
+            Wrapper.close(outerItr);
+        }
+    }
+}
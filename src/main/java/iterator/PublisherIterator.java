@@ -0,0 +1,154 @@
+package iterator;
+
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.util.NoSuchElementException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * Subscribes to a publisher and hands its elements to the consuming thread.
+ * <p>
+ * prefetch elements are requested up front, and once three quarters of them were consumed they are requested again,
+ * so the publisher never has more than prefetch elements outstanding and the queue never holds more than that
+ * (plus the completion signal). Only the consuming thread blocks, in hasNext(), while the queue is empty.
+ */
+class PublisherIterator<A> implements RichIterator<A>, Subscriber<A> {
+    private static final Object COMPLETE = new Object();
+
+    private final Publisher<? extends A> publisher;
+    private final int prefetch;
+    private final int limit;
+    private final BlockingQueue<Object> queue = new LinkedBlockingQueue<>();
+    private volatile Subscription subscription;
+    private volatile boolean cancelled;
+
+    private boolean subscribed;
+    private boolean done;
+    private Object head;
+    private int consumed;
+
+    PublisherIterator(Publisher<? extends A> publisher, int prefetch) {
+        if (prefetch <= 0) {
+            throw new IllegalArgumentException("prefetch must be positive: " + prefetch);
+        }
+        this.publisher = publisher;
+        this.prefetch = prefetch;
+        this.limit = Math.max(1, prefetch - prefetch / 4);
+    }
+
+    /**
+     * A failure of the publisher, queued after the elements it sent before it.
+     */
+    private static final class Failure {
+        final Throwable error;
+
+        Failure(Throwable error) {
+            this.error = error;
+        }
+    }
+
+    @Override
+    public void onSubscribe(Subscription s) {
+        if (subscription != null) {
+            // only one subscription per subscriber (rule 2.5)
+            s.cancel();
+            return;
+        }
+        subscription = s;
+        if (cancelled) {
+            // closed before the publisher called back
+            s.cancel();
+            return;
+        }
+        s.request(prefetch);
+    }
+
+    @Override
+    public void onNext(A elem) {
+        queue.add(elem);
+    }
+
+    @Override
+    public void onError(Throwable e) {
+        queue.add(new Failure(e));
+    }
+
+    @Override
+    public void onComplete() {
+        queue.add(COMPLETE);
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (head != null) {
+            return true;
+        }
+        if (done) {
+            return false;
+        }
+        if (!subscribed) {
+            subscribed = true;
+            publisher.subscribe(this);
+        }
+        Object elem;
+        try {
+            elem = queue.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while waiting for the publisher", e);
+        }
+        if (elem == COMPLETE) {
+            done = true;
+            return false;
+        }
+        if (elem instanceof Failure) {
+            done = true;
+            Throwable error = ((Failure) elem).error;
+            if (error instanceof RuntimeException) {
+                throw (RuntimeException) error;
+            }
+            if (error instanceof Error) {
+                throw (Error) error;
+            }
+            throw new IllegalStateException(error);
+        }
+        head = elem;
+        return true;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public A next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        A elem = (A) head;
+        head = null;
+        if (++consumed == limit) {
+            consumed = 0;
+            subscription.request(limit);
+        }
+        return elem;
+    }
+
+    /**
+     * cancels the subscription and drops the elements that were not read
+     */
+    @Override
+    public void close() {
+        if (done) {
+            return;
+        }
+        done = true;
+        cancelled = true;
+        head = null;
+        Subscription s = subscription;
+        if (s != null) {
+            s.cancel();
+        }
+        queue.clear();
+    }
+}
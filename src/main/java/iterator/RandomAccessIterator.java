@@ -0,0 +1,20 @@
+package iterator;
+
+import java.util.List;
+
+/**
+ * Iterates a {@link java.util.RandomAccess} list by index instead of through its Iterator.
+ */
+class RandomAccessIterator<A> extends IndexedIterator<A> {
+    private final List<A> list;
+
+    RandomAccessIterator(List<A> list) {
+        super(0, list.size());
+        this.list = list;
+    }
+
+    @Override
+    protected A get(int i) {
+        return list.get(i);
+    }
+}
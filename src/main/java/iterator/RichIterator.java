@@ -1,9 +1,21 @@
 package iterator;
 
+import org.reactivestreams.Publisher;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.*;
+import java.util.concurrent.Executor;
 import java.util.function.*;
+import java.util.stream.Collector;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
-public interface RichIterator<A> extends Iterator<A> {
+public interface RichIterator<A> extends Iterator<A>, AutoCloseable {
     // easy
 
     /**
@@ -15,6 +27,7 @@ public interface RichIterator<A> extends Iterator<A> {
 
     /**
      * @return number of elements
+     * @implNote answer knownSize() when known, otherwise counting chunks of nextChunk is faster than calling next() per element
      */
     default int length() {
         throw new NotImplementedException();
@@ -38,6 +51,7 @@ public interface RichIterator<A> extends Iterator<A> {
     /**
      * @param elem the element
      * @return the index of the element if exists, -1 otherwise
+     * @implNote close() the iterator when the element is found
      */
     default int indexOf(A elem) {
         throw new NotImplementedException();
@@ -48,6 +62,7 @@ public interface RichIterator<A> extends Iterator<A> {
      *
      * @param f the predicate
      * @return Optional.of(A) if exists, empty() otherwise.
+     * @implNote close() the iterator when the element is found
      */
     default Optional<A> find(Predicate<? super A> f) {
         throw new NotImplementedException();
@@ -72,6 +87,7 @@ public interface RichIterator<A> extends Iterator<A> {
     /**
      * @param elem checks if the iterator has the element
      * @return true if exists, false otherwise
+     * @implNote close() the iterator when the element is found
      */
     default boolean contains(A elem) {
         throw new NotImplementedException();
@@ -86,6 +102,7 @@ public interface RichIterator<A> extends Iterator<A> {
      *                          RichIterator.apply(1,2,3,2,4,5).toCollection(HashSet::new) // HashSet(1,2,3,4,5)
      *                          RichIterator.apply(1,2,3,2,4,5).toCollection(LinkedList::new) // LinkedList(1,2,3,2,4,5)
      * @return the collection
+     * @implNote move the elements with nextChunk rather than one next() at a time
      */
     default <C extends Collection<A>> C toCollection(Supplier<C> collectionFactory) {
         throw new NotImplementedException();
@@ -93,6 +110,7 @@ public interface RichIterator<A> extends Iterator<A> {
 
     /**
      * @return a list built from the iterator's elements
+     * @implNote pre-size the list with knownSize() and move the elements with nextChunk
      */
     default List<A> toList() {
         throw new NotImplementedException();
@@ -108,6 +126,7 @@ public interface RichIterator<A> extends Iterator<A> {
     /**
      * @param that other iterator
      * @return true if this and that have the same elements in the same order
+     * @implNote close() both iterators when the answer is known before the end
      */
     default boolean sameElements(Iterator<A> that) {
         // TODO: implement this method
@@ -122,6 +141,7 @@ public interface RichIterator<A> extends Iterator<A> {
      * @param elem the element
      * @param <A>  the type
      * @return an iterator that contains only this element
+     * @implNote the result's knownSize() is 1
      */
     static <A> RichIterator<A> pure(A elem) {
         // TODO: implement this method
@@ -156,6 +176,7 @@ public interface RichIterator<A> extends Iterator<A> {
      * @param f   the function
      * @param <B> the new type
      * @return a new Iterator.
+     * @implNote the result's knownSize() is this knownSize()
      */
     default <B> RichIterator<B> map(Function<? super A, ? extends B> f) {
         throw new NotImplementedException();
@@ -204,7 +225,7 @@ public interface RichIterator<A> extends Iterator<A> {
      * @param delimiter delimiter between elements
      * @param suffix    end of the string
      * @return a string containing all the elments in the iterator.
-     * @implNote use previous functions to solve.
+     * @implNote use previous functions to solve, a StringBuilder can be pre-sized from knownSize().
      * e.g.
      * RichIterator(1,2,3,4,5).mkString("[", ";","]") // [1;2;3;4;5]
      * RichIterator(1).mkString("[", ";","]") // [1]
@@ -234,6 +255,7 @@ public interface RichIterator<A> extends Iterator<A> {
      * @return an iterator with the element appended
      * e.g.
      * RichIterator.apply(1,2,3,4).append(5) // 1,2,3,4,5
+     * @implNote the result's knownSize() is this knownSize() + 1 when known
      */
     default RichIterator<A> append(A elem) {
         throw new NotImplementedException();
@@ -246,6 +268,7 @@ public interface RichIterator<A> extends Iterator<A> {
      * @return an iterator with the elements appended
      * e.g.
      * RichIterator.apply(1,2,3,4).appendAll(Arrays.asList(5,6,7,8)) // 1,2,3,4,5,6,7,8
+     * @implNote the result's knownSize() is the sum of both knownSize() when both are known
      */
     default RichIterator<A> appendAll(Iterator<A> elems) {
         throw new NotImplementedException();
@@ -283,6 +306,7 @@ public interface RichIterator<A> extends Iterator<A> {
      * e.g.
      * RichIterator.apply(1,2,3,4,5,1,2,3,4,5).drop(2) // 3,4,5,1,2,3,4,5
      * RichIterator.apply(1,2,3,4,5,1,2,3,4,5).drop(20) // empty()
+     * @implNote the result's knownSize() is max(knownSize() - n, 0) when known
      */
     default RichIterator<A> drop(int n) {
         throw new NotImplementedException();
@@ -296,6 +320,8 @@ public interface RichIterator<A> extends Iterator<A> {
      * e.g.
      * RichIterator.apply(1,2,3,4,5,1,2,3,4,5).take(2) // 1,2
      * RichIterator.apply(1,2,3,4,5).take(20) // 1,2,3,4,5
+     * @implNote the result's knownSize() is min(knownSize(), n) when known
+     * @implNote the result passes close() to this iterator, and closes it once the n elements were taken
      */
     default RichIterator<A> take(int n) {
         throw new NotImplementedException();
@@ -312,6 +338,7 @@ public interface RichIterator<A> extends Iterator<A> {
      * RichIterator.apply(1,2,3,4,5).foldLeft(0, (x,y) -> x + y) // 15
      * RichIterator.apply("a","b","c","d").foldLeft("", (x,y) -> x + y) // "abcd"
      * empty().foldLeft(0, (x,y) -> x + y) // 0
+     * @implNote forEachChunk saves the hasNext()/next() pair per element
      */
     default <B> B foldLeft(B zero, BiFunction<? super B, ? super A, ? extends B> acc) {
         throw new NotImplementedException();
@@ -357,6 +384,7 @@ public interface RichIterator<A> extends Iterator<A> {
      * @param that the other
      * @param <B>  the other type
      * @return zipped iterator
+     * @implNote the result's knownSize() is the minimum of both knownSize() when both are known
      */
     default <B> RichIterator<Pair<A, B>> zip(Iterator<B> that) {
         throw new NotImplementedException();
@@ -369,6 +397,7 @@ public interface RichIterator<A> extends Iterator<A> {
      * RichIterator(1,2,3).zipWithIndex() // RichIterator((1,0), (2,1), (3,2))
      *
      * @return the zipped iterator
+     * @implNote the result's knownSize() is this knownSize()
      */
     default RichIterator<Pair<A, Integer>> zipWithIndex() {
         throw new NotImplementedException();
@@ -381,6 +410,7 @@ public interface RichIterator<A> extends Iterator<A> {
      * @param <K>    key type
      * @param <V>    value type
      * @return a map
+     * @implNote pre-size the map with knownSize() when known
      */
     default <K, V> Map<K, V> toMap(Function<? super A, ? extends Pair<K, V>> asPair) {
         throw new NotImplementedException();
@@ -395,6 +425,7 @@ public interface RichIterator<A> extends Iterator<A> {
      * @return the first elements that fulfill the predicate
      * e.g.
      * RichIterator.apply(1,2,3,4,5,1,2,3,4,5).takeWhile(x -> x <= 3) // 1,2,3
+     * @implNote the result passes close() to this iterator, and closes it when the predicate fails
      */
     default RichIterator<A> takeWhile(Predicate<? super A> predicate) {
         throw new NotImplementedException();
@@ -460,6 +491,7 @@ public interface RichIterator<A> extends Iterator<A> {
      *
      * @return an iterator with distinct values
      * e.g. Iterator(1,2,3,3,2,1,4).distinct() // Iterator(1,2,3,4)
+     * see distinct(int, Serializer, Path) and distinctApproximate(long, double) for a distinct with bounded memory
      */
     default RichIterator<A> distinct() {
         throw new NotImplementedException();
@@ -475,6 +507,7 @@ public interface RichIterator<A> extends Iterator<A> {
      * @param f   the function
      * @param <B> the type
      * @return the iterator
+     * @implNote the result closes the current inner iterator when it is done with it, and on close() also this iterator
      */
     default <B> RichIterator<B> flatMap(Function<? super A, ? extends Iterator<B>> f) {
         throw new NotImplementedException();
@@ -508,8 +541,9 @@ public interface RichIterator<A> extends Iterator<A> {
      * @return the iterator
      */
     @SafeVarargs
+    @SuppressWarnings("varargs") // the array is only read, as an A[], so it cannot pollute the heap
     static <A> RichIterator<A> apply(A... elements) {
-        return RichIterator.from(Arrays.stream(elements).iterator());
+        return new ArrayIterator<>(elements);
     }
 
     /**
@@ -520,6 +554,12 @@ public interface RichIterator<A> extends Iterator<A> {
      * @return the iterator
      */
     static <A> RichIterator<A> from(Iterable<A> that) {
+        if (that instanceof List && that instanceof RandomAccess) {
+            return new RandomAccessIterator<>((List<A>) that);
+        }
+        if (that instanceof Collection) {
+            return new Wrapper<>(that.iterator(), ((Collection<A>) that).size());
+        }
         return from(that.iterator());
     }
 
@@ -534,9 +574,1013 @@ public interface RichIterator<A> extends Iterator<A> {
         return new Wrapper<>(that);
     }
 
+    /**
+     * iterates a file of fixed-width records through a memory mapping (files over 2 GB are mapped in segments).
+     * a record is decoded only when next() reaches it, drop, take, length and last skip records without reading them.
+     * <p>
+     * the decoder gets a big endian ByteBuffer over exactly one record, position 0 is the record's first byte.
+     * the buffer is a view of the mapped file, the bytes are never copied.
+     * <p>
+     * for example:
+     * RichIterator.fromMappedFile(path, 12, buf -> new Point(buf.getInt(0), buf.getLong(4)))
+     *
+     * @param file       the file
+     * @param recordSize the size of every record in bytes
+     * @param decoder    converts the bytes of a record to an element
+     * @param <A>        the type
+     * @return the iterator
+     * @throws IOException if the file cannot be mapped or its size is not a multiple of recordSize
+     */
+    static <A> RichIterator<A> fromMappedFile(Path file, int recordSize, Function<? super ByteBuffer, ? extends A> decoder) throws IOException {
+        MappedFile mapped = MappedFile.map(file, recordSize, ByteOrder.BIG_ENDIAN);
+        return new MappedIterator<>(mapped, decoder, 0, mapped.records);
+    }
+
+    /**
+     * iterates the lines of a text file, reading it through a FileChannel into one reused direct buffer.
+     * UTF-8, US-ASCII and ISO-8859-1 files are split on the raw bytes and every line is decoded once, into its String.
+     * lines end at '\n', '\r' or "\r\n", the file is closed after the last line.
+     *
+     * @param file    the file
+     * @param charset the charset of the file
+     * @return an iterator over the lines, without the line terminators
+     * @throws IOException if the file cannot be opened
+     */
+    static RichIterator<String> lines(Path file, Charset charset) throws IOException {
+        return new LineIterator<>(file, charset, false);
+    }
+
+    /**
+     * same as lines but every line is a CharSequence view that is only valid until the next hasNext() or next(),
+     * so lines can be filtered before paying for a String.
+     * ASCII lines are read straight from the file bytes, other lines are decoded on first access.
+     * <p>
+     * for example:
+     * RichIterator.lineViews(log, UTF_8).fused().filter(l -> l.length() > 80).map(CharSequence::toString)
+     *
+     * @param file    the file
+     * @param charset the charset of the file
+     * @return an iterator over reused line views
+     * @throws IOException if the file cannot be opened
+     */
+    static RichIterator<CharSequence> lineViews(Path file, Charset charset) throws IOException {
+        return new LineIterator<>(file, charset, true);
+    }
+
+    /**
+     * reads the elements of a reactive streams Publisher, blocking the consuming thread (and only it)
+     * in hasNext() until the next element arrives.
+     * prefetch elements are requested up front and requested again in batches as they are consumed,
+     * so no more than prefetch elements are ever buffered however fast the publisher is.
+     * an error of the publisher is thrown by hasNext() after the elements sent before it, close() cancels the subscription.
+     * on Java 9 and later a java.util.concurrent.Flow.Publisher can be read with
+     * fromPublisher(FlowAdapters.toPublisher(flowPublisher), prefetch).
+     *
+     * @param publisher the publisher, subscribed to on the first call to hasNext()
+     * @param prefetch  the maximum number of elements requested but not read yet
+     * @param <A>       the type
+     * @return the iterator
+     */
+    static <A> RichIterator<A> fromPublisher(Publisher<? extends A> publisher, int prefetch) {
+        return new PublisherIterator<>(publisher, prefetch);
+    }
+
+    /**
+     * merges iterators that are each sorted by the comparator into one sorted iterator, with a loser tree,
+     * about log2(k) comparisons per element for k iterators. equal elements come in the order of their iterators.
+     * no iterator is read before the first hasNext().
+     * <p>
+     * for example:
+     * RichIterator.mergeSorted(Comparator.naturalOrder(), RichIterator.apply(1,4,7), RichIterator.apply(2,3,9)) // RichIterator(1,2,3,4,7,9)
+     *
+     * @param comparator the order of the iterators
+     * @param iterators  the sorted iterators
+     * @param <A>        the type
+     * @return a sorted iterator with the elements of all the iterators
+     */
+    @SafeVarargs
+    static <A> RichIterator<A> mergeSorted(Comparator<? super A> comparator, Iterator<? extends A>... iterators) {
+        List<Iterator<? extends A>> list = new ArrayList<>(iterators.length);
+        for (Iterator<? extends A> itr : iterators) {
+            list.add(itr);
+        }
+        return mergeSorted(comparator, false, list);
+    }
+
+    /**
+     * see mergeSorted(comparator, iterators...). closing the result closes every iterator.
+     * <p>
+     * for example:
+     * RichIterator.mergeSorted(byKey, true, shards) // one record per key, the one from the first shard that has it
+     *
+     * @param comparator the order of the iterators
+     * @param distinct   whether to return only the first of the elements the comparator finds equal
+     * @param iterators  the sorted iterators
+     * @param <A>        the type
+     * @return a sorted iterator with the elements of all the iterators
+     */
+    static <A> RichIterator<A> mergeSorted(Comparator<? super A> comparator, boolean distinct,
+                                           List<? extends Iterator<? extends A>> iterators) {
+        return new MergeSortedIterator<>(comparator, iterators, distinct);
+    }
+
+    /**
+     * the Cartesian product of outer and inner as a block nested loop: inner is iterated once, into an array,
+     * and outer is read in blocks, so neither is iterated more than once however many pairs there are.
+     * when outer is a collection and inner a collection (or once it was read) the number of pairs is known,
+     * so length() and knownSize() are O(1) and drop(n) skips outer elements without pairing them
+     * (O(1) for a random access list).
+     * <p>
+     * for example:
+     * RichIterator.product(Arrays.asList(1,2), Arrays.asList("a","b")) // RichIterator((1, a), (1, b), (2, a), (2, b))
+     * RichIterator.product(learningRates, batchSizes).drop(shard * perShard) // this shard's part of the grid
+     *
+     * @param outer the first elements of the pairs
+     * @param inner the second elements of the pairs
+     * @param <A>   the outer type
+     * @param <B>   the inner type
+     * @return an iterator of all the pairs, in the order of a nested loop
+     */
+    static <A, B> RichIterator<Pair<A, B>> product(Iterable<A> outer, Iterable<B> inner) {
+        return new ProductIterator<>(outer, inner);
+    }
+
     @SuppressWarnings("unchecked")
     static <A> RichIterator<A> empty() {
         return EMPTY;
     }
 
+    // primitives
+
+    /**
+     * converts the iterator to an int iterator, the elements are not boxed from here on.
+     * <p>
+     * for example:
+     * RichIterator.apply(person1, person2).mapToInt(p -> p.age).sum()
+     *
+     * @param f the function
+     * @return an IntRichIterator
+     */
+    default IntRichIterator mapToInt(ToIntFunction<? super A> f) {
+        RichIterator<A> self = this;
+        return new IntRichIterator() {
+            @Override
+            public boolean hasNext() {
+                return self.hasNext();
+            }
+
+            @Override
+            public int nextInt() {
+                return f.applyAsInt(self.next());
+            }
+
+            @Override
+            public void close() {
+                self.close();
+            }
+        };
+    }
+
+    /**
+     * same as mapToInt but for long values
+     *
+     * @param f the function
+     * @return a LongRichIterator
+     */
+    default LongRichIterator mapToLong(ToLongFunction<? super A> f) {
+        RichIterator<A> self = this;
+        return new LongRichIterator() {
+            @Override
+            public boolean hasNext() {
+                return self.hasNext();
+            }
+
+            @Override
+            public long nextLong() {
+                return f.applyAsLong(self.next());
+            }
+
+            @Override
+            public void close() {
+                self.close();
+            }
+        };
+    }
+
+    /**
+     * same as mapToInt but for double values
+     *
+     * @param f the function
+     * @return a DoubleRichIterator
+     */
+    default DoubleRichIterator mapToDouble(ToDoubleFunction<? super A> f) {
+        RichIterator<A> self = this;
+        return new DoubleRichIterator() {
+            @Override
+            public boolean hasNext() {
+                return self.hasNext();
+            }
+
+            @Override
+            public double nextDouble() {
+                return f.applyAsDouble(self.next());
+            }
+
+            @Override
+            public void close() {
+                self.close();
+            }
+        };
+    }
+
+    // sizes
+
+    /**
+     * the number of remaining elements if it is known without traversing, -1 otherwise.
+     * exact for apply(...), from(Collection), empty() and for operators over sized iterators.
+     * <p>
+     * for example:
+     * RichIterator.apply(1,2,3).knownSize() // 3
+     * RichIterator.from(Stream.of(1,2,3).iterator()).knownSize() // -1
+     *
+     * @return the number of remaining elements or -1
+     */
+    default int knownSize() {
+        return -1;
+    }
+
+    // chunks
+
+    /**
+     * moves up to max elements into dest, starting at dest[offset].
+     * sources that hold their elements in an array or a list copy them in bulk.
+     * <p>
+     * for example:
+     * Object[] dest = new Object[4];
+     * RichIterator.apply(1,2,3,4,5).nextChunk(dest, 1, 3) // 3, dest is [null,1,2,3]
+     *
+     * @param dest   the array to fill
+     * @param offset first position in dest to write to
+     * @param max    maximum number of elements to move
+     * @return the number of elements moved, 0 only if the iterator is empty (or max is 0)
+     */
+    default int nextChunk(Object[] dest, int offset, int max) {
+        int n = 0;
+        while (n < max && hasNext()) {
+            dest[offset + n++] = next();
+        }
+        return n;
+    }
+
+    /**
+     * executes the given consumer on chunks of up to chunkSize elements until the iterator is empty.
+     * the consumer gets the chunk array and the number of elements in it,
+     * the same array is reused for every chunk so it must not be kept.
+     *
+     * @param chunkSize maximum elements per chunk
+     * @param f         the consumer
+     */
+    default void forEachChunk(int chunkSize, ObjIntConsumer<Object[]> f) {
+        Object[] chunk = new Object[chunkSize];
+        int n;
+        while ((n = nextChunk(chunk, 0, chunkSize)) > 0) {
+            f.accept(chunk, n);
+        }
+    }
+
+    // streams
+
+    /**
+     * hands the remaining elements over to a Spliterator, the iterator should not be used afterwards.
+     * array and list based iterators (apply, from) split in exact halves and report SIZED and SUBSIZED,
+     * other iterators are split by copying batches of elements (reporting SIZED when knownSize() is known).
+     *
+     * @return a spliterator over the remaining elements
+     */
+    default Spliterator<A> spliterator() {
+        int size = knownSize();
+        if (size >= 0) {
+            return Spliterators.spliterator(this, size, Spliterator.ORDERED);
+        }
+        return Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED);
+    }
+
+    /**
+     * @return a sequential Stream over the remaining elements, closing the stream closes the iterator
+     */
+    default Stream<A> stream() {
+        return StreamSupport.stream(spliterator(), false).onClose(this::close);
+    }
+
+    /**
+     * e.g.
+     * RichIterator.apply(records).parallelStream().map(Record::parse).collect(...) // runs on all cores
+     *
+     * @return a parallel Stream over the remaining elements, see spliterator()
+     */
+    default Stream<A> parallelStream() {
+        return StreamSupport.stream(spliterator(), true).onClose(this::close);
+    }
+
+    // fusion
+
+    /**
+     * fuses the stateless operators chained after this call into a single stage.
+     * map, filter, tapEach, take, drop and takeWhile called on the result (and on their results)
+     * do not add a layer, the whole chain runs in one loop over this iterator.
+     * <p>
+     * for example:
+     * RichIterator.apply(1,2,3,4,5,6).fused().map(x -> x * 10).filter(x -> x > 20).take(2) // RichIterator(30,40)
+     *
+     * @return a fused iterator with the same elements
+     */
+    default RichIterator<A> fused() {
+        return new FusedIterator<>(this);
+    }
+
+    // lifecycle
+
+    /**
+     * releases the resources held by the iterator (open files, channels...), the iterator is empty afterwards.
+     * every operator passes close() on to the iterator it was built on, so closing the last stage of a pipeline closes its source.
+     * closing an iterator more than once has no effect.
+     * <p>
+     * for example:
+     * try (RichIterator<String> lines = RichIterator.lines(log, UTF_8)) {
+     *     lines.fused().filter(l -> l.startsWith("ERROR")).take(10).foreach(System.out::println);
+     * }
+     */
+    @Override
+    default void close() {
+    }
+
+    /**
+     * e.g.
+     * RichIterator.from(socketLines).onClose(socket::close)
+     *
+     * @param action runs once, when the returned iterator is closed (after this iterator was closed)
+     * @return an iterator with the same elements
+     */
+    default RichIterator<A> onClose(Runnable action) {
+        return new Wrapper<>(this, action);
+    }
+
+    // distinct
+
+    /**
+     * an approximate distinct that remembers the seen elements in a Bloom filter, so its memory does not grow.
+     * it never returns an element twice, but some elements (about falsePositiveRate of them, as long as
+     * there are no more than expectedElements distinct elements) are dropped although they were not seen before.
+     * elements with the same hashCode() are treated as duplicates, and since hashCode() has only 2^32 values
+     * the rate of dropped elements grows past falsePositiveRate once there are hundreds of millions of them,
+     * see distinctApproximate(long, double, ToLongFunction) for a 64 bit hash.
+     * the filter takes about -expectedElements * ln(falsePositiveRate) / 0.48 bits, 1.2 bytes per element for 1%.
+     * <p>
+     * for example:
+     * RichIterator.apply(1,2,3,3,2,1,4).distinctApproximate(1_000_000, 0.01) // RichIterator(1,2,3,4) (most likely)
+     *
+     * @param expectedElements  the expected number of distinct elements
+     * @param falsePositiveRate the rate of distinct elements that may be dropped, in (0, 1)
+     * @return an iterator with the first occurrence of every (not dropped) element, in order
+     */
+    default RichIterator<A> distinctApproximate(long expectedElements, double falsePositiveRate) {
+        return distinctApproximate(expectedElements, falsePositiveRate, Objects::hashCode);
+    }
+
+    /**
+     * same as distinctApproximate(long, double) with the elements' 64 bit hash instead of hashCode(),
+     * so only elements with the same hash are treated as duplicates.
+     * <p>
+     * for example:
+     * RichIterator.from(ids).distinctApproximate(1_000_000_000L, 0.01, id -> id) // ids are longs
+     *
+     * @param expectedElements  the expected number of distinct elements
+     * @param falsePositiveRate the rate of distinct elements that may be dropped, in (0, 1)
+     * @param hash              the 64 bit hash of an element, equal elements must have the same hash
+     * @return an iterator with the first occurrence of every (not dropped) element, in order
+     */
+    default RichIterator<A> distinctApproximate(long expectedElements, double falsePositiveRate,
+                                                ToLongFunction<? super A> hash) {
+        BloomFilter seen = new BloomFilter(expectedElements, falsePositiveRate);
+        RichIterator<A> self = this;
+        return new RichIterator<A>() {
+            private boolean ready;
+            private A head;
+
+            @Override
+            public boolean hasNext() {
+                while (!ready && self.hasNext()) {
+                    head = self.next();
+                    ready = seen.put(BloomFilter.mix(hash.applyAsLong(head)));
+                }
+                return ready;
+            }
+
+            @Override
+            public A next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                ready = false;
+                return head;
+            }
+
+            @Override
+            public void close() {
+                self.close();
+            }
+        };
+    }
+
+    /**
+     * same as distinct(memoryBudget, serializer, spillDirectory) with the spill files in java.io.tmpdir
+     *
+     * @param memoryBudget the maximum number of seen elements kept in memory
+     * @param serializer   writes the spilled elements and reads them back
+     * @return an iterator with distinct values
+     */
+    default RichIterator<A> distinct(int memoryBudget, Serializer<A> serializer) {
+        return distinct(memoryBudget, serializer, Paths.get(System.getProperty("java.io.tmpdir")));
+    }
+
+    /**
+     * an exact distinct that keeps at most memoryBudget elements in memory and spills the returned elements to files
+     * in spillDirectory, partitioned by hash.
+     * the first memoryBudget distinct elements are returned as they come. after that the source is read in chunks of
+     * memoryBudget elements, every chunk is checked against the spilled partitions of its elements and its new
+     * elements are returned in order before the next chunk is read, so the result stays lazy (an infinite source works).
+     * every chunk reads most of the spilled elements, so the work grows with (source size / memoryBudget) times
+     * the number of distinct elements: use the largest budget that fits in memory.
+     * the serializer writes the elements once more than memoryBudget distinct elements were seen,
+     * Serializer.java() works for any Serializable element but is a lot slower than a serializer for the type.
+     * the files are deleted when the iterator is exhausted or closed.
+     * <p>
+     * for example:
+     * try (RichIterator<Long> ids = RichIterator.from(idStream).distinct(1_000_000, Serializer.longs(), scratch)) {
+     *     ids.foreach(...)
+     * }
+     *
+     * @param memoryBudget   the maximum number of seen elements kept in memory
+     * @param serializer     writes the spilled elements and reads them back
+     * @param spillDirectory the directory for the spill files
+     * @return an iterator with the first occurrence of every element, in order
+     * @throws java.io.UncheckedIOException if the spill files cannot be written or read
+     */
+    default RichIterator<A> distinct(int memoryBudget, Serializer<A> serializer, Path spillDirectory) {
+        return new SpillingDistinctIterator<>(this, memoryBudget, serializer, spillDirectory);
+    }
+
+    // concurrency
+
+    /**
+     * reads ahead on a producer thread, so the work of producing the elements (decoding, parsing,
+     * the operators before prefetch) overlaps with the work of the consumer.
+     * up to capacity elements are buffered and they are handed over in batches.
+     * an exception thrown while producing is thrown by hasNext()/next() after the elements produced before it.
+     * <p>
+     * close the iterator when it is not read to the end, close() interrupts the producer and waits up to a second
+     * for it to close this iterator (a next() that ignores the interrupt is finished before this iterator is closed).
+     * the producer hands over an element as soon as the consumer is waiting for it.
+     * only the producer thread uses this iterator, so it may be not thread-safe.
+     * <p>
+     * for example:
+     * RichIterator.lines(log, UTF_8).map(Record::parse).prefetch(1024).filter(Record::isError)
+     *
+     * @param capacity the maximum number of elements read ahead, rounded up to a power of 2
+     * @return an iterator with the same elements
+     */
+    default RichIterator<A> prefetch(int capacity) {
+        return new PrefetchIterator<>(this, capacity);
+    }
+
+    /**
+     * applies the function to up to maxInFlight elements at the same time, for functions that mostly wait
+     * (blocking calls to a service, disk reads...). every call runs on its own virtual thread on Java 21 and later,
+     * otherwise on a pool of up to maxInFlight daemon threads.
+     * <p>
+     * the elements are read from this iterator on the consumer thread, ahead of the results.
+     * an element is in flight from the moment it is read until its result is returned by next(),
+     * an exception thrown by the function is thrown by next() in place of the element's result.
+     * close() interrupts the calls that are still running.
+     * <p>
+     * for example:
+     * RichIterator.from(userIds).mapAsync(id -> client.fetchUser(id), 64, true) // users in the order of userIds
+     *
+     * @param f           the function, called from several threads at the same time
+     * @param maxInFlight the maximum number of elements in flight
+     * @param ordered     true to return the results in the order of the elements, false in the order they finish
+     * @param <B>         the type
+     * @return an iterator of the results
+     */
+    default <B> RichIterator<B> mapAsync(Function<? super A, ? extends B> f, int maxInFlight, boolean ordered) {
+        return new AsyncMapIterator<>(this, f, maxInFlight, ordered);
+    }
+
+    /**
+     * publishes the elements to a single reactive streams Subscriber, pulling them from this iterator only
+     * as the subscriber requests them, so nothing is buffered.
+     * the elements are emitted on the executor in batches of up to 128 per task,
+     * the iterator is closed when it is exhausted, fails or the subscription is cancelled.
+     * on Java 9 and later FlowAdapters.toFlowPublisher(itr.toPublisher(executor)) is a java.util.concurrent.Flow.Publisher.
+     * <p>
+     * for example:
+     * RichIterator.lines(log, UTF_8).toPublisher(ForkJoinPool.commonPool()).subscribe(subscriber)
+     *
+     * @param executor runs the tasks that emit the elements
+     * @return a publisher that accepts one subscriber, later subscribers get onError
+     */
+    default Publisher<A> toPublisher(Executor executor) {
+        return new IteratorPublisher<>(this, executor);
+    }
+
+    // windows
+
+    /**
+     * splits the elements to groups of size elements, the last group may be smaller.
+     * <p>
+     * for example:
+     * RichIterator.apply(1,2,3,4,5).grouped(2) // RichIterator([1,2], [3,4], [5])
+     *
+     * @param size the number of elements in every group
+     * @return an iterator of unmodifiable lists
+     */
+    default RichIterator<List<A>> grouped(int size) {
+        return new WindowIterator<>(this, size, size, false);
+    }
+
+    /**
+     * same as grouped but every group is the same read-only list, refilled in place,
+     * so it is only valid until the next hasNext() or next(). no list is allocated per group.
+     * <p>
+     * for example:
+     * RichIterator.from(rows).groupedViews(500).foreach(batch -> db.insertAll(batch))
+     *
+     * @param size the number of elements in every group
+     * @return an iterator of reused list views
+     */
+    default RichIterator<List<A>> groupedViews(int size) {
+        return new WindowIterator<>(this, size, size, true);
+    }
+
+    /**
+     * windows of size elements, every window starts step elements after the previous one.
+     * the last window may be smaller, it is only returned if it has elements no previous window had.
+     * <p>
+     * for example:
+     * RichIterator.apply(1,2,3,4,5).sliding(3, 1) // RichIterator([1,2,3], [2,3,4], [3,4,5])
+     * RichIterator.apply(1,2,3,4,5).sliding(2, 2) // RichIterator([1,2], [3,4], [5])
+     * RichIterator.apply(1,2,3,4,5).sliding(1, 3) // RichIterator([1], [4])
+     *
+     * @param size the number of elements in every window
+     * @param step the distance between the first elements of two windows
+     * @return an iterator of unmodifiable lists
+     */
+    default RichIterator<List<A>> sliding(int size, int step) {
+        return new WindowIterator<>(this, size, step, false);
+    }
+
+    /**
+     * same as sliding but every window is the same read-only list over a ring buffer,
+     * so it is only valid until the next hasNext() or next(). no list is allocated per window.
+     * <p>
+     * for example:
+     * RichIterator.from(prices).slidingViews(20, 1).map(w -> average(w)) // moving average without garbage
+     *
+     * @param size the number of elements in every window
+     * @param step the distance between the first elements of two windows
+     * @return an iterator of reused list views
+     */
+    default RichIterator<List<A>> slidingViews(int size, int step) {
+        return new WindowIterator<>(this, size, step, true);
+    }
+
+    // sorting
+
+    /**
+     * same as sorted(comparator, memoryBudget, serializer, spillDirectory, false) with the spill files in java.io.tmpdir
+     *
+     * @param comparator   the order
+     * @param memoryBudget the maximum number of elements kept in memory
+     * @param serializer   writes the spilled elements and reads them back
+     * @return an iterator with the elements in sorted order
+     */
+    default RichIterator<A> sorted(Comparator<? super A> comparator, int memoryBudget, Serializer<A> serializer) {
+        return sorted(comparator, memoryBudget, serializer, Paths.get(System.getProperty("java.io.tmpdir")), false);
+    }
+
+    /**
+     * a stable sort of any number of elements that keeps at most memoryBudget of them in memory.
+     * nothing is read before the first hasNext(), then the elements are sorted in runs of up to memoryBudget elements,
+     * the runs are written to files in spillDirectory with the serializer and merged.
+     * when all the elements fit in the budget nothing is written.
+     * in parallel mode a run is sorted on all cores and written by another thread while the next run is read,
+     * and the budget is split between the two runs.
+     * the files are deleted when the iterator is exhausted or closed.
+     * <p>
+     * for example:
+     * try (RichIterator<String> words = RichIterator.lines(corpus, UTF_8)
+     *         .sorted(Comparator.naturalOrder(), 10_000_000, Serializer.strings(), scratch, true)) {
+     *     words.foreach(...)
+     * }
+     *
+     * @param comparator     the order
+     * @param memoryBudget   the maximum number of elements kept in memory
+     * @param serializer     writes the spilled elements and reads them back
+     * @param spillDirectory the directory for the run files
+     * @param parallel       whether to sort and write a run while the next one is read
+     * @return an iterator with the elements in sorted order
+     * @throws java.io.UncheckedIOException if the run files cannot be written or read
+     */
+    default RichIterator<A> sorted(Comparator<? super A> comparator, int memoryBudget, Serializer<A> serializer,
+                                   Path spillDirectory, boolean parallel) {
+        return new ExternalSortIterator<>(this, comparator, memoryBudget, serializer, spillDirectory, parallel);
+    }
+
+    // top k
+
+    /**
+     * finds the k largest elements with a heap of k elements, in O(n log k) time and O(k) memory.
+     * <p>
+     * for example:
+     * RichIterator.apply(5,1,4,2,3).topK(2, Comparator.naturalOrder()) // [5, 4]
+     *
+     * @param k          the number of elements
+     * @param comparator the comparator
+     * @return the k largest elements (or all of them if there are fewer), largest first
+     */
+    default List<A> topK(int k, Comparator<? super A> comparator) {
+        BoundedHeap<A> heap = new BoundedHeap<>(k, comparator);
+        while (k > 0 && hasNext()) {
+            heap.add(next());
+        }
+        return heap.toSortedList();
+    }
+
+    /**
+     * finds the k smallest elements, see topK
+     * <p>
+     * for example:
+     * RichIterator.apply(5,1,4,2,3).bottomK(2, Comparator.naturalOrder()) // [1, 2]
+     *
+     * @param k          the number of elements
+     * @param comparator the comparator
+     * @return the k smallest elements (or all of them if there are fewer), smallest first
+     */
+    default List<A> bottomK(int k, Comparator<? super A> comparator) {
+        return topK(k, (x, y) -> comparator.compare(y, x));
+    }
+
+    /**
+     * same as topK, but every chunk of parallelStream() is reduced to its own heap and the heaps are merged,
+     * so it runs on all cores for iterators that split well (see spliterator()).
+     *
+     * @param k          the number of elements
+     * @param comparator the comparator
+     * @return the k largest elements (or all of them if there are fewer), largest first
+     */
+    default List<A> parallelTopK(int k, Comparator<? super A> comparator) {
+        if (k < 0) {
+            throw new IllegalArgumentException("k must not be negative: " + k);
+        }
+        try (Stream<A> stream = parallelStream()) {
+            return stream.collect(Collector.of(() -> new BoundedHeap<A>(k, comparator), BoundedHeap::add,
+                    BoundedHeap::merge, BoundedHeap::toSortedList, Collector.Characteristics.UNORDERED));
+        }
+    }
+
+    /**
+     * same as bottomK, see parallelTopK
+     *
+     * @param k          the number of elements
+     * @param comparator the comparator
+     * @return the k smallest elements (or all of them if there are fewer), smallest first
+     */
+    default List<A> parallelBottomK(int k, Comparator<? super A> comparator) {
+        return parallelTopK(k, (x, y) -> comparator.compare(y, x));
+    }
+
+    // aggregation
+
+    /**
+     * groups the elements by key, every group keeps the order of the iterator.
+     * <p>
+     * for example:
+     * RichIterator.apply("ant","bee","cat","cow").groupBy(s -> s.charAt(0)) // {a=[ant], b=[bee], c=[cat, cow]}
+     *
+     * @param key the key of an element
+     * @param <K> the key type
+     * @return a map from every key to its elements
+     */
+    default <K> Map<K, List<A>> groupBy(Function<? super A, ? extends K> key) {
+        Function<K, List<A>> newGroup = k -> new ArrayList<>();
+        return aggregateBy(key, newGroup, List::add);
+    }
+
+    /**
+     * counts the elements of every key, in a mutable counter per key, so nothing is allocated per element.
+     * <p>
+     * for example:
+     * RichIterator.apply("ant","bee","cat","cow").countBy(s -> s.charAt(0)) // {a=1, b=1, c=2}
+     *
+     * @param key the key of an element
+     * @param <K> the key type
+     * @return a map from every key to the number of its elements
+     */
+    default <K> Map<K, Long> countBy(Function<? super A, ? extends K> key) {
+        return sumLongBy(key, a -> 1L);
+    }
+
+    /**
+     * sums a long value of the elements of every key, in a mutable counter per key, so nothing is allocated per element.
+     * <p>
+     * for example:
+     * RichIterator.from(orders).sumLongBy(Order::customerId, Order::cents)
+     *
+     * @param key   the key of an element
+     * @param value the value of an element
+     * @param <K>   the key type
+     * @return a map from every key to the sum of its values
+     */
+    default <K> Map<K, Long> sumLongBy(Function<? super A, ? extends K> key, ToLongFunction<? super A> value) {
+        Function<K, long[]> zero = k -> new long[1];
+        Map<K, long[]> sums = new HashMap<>();
+        while (hasNext()) {
+            A elem = next();
+            sums.computeIfAbsent(key.apply(elem), zero)[0] += value.applyAsLong(elem);
+        }
+        // boxes every sum once
+        Map<K, Long> result = new HashMap<>(sums.size() * 4 / 3 + 1);
+        sums.forEach((k, sum) -> result.put(k, sum[0]));
+        return result;
+    }
+
+    /**
+     * sums a double value of the elements of every key, see sumLongBy
+     *
+     * @param key   the key of an element
+     * @param value the value of an element
+     * @param <K>   the key type
+     * @return a map from every key to the sum of its values
+     */
+    default <K> Map<K, Double> sumDoubleBy(Function<? super A, ? extends K> key, ToDoubleFunction<? super A> value) {
+        Function<K, double[]> zero = k -> new double[1];
+        Map<K, double[]> sums = new HashMap<>();
+        while (hasNext()) {
+            A elem = next();
+            sums.computeIfAbsent(key.apply(elem), zero)[0] += value.applyAsDouble(elem);
+        }
+        Map<K, Double> result = new HashMap<>(sums.size() * 4 / 3 + 1);
+        sums.forEach((k, sum) -> result.put(k, sum[0]));
+        return result;
+    }
+
+    /**
+     * aggregates the elements of every key into a mutable accumulator, created by zero for the first element of the key
+     * and updated in place by acc, so nothing has to be allocated per element.
+     * <p>
+     * for example:
+     * RichIterator.from(orders).aggregateBy(Order::customerId, id -> new Stats(), Stats::add)
+     *
+     * @param key  the key of an element
+     * @param zero creates the accumulator of a key
+     * @param acc  adds an element to its key's accumulator
+     * @param <K>  the key type
+     * @param <R>  the accumulator type
+     * @return a map from every key to its accumulator
+     */
+    default <K, R> Map<K, R> aggregateBy(Function<? super A, ? extends K> key, Function<? super K, ? extends R> zero,
+                                         BiConsumer<? super R, ? super A> acc) {
+        Map<K, R> aggregates = new HashMap<>();
+        while (hasNext()) {
+            A elem = next();
+            acc.accept(aggregates.computeIfAbsent(key.apply(elem), zero), elem);
+        }
+        return aggregates;
+    }
+
+    /**
+     * same as aggregateBy, but every chunk of parallelStream() is aggregated into its own map on the thread that
+     * reads it and the maps are merged, the accumulators of a key with merge.
+     * the elements may reach the accumulators in any order.
+     * <p>
+     * for example:
+     * RichIterator.from(events).parallelAggregateBy(Event::customer, c -> new long[1], (n, e) -> n[0]++, (x, y) -> x[0] += y[0])
+     *
+     * @param key   the key of an element
+     * @param zero  creates the accumulator of a key
+     * @param acc   adds an element to its key's accumulator
+     * @param merge adds the second accumulator into the first
+     * @param <K>   the key type
+     * @param <R>   the accumulator type
+     * @return a map from every key to its accumulator
+     */
+    default <K, R> Map<K, R> parallelAggregateBy(Function<? super A, ? extends K> key, Function<? super K, ? extends R> zero,
+                                                 BiConsumer<? super R, ? super A> acc, BiConsumer<? super R, ? super R> merge) {
+        BiFunction<R, R, R> mergeInto = (x, y) -> {
+            merge.accept(x, y);
+            return x;
+        };
+        try (Stream<A> stream = parallelStream()) {
+            return stream.collect(Collector.of(HashMap::new,
+                    (Map<K, R> aggregates, A elem) -> acc.accept(aggregates.computeIfAbsent(key.apply(elem), zero), elem),
+                    (left, right) -> {
+                        right.forEach((k, r) -> left.merge(k, r, mergeInto));
+                        return left;
+                    },
+                    Collector.Characteristics.UNORDERED, Collector.Characteristics.IDENTITY_FINISH));
+        }
+    }
+
+    // joins
+
+    /**
+     * joins this iterator with other by key, in memory. other is the build side: its elements are put in a hash table
+     * and this iterator is streamed through it, so pass the smaller side as other.
+     * an inner join of two iterators that know their sizes builds on the smaller one whatever the order.
+     * the keys are compared with equals. the pairs come in the order of this iterator,
+     * or in the order of other when the join built on this iterator instead.
+     * <p>
+     * for example:
+     * RichIterator.from(orders).hashJoin(customers, Order::customerId, Customer::id, JoinType.LEFT_OUTER)
+     *
+     * @param other    the right side
+     * @param leftKey  the key of an element of this iterator
+     * @param rightKey the key of an element of other
+     * @param type     which pairs to return, see JoinType
+     * @param <B>      the type of other
+     * @param <K>      the key type
+     * @return an iterator of (left, right) pairs
+     */
+    default <B, K> RichIterator<Pair<A, B>> hashJoin(Iterator<B> other, Function<? super A, ? extends K> leftKey,
+                                                     Function<? super B, ? extends K> rightKey, JoinType type) {
+        return HashJoinIterator.join(this, other, leftKey, rightKey, type, Integer.MAX_VALUE, null, null, null);
+    }
+
+    /**
+     * same as hashJoin(other, leftKey, rightKey, type), but when other has more than memoryBudget elements
+     * both sides are partitioned by key to files in spillDirectory and joined partition by partition
+     * (a grace hash join), so the pairs come in no particular order.
+     * pass both serializers, or both null for a join that never spills.
+     * the files are deleted when the iterator is exhausted or closed.
+     * <p>
+     * for example:
+     * try (RichIterator<Pair<Click, User>> enriched = RichIterator.from(clicks).hashJoin(users, Click::userId, User::id,
+     *         JoinType.INNER, 1_000_000, clickSerializer, userSerializer, scratch)) {
+     *     enriched.foreach(...)
+     * }
+     *
+     * @param other           the right side
+     * @param leftKey         the key of an element of this iterator
+     * @param rightKey        the key of an element of other
+     * @param type            which pairs to return, see JoinType
+     * @param memoryBudget    the maximum number of right elements kept in memory
+     * @param leftSerializer  writes the spilled elements of this iterator and reads them back
+     * @param rightSerializer writes the spilled elements of other and reads them back
+     * @param spillDirectory  the directory for the partition files
+     * @param <B>             the type of other
+     * @param <K>             the key type
+     * @return an iterator of (left, right) pairs
+     * @throws IllegalArgumentException     if only one of the serializers is null
+     * @throws java.io.UncheckedIOException if the partition files cannot be written or read
+     */
+    default <B, K> RichIterator<Pair<A, B>> hashJoin(Iterator<B> other, Function<? super A, ? extends K> leftKey,
+                                                     Function<? super B, ? extends K> rightKey, JoinType type,
+                                                     int memoryBudget, Serializer<A> leftSerializer,
+                                                     Serializer<B> rightSerializer, Path spillDirectory) {
+        return HashJoinIterator.join(this, other, leftKey, rightKey, type, memoryBudget,
+                leftSerializer, rightSerializer, spillDirectory);
+    }
+
+    /**
+     * joins this iterator with other by key when both are sorted by key with the comparator, reading each once
+     * and keeping only the elements of other with the current key in memory.
+     * the pairs come in the order of this iterator.
+     * <p>
+     * for example:
+     * RichIterator.apply(1,2,2,4).mergeJoin(RichIterator.apply(2,3,4), x -> x, y -> y, Comparator.naturalOrder(), JoinType.INNER)
+     * // RichIterator((2, 2), (2, 2), (4, 4))
+     *
+     * @param other      the right side, sorted by rightKey
+     * @param leftKey    the key of an element of this iterator, sorted by it
+     * @param rightKey   the key of an element of other
+     * @param comparator the order of the keys
+     * @param type       which pairs to return, see JoinType
+     * @param <B>        the type of other
+     * @param <K>        the key type
+     * @return an iterator of (left, right) pairs
+     */
+    default <B, K> RichIterator<Pair<A, B>> mergeJoin(Iterator<B> other, Function<? super A, ? extends K> leftKey,
+                                                      Function<? super B, ? extends K> rightKey,
+                                                      Comparator<? super K> comparator, JoinType type) {
+        return new MergeJoinIterator<>(this, other, leftKey, rightKey, comparator, type);
+    }
+
+    // caching
+
+    /**
+     * the elements of this iterator as an iterable that can be traversed any number of times.
+     * the first traversal reads this iterator and keeps its elements in memory, the next ones read them from memory.
+     * nothing is read before the first hasNext().
+     * <p>
+     * for example:
+     * CachedIterable<Person> people = RichIterator.from(source).cache();
+     * double avg = people.iterator().mapToInt(p -> p.age).average().orElse(0);
+     * people.iterator().filter(p -> p.age > avg) ...
+     *
+     * @return a replayable iterable of the elements
+     */
+    default CachedIterable<A> cache() {
+        return new CachedIterable<>(this, Integer.MAX_VALUE, null, null);
+    }
+
+    /**
+     * same as cache(), but only the first memoryBudget elements are kept in memory, the rest are written with the
+     * serializer to a file in spillDirectory and read back from it by the next traversals.
+     * the file is deleted when the cache is closed.
+     * <p>
+     * for example:
+     * try (CachedIterable<String> words = RichIterator.lines(corpus, UTF_8).cache(1_000_000, Serializer.strings(), scratch)) {
+     *     words.iterator().foreach(...)
+     *     words.iterator().foreach(...)
+     * }
+     *
+     * @param memoryBudget   the maximum number of elements kept in memory
+     * @param serializer     writes the spilled elements and reads them back
+     * @param spillDirectory the directory for the file
+     * @return a replayable iterable of the elements
+     * @throws java.io.UncheckedIOException if the file cannot be written or read
+     */
+    default CachedIterable<A> cache(int memoryBudget, Serializer<A> serializer, Path spillDirectory) {
+        return new CachedIterable<>(this, memoryBudget, serializer, spillDirectory);
+    }
+
+    // tee
+
+    /**
+     * splits this iterator into n iterators that each return all its elements, reading this iterator once.
+     * an element is kept until every one of the n iterators has returned it (or was closed),
+     * so the memory used is the distance between the slowest and the fastest of them.
+     * the iterators can be read by different threads, one thread per iterator.
+     * this iterator is closed when it is exhausted or when all n iterators were closed.
+     * <p>
+     * for example:
+     * List<RichIterator<Integer>> ages = RichIterator.from(people).map(p -> p.age).tee(2);
+     * ages.get(0).foldLeft(...) and ages.get(1).max(...) on two threads
+     *
+     * @param n the number of iterators
+     * @return n iterators over the elements of this iterator
+     */
+    default List<RichIterator<A>> tee(int n) {
+        return new TeeBuffer<>(this, n, Integer.MAX_VALUE, false).readers();
+    }
+
+    /**
+     * same as tee(n), but an iterator is never more than maxLag elements ahead of the slowest open one,
+     * so at most maxLag elements (plus a segment) are kept.
+     * an iterator that gets there either waits until the slowest one moves (block, for iterators on separate
+     * threads: a single thread reading all of them would wait forever) or throws IllegalStateException.
+     *
+     * @param n      the number of iterators
+     * @param maxLag the maximum number of elements between the slowest and the fastest iterator
+     * @param block  true to wait for the slowest iterator, false to throw
+     * @return n iterators over the elements of this iterator
+     * @throws IllegalStateException by next() of an iterator that is maxLag elements ahead, when not block
+     */
+    default List<RichIterator<A>> tee(int n, int maxLag, boolean block) {
+        return new TeeBuffer<>(this, n, maxLag, block).readers();
+    }
+
+    /**
+     * @return the two iterators of tee(2)
+     */
+    default Pair<RichIterator<A>, RichIterator<A>> duplicate() {
+        List<RichIterator<A>> tee = tee(2);
+        return Pair.apply(tee.get(0), tee.get(1));
+    }
+
+    // metrics
+
+    /**
+     * marks the end of a stage of a pipeline: counts the elements that pass and the time spent getting them,
+     * and publishes them over JMX as iterator:type=Pipeline,pipeline="pipeline",stage="stage" (see StageMetricsMBean).
+     * the elements in, selectivity and time in stage of a stage are measured against the stage marked before it,
+     * so marking the pipeline after every operator of interest gives the numbers of each operator.
+     * when metering is off (see PipelineMetrics) this iterator is returned as is and costs nothing.
+     * <p>
+     * for example:
+     * RichIterator.lines(log, UTF_8).metered("errors", "read")
+     *     .map(Record::parse).metered("errors", "parse")
+     *     .filter(Record::isError).metered("errors", "filter")
+     *
+     * @param pipeline the pipeline name
+     * @param stage    the stage name
+     * @return an iterator with the same elements
+     */
+    default RichIterator<A> metered(String pipeline, String stage) {
+        if (!PipelineMetrics.isEnabled()) {
+            return this;
+        }
+        return new MeteredIterator<>(this, PipelineMetrics.stage(pipeline, stage));
+    }
+
 }
@@ -0,0 +1,121 @@
+package iterator;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes elements to and reads them back from a binary stream, used by the operators that spill to disk.
+ * read has to return the elements in the same order and in the same form write got them.
+ *
+ * @param <A> the type
+ */
+public interface Serializer<A> {
+    /**
+     * @param out  the stream
+     * @param elem the element to write
+     * @throws IOException if the stream fails
+     */
+    void write(DataOutput out, A elem) throws IOException;
+
+    /**
+     * @param in the stream
+     * @return the next element written to the stream
+     * @throws IOException if the stream fails
+     */
+    A read(DataInput in) throws IOException;
+
+    /**
+     * @return a serializer for non null Integers
+     */
+    static Serializer<Integer> ints() {
+        return new Serializer<Integer>() {
+            @Override
+            public void write(DataOutput out, Integer elem) throws IOException {
+                out.writeInt(elem);
+            }
+
+            @Override
+            public Integer read(DataInput in) throws IOException {
+                return in.readInt();
+            }
+        };
+    }
+
+    /**
+     * @return a serializer for non null Longs
+     */
+    static Serializer<Long> longs() {
+        return new Serializer<Long>() {
+            @Override
+            public void write(DataOutput out, Long elem) throws IOException {
+                out.writeLong(elem);
+            }
+
+            @Override
+            public Long read(DataInput in) throws IOException {
+                return in.readLong();
+            }
+        };
+    }
+
+    /**
+     * @return a serializer for non null Strings of any length, as UTF-8
+     */
+    static Serializer<String> strings() {
+        return new Serializer<String>() {
+            @Override
+            public void write(DataOutput out, String elem) throws IOException {
+                byte[] bytes = elem.getBytes(StandardCharsets.UTF_8);
+                out.writeInt(bytes.length);
+                out.write(bytes);
+            }
+
+            @Override
+            public String read(DataInput in) throws IOException {
+                byte[] bytes = new byte[in.readInt()];
+                in.readFully(bytes);
+                return new String(bytes, StandardCharsets.UTF_8);
+            }
+        };
+    }
+
+    /**
+     * a serializer for any Serializable element through Java serialization.
+     * every element is serialized on its own, which is a lot slower and bigger than a serializer written for the type.
+     *
+     * @param <A> the type
+     * @return the serializer
+     */
+    static <A extends Serializable> Serializer<A> java() {
+        return new Serializer<A>() {
+            @Override
+            public void write(DataOutput out, A elem) throws IOException {
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                try (ObjectOutputStream objects = new ObjectOutputStream(bytes)) {
+                    objects.writeObject(elem);
+                }
+                out.writeInt(bytes.size());
+                out.write(bytes.toByteArray());
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public A read(DataInput in) throws IOException {
+                byte[] bytes = new byte[in.readInt()];
+                in.readFully(bytes);
+                try (ObjectInputStream objects = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+                    return (A) objects.readObject();
+                } catch (ClassNotFoundException e) {
+                    throw new IOException(e);
+                }
+            }
+        };
+    }
+}
@@ -0,0 +1,69 @@
+package iterator;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.NoSuchElementException;
+
+/**
+ * Reads back count elements that were written to a spill file with a serializer.
+ * The file is opened when the iterator is created and closed after its last element, it is not deleted.
+ */
+class SpillFileIterator<A> implements RichIterator<A> {
+    private final Serializer<A> serializer;
+    private DataInputStream in;
+    private long remaining;
+
+    SpillFileIterator(Path file, long count, Serializer<A> serializer, int bufferSize) {
+        this.serializer = serializer;
+        this.remaining = count;
+        try {
+            this.in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), bufferSize));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        return remaining > 0;
+    }
+
+    @Override
+    public A next() {
+        if (remaining <= 0) {
+            throw new NoSuchElementException();
+        }
+        try {
+            A elem = serializer.read(in);
+            if (--remaining == 0) {
+                close();
+            }
+            return elem;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public int knownSize() {
+        return remaining <= Integer.MAX_VALUE ? (int) remaining : -1;
+    }
+
+    @Override
+    public void close() {
+        remaining = 0;
+        if (in != null) {
+            try {
+                in.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } finally {
+                in = null;
+            }
+        }
+    }
+}
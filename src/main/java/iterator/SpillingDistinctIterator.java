@@ -0,0 +1,242 @@
+package iterator;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * An exact distinct that keeps at most memoryBudget elements in memory and stays lazy.
+ * <p>
+ * The first memoryBudget distinct elements are remembered in a HashSet and returned as they come.
+ * When a new element does not fit anymore the set is written to PARTITIONS files by the hash of the element
+ * (so equal elements end up in the same partition) and the rest of the source is read in chunks of up to
+ * memoryBudget elements. The partitions of the elements of a chunk are read back one record at a time and
+ * every chunk element found there is dropped, the elements that are left are new: they are written to their
+ * partitions and returned in the order of the source, before the next chunk is read.
+ * <p>
+ * So at most one chunk is read ahead of the consumer, and an infinite source works as well as a finite one.
+ * The trade-off is that a chunk reads every partition one of its elements hashes to, which is most of what was
+ * spilled: the work grows with (source size / memoryBudget) * distinct elements, so the budget should be as large
+ * as memory allows.
+ * <p>
+ * The elements are written with the given serializer. The files are deleted when the iterator is exhausted or closed.
+ */
+class SpillingDistinctIterator<A> implements RichIterator<A> {
+    private static final int PARTITIONS = 64;
+    private static final int BUFFER_SIZE = 8 * 1024;
+
+    private final Iterator<A> source;
+    private final int memoryBudget;
+    private final Serializer<A> serializer;
+    private final Path directory;
+    // the elements returned before the spill
+    private Set<A> seen = new HashSet<>();
+    // the elements returned so far by hash, null before the spill
+    private Partition[] partitions;
+    // the new elements of the current chunk
+    private Iterator<A> survivors;
+    private boolean sourceClosed;
+
+    private boolean ready;
+    private A head;
+    private boolean closed;
+
+    SpillingDistinctIterator(Iterator<A> source, int memoryBudget, Serializer<A> serializer, Path directory) {
+        if (memoryBudget <= 0) {
+            throw new IllegalArgumentException("memoryBudget must be positive: " + memoryBudget);
+        }
+        this.source = source;
+        this.memoryBudget = memoryBudget;
+        this.serializer = serializer;
+        this.directory = directory;
+    }
+
+    /**
+     * A partition file, appended to after every chunk and read back by the chunks with elements of its hash.
+     */
+    private static final class Partition {
+        final Path file;
+        final DataOutputStream out;
+        long count;
+
+        Partition(Path file) throws IOException {
+            this.file = file;
+            this.out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), BUFFER_SIZE));
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (closed) {
+            return false;
+        }
+        try {
+            while (!ready && partitions == null && source.hasNext()) {
+                A elem = source.next();
+                if (seen.contains(elem)) {
+                    continue;
+                }
+                if (seen.size() < memoryBudget) {
+                    seen.add(elem);
+                    head = elem;
+                    ready = true;
+                } else {
+                    spill();
+                    chunk(elem);
+                }
+            }
+            while (!ready && partitions != null) {
+                if (survivors.hasNext()) {
+                    head = survivors.next();
+                    ready = true;
+                } else if (source.hasNext()) {
+                    chunk(source.next());
+                } else {
+                    break;
+                }
+            }
+        } catch (IOException e) {
+            close();
+            throw new UncheckedIOException(e);
+        }
+        if (!ready) {
+            close();
+        }
+        return ready;
+    }
+
+    @Override
+    public A next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        A elem = head;
+        head = null;
+        ready = false;
+        return elem;
+    }
+
+    // murmur3's finalizer over the hashCode
+    private int partitionOf(Object elem) {
+        int h = Objects.hashCode(elem);
+        h ^= h >>> 16;
+        h *= 0x85EBCA6B;
+        h ^= h >>> 13;
+        h *= 0xC2B2AE35;
+        h ^= h >>> 16;
+        return (int) (((h & 0xFFFFFFFFL) * partitions.length) >>> 32);
+    }
+
+    private void write(A elem) throws IOException {
+        Partition partition = partitions[partitionOf(elem)];
+        serializer.write(partition.out, elem);
+        partition.count++;
+    }
+
+    // writes the elements returned so far to the partitions
+    private void spill() throws IOException {
+        partitions = new Partition[Math.min(PARTITIONS, memoryBudget)];
+        for (int i = 0; i < partitions.length; i++) {
+            partitions[i] = new Partition(Files.createTempFile(directory, "distinct", ".spill"));
+        }
+        for (A elem : seen) {
+            write(elem);
+        }
+        seen = null;
+    }
+
+    // reads a chunk that starts with first and keeps its elements that were not returned before
+    private void chunk(A first) throws IOException {
+        Set<A> chunk = new LinkedHashSet<>();
+        chunk.add(first);
+        for (int read = 1; read < memoryBudget && source.hasNext(); read++) {
+            chunk.add(source.next());
+        }
+        if (!source.hasNext()) {
+            closeSource();
+        }
+        boolean[] touched = new boolean[partitions.length];
+        for (A elem : chunk) {
+            touched[partitionOf(elem)] = true;
+        }
+        for (int i = 0; i < partitions.length && !chunk.isEmpty(); i++) {
+            Partition partition = partitions[i];
+            if (!touched[i] || partition.count == 0) {
+                continue;
+            }
+            partition.out.flush();
+            try (RichIterator<A> spilled = new SpillFileIterator<>(partition.file, partition.count, serializer, BUFFER_SIZE)) {
+                while (spilled.hasNext() && !chunk.isEmpty()) {
+                    chunk.remove(spilled.next());
+                }
+            }
+        }
+        for (A elem : chunk) {
+            write(elem);
+        }
+        survivors = new ArrayList<>(chunk).iterator();
+    }
+
+    private void closeSource() {
+        if (!sourceClosed) {
+            sourceClosed = true;
+            Wrapper.close(source);
+        }
+    }
+
+    /**
+     * closes the source and deletes the files
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        ready = false;
+        head = null;
+        seen = null;
+        survivors = null;
+        try {
+            deleteFiles();
+        } finally {
+            closeSource();
+        }
+    }
+
+    private void deleteFiles() {
+        if (partitions == null) {
+            return;
+        }
+        IOException failure = null;
+        for (Partition partition : partitions) {
+            if (partition == null) {
+                continue;
+            }
+            try {
+                partition.out.close();
+            } catch (IOException e) {
+                failure = e;
+            }
+            try {
+                Files.deleteIfExists(partition.file);
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+        partitions = null;
+        if (failure != null) {
+            throw new UncheckedIOException(failure);
+        }
+    }
+}
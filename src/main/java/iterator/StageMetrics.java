@@ -0,0 +1,112 @@
+package iterator;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The counters of a stage, shared by every iterator built with the same pipeline and stage names,
+ * which may run on several threads at the same time.
+ * <p>
+ * Every counter is a LongAdder, a striped counter: threads that add at the same time add to different cells,
+ * so recording takes no lock and rarely contends, and the cells are only summed when the MBean is read.
+ * The latency histogram has one counter per power of 2 of nanoseconds.
+ */
+class StageMetrics implements StageMetricsMBean {
+    private static final int BUCKETS = 64;
+
+    // the stage before this one in the pipeline, null for the first
+    private final StageMetrics previous;
+    private final LongAdder elements = new LongAdder();
+    private final LongAdder nanos = new LongAdder();
+    private final LongAdder[] histogram = new LongAdder[BUCKETS];
+
+    StageMetrics(StageMetrics previous) {
+        this.previous = previous;
+        for (int i = 0; i < BUCKETS; i++) {
+            histogram[i] = new LongAdder();
+        }
+    }
+
+    // count elements produced in elapsed nanoseconds
+    void record(int count, long elapsed) {
+        elements.add(count);
+        nanos.add(elapsed);
+        if (count > 0) {
+            histogram[BUCKETS - Long.numberOfLeadingZeros(Math.max(0, elapsed / count))].add(count);
+        }
+    }
+
+    // time spent without producing an element, e.g. the last hasNext()
+    void recordIdle(long elapsed) {
+        nanos.add(elapsed);
+    }
+
+    @Override
+    public long getElementsIn() {
+        return previous == null ? getElementsOut() : previous.getElementsOut();
+    }
+
+    @Override
+    public long getElementsOut() {
+        return elements.sum();
+    }
+
+    @Override
+    public double getSelectivity() {
+        long in = getElementsIn();
+        return in == 0 ? 1 : (double) getElementsOut() / in;
+    }
+
+    @Override
+    public long getTotalNanos() {
+        return nanos.sum();
+    }
+
+    @Override
+    public long getNanosInStage() {
+        long total = getTotalNanos();
+        return previous == null ? total : Math.max(0, total - previous.getTotalNanos());
+    }
+
+    @Override
+    public double getThroughput() {
+        long total = getTotalNanos();
+        return total == 0 ? 0 : getElementsOut() * 1e9 / total;
+    }
+
+    @Override
+    public long getLatencyP50Nanos() {
+        return percentile(0.5);
+    }
+
+    @Override
+    public long getLatencyP99Nanos() {
+        return percentile(0.99);
+    }
+
+    // the upper bound of the bucket of the percentile
+    private long percentile(double p) {
+        long[] counts = getLatencyHistogram();
+        long total = 0;
+        for (long count : counts) {
+            total += count;
+        }
+        long rank = (long) Math.ceil(total * p);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank && seen > 0) {
+                return i == 0 ? 0 : i == BUCKETS - 1 ? Long.MAX_VALUE : 1L << i;
+            }
+        }
+        return 0;
+    }
+
+    @Override
+    public long[] getLatencyHistogram() {
+        long[] counts = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = histogram[i].sum();
+        }
+        return counts;
+    }
+}
@@ -0,0 +1,54 @@
+package iterator;
+
+/**
+ * The JMX view of a stage of a metered pipeline, see RichIterator.metered.
+ * The times are the nanoseconds spent in hasNext()/next() of the iterator before the stage, so they include
+ * the user functions of the operators before it. The "in stage" values subtract the previous stage of the pipeline,
+ * which leaves the operators between the two stages.
+ */
+public interface StageMetricsMBean {
+    /**
+     * @return the elements that came out of the previous stage, or out of this one for the first stage
+     */
+    long getElementsIn();
+
+    /**
+     * @return the elements that came out of this stage
+     */
+    long getElementsOut();
+
+    /**
+     * @return elements out / elements in, 1 before the first element
+     */
+    double getSelectivity();
+
+    /**
+     * @return the nanoseconds spent producing the elements of this stage, the stages before it included
+     */
+    long getTotalNanos();
+
+    /**
+     * @return the nanoseconds spent in the operators between the previous stage and this one
+     */
+    long getNanosInStage();
+
+    /**
+     * @return elements out per second of total time
+     */
+    double getThroughput();
+
+    /**
+     * @return the median time to produce an element, rounded up to a power of 2
+     */
+    long getLatencyP50Nanos();
+
+    /**
+     * @return the 99th percentile of the time to produce an element, rounded up to a power of 2
+     */
+    long getLatencyP99Nanos();
+
+    /**
+     * @return the number of elements that took [2^(i-1), 2^i) nanoseconds at index i (0 nanoseconds at index 0)
+     */
+    long[] getLatencyHistogram();
+}
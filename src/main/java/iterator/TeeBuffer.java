@@ -0,0 +1,306 @@
+package iterator;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * One source read by n readers, each reader gets every element.
+ * <p>
+ * The elements are appended to a linked list of segments of SEGMENT elements and published by a counter,
+ * every reader keeps its own segment and cursor, so reading an element that is already there takes no lock
+ * and no CAS: a volatile read of the counter and an ordered write of the reader's cursor.
+ * Nothing else points to the first segments, so a segment is garbage once every reader has passed it,
+ * and the buffer holds the elements between the slowest and the fastest reader.
+ * <p>
+ * The reader that needs an element that is not there yet takes the puller flag (a CAS) and reads up to BATCH
+ * elements from the source, the others wait for them by spinning and then parking. The puller does not read
+ * more than maxLag elements past the slowest open reader: it then either waits for the slowest reader (block)
+ * or throws IllegalStateException (fail). A reader that is closed no longer holds the others back,
+ * the source is closed when it is exhausted or fails, or when all the readers were closed.
+ */
+class TeeBuffer<A> {
+    private static final int SEGMENT = 1024;
+    private static final int MASK = SEGMENT - 1;
+    private static final int BATCH = 64;
+    private static final int SPINS = 100;
+    private static final long PARK_NANOS = 1_000_000;
+
+    private final Iterator<A> source;
+    private final int maxLag;
+    private final boolean block;
+
+    // the number of elements appended, published by the puller
+    private final AtomicLong written = new AtomicLong();
+    // the cursor of every reader, Long.MAX_VALUE once it was closed
+    private final AtomicLongArray cursors;
+    private final AtomicInteger open;
+    private final AtomicBoolean pulling = new AtomicBoolean();
+    private volatile boolean finished;
+    private volatile Throwable failure;
+    private volatile Thread parked;
+
+    // puller side, guarded by pulling
+    private Segment tail = new Segment();
+    // a lower bound of the slowest cursor
+    private long slowest;
+    private boolean sourceClosed;
+
+    private final List<RichIterator<A>> readers;
+
+    private static final class Segment {
+        final Object[] elems = new Object[SEGMENT];
+        Segment next;
+    }
+
+    TeeBuffer(Iterator<A> source, int n, int maxLag, boolean block) {
+        if (n <= 0) {
+            throw new IllegalArgumentException("n must be positive: " + n);
+        }
+        if (maxLag <= 0) {
+            throw new IllegalArgumentException("maxLag must be positive: " + maxLag);
+        }
+        this.source = source;
+        this.maxLag = maxLag;
+        this.block = block;
+        this.cursors = new AtomicLongArray(n);
+        this.open = new AtomicInteger(n);
+        List<RichIterator<A>> readers = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            readers.add(new Reader(i, tail));
+        }
+        this.readers = Collections.unmodifiableList(readers);
+    }
+
+    List<RichIterator<A>> readers() {
+        return readers;
+    }
+
+    // waits until element cursor was appended, false if the source has no more elements
+    private boolean await(long cursor) {
+        for (int spins = 0; ; spins++) {
+            if (cursor < written.get()) {
+                return true;
+            }
+            if (finished) {
+                // the puller appends its last elements before it finishes
+                if (cursor < written.get()) {
+                    return true;
+                }
+                Throwable e = failure;
+                if (e instanceof RuntimeException) {
+                    throw (RuntimeException) e;
+                }
+                if (e instanceof Error) {
+                    throw (Error) e;
+                }
+                if (e != null) {
+                    throw new IllegalStateException(e);
+                }
+                return false;
+            }
+            if (pulling.compareAndSet(false, true)) {
+                boolean appended;
+                try {
+                    appended = cursor < written.get() || finished || pull();
+                } finally {
+                    pulling.set(false);
+                }
+                if (appended) {
+                    spins = 0;
+                    continue;
+                }
+            }
+            if (spins < SPINS) {
+                Thread.yield();
+            } else {
+                parked = Thread.currentThread();
+                if (cursor == written.get() && !finished) {
+                    LockSupport.parkNanos(this, PARK_NANOS);
+                }
+                parked = null;
+            }
+        }
+    }
+
+    // appends up to BATCH elements, false if the slowest reader is maxLag elements behind in block mode
+    private boolean pull() {
+        long write = written.get();
+        long limit = slowest + maxLag;
+        if (write >= limit) {
+            slowest = slowest();
+            limit = slowest == Long.MAX_VALUE ? Long.MAX_VALUE : slowest + maxLag;
+            if (write >= limit) {
+                if (block) {
+                    return false;
+                }
+                throw new IllegalStateException("a reader of tee is " + maxLag + " elements ahead of the slowest one");
+            }
+        }
+        long end = Math.min(limit, write + BATCH);
+        try {
+            while (write < end && source.hasNext()) {
+                A elem = source.next();
+                int offset = (int) (write & MASK);
+                if (offset == 0 && write != 0) {
+                    tail.next = new Segment();
+                    tail = tail.next;
+                }
+                tail.elems[offset] = elem;
+                written.set(++write);
+            }
+            if (write < end) {
+                finish(null);
+            }
+        } catch (Throwable e) {
+            finish(e);
+        }
+        wakeUp();
+        return true;
+    }
+
+    private long slowest() {
+        long min = Long.MAX_VALUE;
+        for (int i = 0; i < cursors.length(); i++) {
+            min = Math.min(min, cursors.get(i));
+        }
+        return min;
+    }
+
+    // closes the source, under the puller flag
+    private void finish(Throwable e) {
+        failure = e;
+        try {
+            if (!sourceClosed) {
+                sourceClosed = true;
+                Wrapper.close(source);
+            }
+        } catch (Throwable closeFailure) {
+            if (failure == null) {
+                failure = closeFailure;
+            }
+        } finally {
+            finished = true;
+        }
+    }
+
+    private void wakeUp() {
+        Thread waiting = parked;
+        if (waiting != null) {
+            LockSupport.unpark(waiting);
+        }
+    }
+
+    private void closeReader(int i) {
+        cursors.set(i, Long.MAX_VALUE);
+        if (open.decrementAndGet() == 0) {
+            while (!pulling.compareAndSet(false, true)) {
+                Thread.yield();
+            }
+            try {
+                if (!finished) {
+                    finish(null);
+                }
+            } finally {
+                pulling.set(false);
+            }
+        }
+        wakeUp();
+    }
+
+    private class Reader implements RichIterator<A> {
+        private final int index;
+        private Segment segment;
+        private long cursor;
+        private boolean closed;
+
+        Reader(int index, Segment first) {
+            this.index = index;
+            this.segment = first;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (closed) {
+                return false;
+            }
+            if (cursor < written.get() || await(cursor)) {
+                return true;
+            }
+            close();
+            return false;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public A next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            int offset = (int) (cursor & MASK);
+            if (offset == 0 && cursor != 0) {
+                segment = segment.next;
+            }
+            A elem = (A) segment.elems[offset];
+            cursors.lazySet(index, ++cursor);
+            if (parked != null) {
+                wakeUp();
+            }
+            return elem;
+        }
+
+        @Override
+        public int nextChunk(Object[] dest, int offset, int max) {
+            int n = 0;
+            while (n < max && hasNext()) {
+                // copy what was appended of the current segment in one go
+                int from = (int) (cursor & MASK);
+                if (from == 0 && cursor != 0) {
+                    segment = segment.next;
+                }
+                int count = (int) Math.min(Math.min(max - n, SEGMENT - from), written.get() - cursor);
+                System.arraycopy(segment.elems, from, dest, offset + n, count);
+                n += count;
+                cursor += count;
+                cursors.lazySet(index, cursor);
+                if (parked != null) {
+                    wakeUp();
+                }
+            }
+            return n;
+        }
+
+        @Override
+        public int knownSize() {
+            if (closed) {
+                return 0;
+            }
+            if (finished && failure == null) {
+                long remaining = written.get() - cursor;
+                return remaining <= Integer.MAX_VALUE ? (int) remaining : -1;
+            }
+            return -1;
+        }
+
+        /**
+         * this reader no longer gets elements and no longer holds the others back,
+         * the source is closed with the last reader
+         */
+        @Override
+        public void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            segment = null;
+            closeReader(index);
+        }
+    }
+}
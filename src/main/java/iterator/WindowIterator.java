@@ -0,0 +1,132 @@
+package iterator;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+
+/**
+ * Windows of size elements, every window starts step elements after the previous one.
+ * <p>
+ * The elements of the current window are kept in a ring of size slots, sliding drops the first step elements
+ * (and skips the source elements between the windows when step > size) and reads the missing ones,
+ * so every source element is read once and the window is never copied inside the iterator.
+ * The last window may be shorter, it is returned only if it has elements that no previous window had.
+ * <p>
+ * In views mode every window is the same read-only List over the ring, in safe mode a new unmodifiable list.
+ */
+class WindowIterator<A> implements RichIterator<List<A>> {
+    private final Iterator<A> source;
+    private final int size;
+    private final int step;
+    private final boolean views;
+    private final Object[] ring;
+    private final View view = new View();
+
+    // the ring position of the window's first element and the number of elements in the window
+    private int start;
+    private int count;
+    private boolean first = true;
+    private boolean ready;
+    private boolean done;
+    private boolean closed;
+
+    WindowIterator(Iterator<A> source, int size, int step, boolean views) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("size must be positive: " + size);
+        }
+        if (step <= 0) {
+            throw new IllegalArgumentException("step must be positive: " + step);
+        }
+        this.source = source;
+        this.size = size;
+        this.step = step;
+        this.views = views;
+        this.ring = new Object[size];
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (ready || done) {
+            return ready;
+        }
+        if (!first) {
+            int drop = Math.min(step, count);
+            for (int i = 0; i < drop; i++) {
+                ring[(start + i) % size] = null;
+            }
+            start = (start + drop) % size;
+            count -= drop;
+            for (int skip = step - drop; skip > 0 && source.hasNext(); skip--) {
+                source.next();
+            }
+        }
+        first = false;
+        boolean fresh = false;
+        while (count < size && source.hasNext()) {
+            ring[(start + count) % size] = source.next();
+            count++;
+            fresh = true;
+        }
+        if (!fresh) {
+            done = true;
+            count = 0;
+            Arrays.fill(ring, null);
+            return false;
+        }
+        ready = true;
+        return true;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<A> next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        ready = false;
+        if (views) {
+            return view;
+        }
+        Object[] window = new Object[count];
+        for (int i = 0; i < count; i++) {
+            window[i] = ring[(start + i) % size];
+        }
+        return Collections.unmodifiableList(Arrays.asList((A[]) window));
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        done = true;
+        ready = false;
+        count = 0;
+        Arrays.fill(ring, null);
+        Wrapper.close(source);
+    }
+
+    /**
+     * The current window, valid until the next call to hasNext() or next().
+     */
+    private class View extends AbstractList<A> implements RandomAccess {
+        @Override
+        @SuppressWarnings("unchecked")
+        public A get(int index) {
+            if (index < 0 || index >= count) {
+                throw new IndexOutOfBoundsException("index " + index + ", size " + count);
+            }
+            return (A) ring[(start + index) % size];
+        }
+
+        @Override
+        public int size() {
+            return count;
+        }
+    }
+}
@@ -1,23 +1,131 @@
 package iterator;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
 
 class Wrapper<A> implements RichIterator<A>{
     private final Iterator<A> itr;
+    // remaining elements when the size of the source is known, -1 otherwise
+    private int remaining;
+    // runs after itr was closed, may be null
+    private final Runnable onClose;
+    private boolean closed;
 
     protected Wrapper(Iterator<A> itr) {
+        this(itr, -1, null);
+    }
+
+    protected Wrapper(Iterator<A> itr, int size) {
+        this(itr, size, null);
+    }
+
+    protected Wrapper(Iterator<A> itr, Runnable onClose) {
+        this(itr, -1, onClose);
+    }
+
+    private Wrapper(Iterator<A> itr, int size, Runnable onClose) {
         this.itr = itr;
+        this.remaining = size;
+        this.onClose = onClose;
     }
 
     @Override
     public boolean hasNext() {
-        return itr.hasNext();
+        return !closed && itr.hasNext();
     }
 
     @Override
     public A next() {
-        return itr.next();
+        if (closed) {
+            throw new NoSuchElementException();
+        }
+        A elem = itr.next();
+        if (remaining > 0) {
+            remaining--;
+        }
+        return elem;
     }
 
+    @Override
+    public int knownSize() {
+        if (closed) {
+            return 0;
+        }
+        if (remaining >= 0) {
+            return remaining;
+        }
+        if (itr instanceof RichIterator) {
+            return ((RichIterator<A>) itr).knownSize();
+        }
+        return -1;
+    }
+
+    @Override
+    public int nextChunk(Object[] dest, int offset, int max) {
+        int n = 0;
+        if (closed) {
+            return n;
+        }
+        if (itr instanceof RichIterator) {
+            n = ((RichIterator<A>) itr).nextChunk(dest, offset, max);
+        } else {
+            while (n < max && itr.hasNext()) {
+                dest[offset + n++] = itr.next();
+            }
+        }
+        if (remaining > 0) {
+            remaining -= n;
+        }
+        return n;
+    }
+
+    @Override
+    public Spliterator<A> spliterator() {
+        if (closed) {
+            return Spliterators.emptySpliterator();
+        }
+        if (itr instanceof RichIterator) {
+            return ((RichIterator<A>) itr).spliterator();
+        }
+        return RichIterator.super.spliterator();
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            close(itr);
+        } finally {
+            if (onClose != null) {
+                onClose.run();
+            }
+        }
+    }
+
+    /**
+     * closes the given iterator if it is AutoCloseable (a RichIterator, a Scanner...), does nothing otherwise.
+     * checked exceptions are rethrown unchecked.
+     */
+    static void close(Iterator<?> itr) {
+        if (!(itr instanceof AutoCloseable)) {
+            return;
+        }
+        try {
+            ((AutoCloseable) itr).close();
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
 
 }
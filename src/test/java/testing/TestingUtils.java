@@ -2,6 +2,9 @@ package testing;
 
 import iterator.RichIterator;
 
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Objects;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
@@ -24,6 +27,29 @@ public class TestingUtils {
     public static RichIterator<Integer> naturalNumbers() {
         return RichIterator.from(Stream.iterate(0, x -> x + 1).iterator());
     }
+
+    /**
+     * @return the remaining elements of the iterator, in order
+     */
+    public static <A> List<A> drain(Iterator<A> itr) {
+        List<A> lst = new ArrayList<>();
+        while (itr.hasNext()) {
+            lst.add(itr.next());
+        }
+        return lst;
+    }
+
+    /**
+     * @return 0, 1, ..., n - 1
+     */
+    public static List<Integer> range(int n) {
+        List<Integer> lst = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            lst.add(i);
+        }
+        return lst;
+    }
+
     public static <A,R>  CountableFunction<A,R> toCountableFunction(Function<A,R> f) {
         return new CountableFunction<>(f);
     }
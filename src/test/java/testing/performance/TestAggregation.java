@@ -0,0 +1,71 @@
+package testing.performance;
+
+import iterator.RichIterator;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.testng.Assert.*;
+import static testing.TestingUtils.*;
+
+public class TestAggregation {
+    @Test(timeOut = 1000)
+    public void groupByTest() {
+        Map<Character, List<String>> expected = new HashMap<>();
+        expected.put('a', Collections.singletonList("ant"));
+        expected.put('b', Collections.singletonList("bee"));
+        expected.put('c', Arrays.asList("cat", "cow"));
+        assertEquals(expected, RichIterator.apply("ant", "bee", "cat", "cow").groupBy(s -> s.charAt(0)));
+        assertEquals(Collections.emptyMap(), RichIterator.empty().groupBy(x -> x));
+    }
+
+    @Test(timeOut = 1000)
+    public void countAndSumTest() {
+        Map<Boolean, Long> counts = basicTestIterator().countBy(x -> x % 2 == 0);
+        assertEquals(3L, counts.get(false).longValue());
+        assertEquals(2L, counts.get(true).longValue());
+        Map<Boolean, Long> sums = basicTestIterator().sumLongBy(x -> x % 2 == 0, x -> x);
+        assertEquals(9L, sums.get(false).longValue());
+        assertEquals(6L, sums.get(true).longValue());
+        Map<Integer, Double> halves = basicTestIterator().sumDoubleBy(x -> x % 2, x -> x / 2.0);
+        assertEquals(4.5, halves.get(1), 1e-9);
+        assertEquals(3.0, halves.get(0), 1e-9);
+    }
+
+    @Test(timeOut = 1000)
+    public void aggregateByTest() {
+        AtomicInteger created = new AtomicInteger();
+        Map<Integer, int[]> minMax = RichIterator.from(range(1000)).aggregateBy(x -> x % 10, k -> {
+            created.incrementAndGet();
+            return new int[]{Integer.MAX_VALUE, Integer.MIN_VALUE};
+        }, (acc, x) -> {
+            acc[0] = Math.min(acc[0], x);
+            acc[1] = Math.max(acc[1], x);
+        });
+        assertEquals(10, created.get());
+        for (int k = 0; k < 10; k++) {
+            assertEquals(new int[]{k, 990 + k}, minMax.get(k));
+        }
+    }
+
+    @Test(timeOut = 5000)
+    public void parallelAggregateByTest() {
+        List<Integer> input = range(100_000);
+        Map<Integer, Long> expected = RichIterator.from(input).countBy(x -> x % 7);
+        Map<Integer, long[]> counts = RichIterator.from(input)
+                .parallelAggregateBy(x -> x % 7, k -> new long[1], (n, x) -> n[0]++, (x, y) -> x[0] += y[0]);
+        assertEquals(expected.keySet(), counts.keySet());
+        for (Map.Entry<Integer, Long> entry : expected.entrySet()) {
+            assertEquals(entry.getValue().longValue(), counts.get(entry.getKey())[0]);
+        }
+        Map<Integer, List<Integer>> groups = RichIterator.from(input).parallelAggregateBy(x -> x % 3, k -> new ArrayList<>(),
+                List::add, List::addAll);
+        assertEquals(100_000, groups.values().stream().mapToInt(List::size).sum());
+    }
+}
@@ -0,0 +1,149 @@
+package testing.performance;
+
+import iterator.RichIterator;
+import iterator.Serializer;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.testng.Assert.*;
+import static testing.TestingUtils.*;
+
+public class TestBoundedDistinct {
+    private Path directory;
+
+    @BeforeMethod
+    public void createDirectory() throws IOException {
+        directory = Files.createTempDirectory("distinct");
+    }
+
+    @AfterMethod
+    public void deleteDirectory() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            files.forEach(file -> file.toFile().delete());
+        }
+        Files.delete(directory);
+    }
+
+    private long spillFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.count();
+        }
+    }
+
+    @Test(timeOut = 1000)
+    public void approximateTest() {
+        assertEquals(Arrays.asList(1, 2, 3, 4), drain(RichIterator.apply(1, 2, 3, 3, 2, 1, 4).distinctApproximate(100, 0.01)));
+        assertFalse(RichIterator.empty().distinctApproximate(100, 0.01).hasNext());
+    }
+
+    @Test(timeOut = 1000)
+    public void approximateFalsePositiveRateTest() {
+        int n = 10_000;
+        RichIterator<Integer> itr = naturalNumbers().fused().take(n).distinctApproximate(n, 0.01);
+        int distinct = 0;
+        int previous = 0;
+        while (itr.hasNext()) {
+            int elem = itr.next();
+            assertTrue(elem >= previous);
+            previous = elem;
+            distinct++;
+        }
+        assertTrue(distinct > n * 0.97, "kept " + distinct);
+    }
+
+    @Test(timeOut = 1000)
+    public void approximateLongHashTest() {
+        // the same hashCode(), different longs
+        long other = 0x1_0000_0001L;
+        assertEquals(Arrays.asList(0L), drain(RichIterator.apply(0L, other, 0L).distinctApproximate(100, 0.01)));
+        assertEquals(Arrays.asList(0L, other), drain(RichIterator.apply(0L, other, 0L).distinctApproximate(100, 0.01, id -> id)));
+    }
+
+    @Test(timeOut = 1000, expectedExceptions = IllegalArgumentException.class)
+    public void approximateBadRateTest() {
+        basicTestIterator().distinctApproximate(10, 1);
+    }
+
+    @Test(timeOut = 1000)
+    public void exactInMemoryTest() throws IOException {
+        RichIterator<Integer> itr = RichIterator.apply(1, 2, 3, 3, 2, 1, 4).distinct(100, Serializer.ints(), directory);
+        assertEquals(Arrays.asList(1, 2, 3, 4), drain(itr));
+        assertEquals(0, spillFiles());
+    }
+
+    @Test(timeOut = 5000)
+    public void exactSpillTest() throws IOException {
+        List<Integer> input = new ArrayList<>();
+        List<Integer> expected = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            expected.add(i);
+            input.add(i);
+            input.add(i / 2);
+            input.add((i * 7919) % (i + 1));
+        }
+        RichIterator<Integer> itr = RichIterator.from(input).distinct(100, Serializer.ints(), directory);
+        List<Integer> result = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            result.add(itr.next());
+        }
+        assertTrue(spillFiles() > 0);
+        result.addAll(drain(itr));
+        assertEquals(expected, result);
+        assertEquals(0, spillFiles());
+    }
+
+    @Test(timeOut = 1000)
+    public void exactJavaSerializerTest() throws IOException {
+        List<String> input = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            input.add("s" + i % 200);
+        }
+        assertEquals(input.subList(0, 200), drain(RichIterator.from(input).distinct(50, Serializer.java(), directory)));
+        assertEquals(0, spillFiles());
+    }
+
+    @Test(timeOut = 5000)
+    public void exactScalesTest() throws IOException {
+        // every element twice, far apart, so most of the duplicates are found in the spilled partitions
+        int n = 40_000;
+        List<Integer> input = new ArrayList<>();
+        for (int i = 0; i < 2 * n; i++) {
+            input.add((int) ((i % n) * 2654435761L % n));
+        }
+        List<Integer> result = drain(RichIterator.from(input).distinct(1000, Serializer.ints(), directory));
+        assertEquals(input.subList(0, n), result);
+        assertEquals(0, spillFiles());
+    }
+
+    @Test(timeOut = 1000)
+    public void exactLazyTest() throws IOException {
+        // an infinite source, with every element twice
+        RichIterator<Integer> itr = naturalNumbers().fused().map(x -> x / 2).distinct(100, Serializer.ints(), directory);
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(i, itr.next().intValue());
+        }
+        itr.close();
+        assertEquals(0, spillFiles());
+    }
+
+    @Test(timeOut = 1000)
+    public void exactCloseDeletesFilesTest() throws IOException {
+        RichIterator<Integer> itr = naturalNumbers().fused().take(2000).distinct(100, Serializer.ints(), directory);
+        for (int i = 0; i < 200; i++) {
+            assertEquals(i, itr.next().intValue());
+        }
+        assertTrue(spillFiles() > 0);
+        itr.close();
+        assertEquals(0, spillFiles());
+        assertFalse(itr.hasNext());
+    }
+}
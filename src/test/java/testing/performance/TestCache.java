@@ -0,0 +1,164 @@
+package testing.performance;
+
+import iterator.CachedIterable;
+import iterator.RichIterator;
+import iterator.Serializer;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.testng.Assert.*;
+import static testing.TestingUtils.*;
+
+public class TestCache {
+    private Path scratch;
+
+    @BeforeMethod
+    public void createScratch() throws IOException {
+        scratch = Files.createTempDirectory("cache-test");
+    }
+
+    @AfterMethod
+    public void deleteScratch() throws IOException {
+        try (Stream<Path> files = Files.list(scratch)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(scratch);
+    }
+
+    private long spilledFiles() throws IOException {
+        try (Stream<Path> files = Files.list(scratch)) {
+            return files.count();
+        }
+    }
+
+    // counts the elements read from the source
+    private static RichIterator<Integer> counted(List<Integer> lst, AtomicInteger reads) {
+        return RichIterator.from(lst).mapToInt(x -> {
+            reads.incrementAndGet();
+            return x;
+        }).boxed();
+    }
+
+    @Test(timeOut = 1000)
+    public void replayTest() {
+        AtomicInteger reads = new AtomicInteger();
+        List<Integer> input = range(5000);
+        CachedIterable<Integer> cached = counted(input, reads).cache();
+        assertEquals(0, reads.get());
+        assertEquals(input, drain(cached.iterator()));
+        assertTrue(cached.isComplete());
+        assertEquals(5000, cached.recorded());
+        assertEquals(input, drain(cached.iterator()));
+        assertEquals(input, drain(cached.iterator()));
+        assertEquals(5000, reads.get());
+        assertEquals(Collections.emptyList(), drain(RichIterator.empty().cache().iterator()));
+    }
+
+    @Test(timeOut = 1000)
+    public void interleavedTest() {
+        AtomicInteger reads = new AtomicInteger();
+        CachedIterable<Integer> cached = counted(range(10), reads).cache();
+        RichIterator<Integer> first = cached.iterator();
+        RichIterator<Integer> second = cached.iterator();
+        assertEquals(0, first.next().intValue());
+        assertEquals(1, first.next().intValue());
+        assertEquals(0, second.next().intValue());
+        assertEquals(2, reads.get());
+        assertEquals(range(10).subList(1, 10), drain(second));
+        assertEquals(range(10).subList(2, 10), drain(first));
+        assertEquals(10, reads.get());
+    }
+
+    @Test(timeOut = 1000)
+    public void infiniteTest() {
+        CachedIterable<Integer> cached = naturalNumbers().cache();
+        assertEquals(range(99), drain(cached.iterator().fused().take(99)));
+        assertEquals(0, cached.iterator().next().intValue());
+        assertEquals(99, cached.recorded());
+        assertFalse(cached.isComplete());
+    }
+
+    @Test(timeOut = 1000)
+    public void sizesAndChunksTest() {
+        CachedIterable<Integer> cached = RichIterator.from(range(3000)).cache();
+        RichIterator<Integer> itr = cached.iterator();
+        assertEquals(3000, itr.knownSize());
+        itr.next();
+        assertEquals(2999, itr.knownSize());
+        drain(itr);
+        RichIterator<Integer> replay = cached.iterator().drop(1500);
+        assertEquals(1500, replay.knownSize());
+        Object[] chunk = new Object[1000];
+        assertEquals(1000, replay.nextChunk(chunk, 0, 1000));
+        assertEquals(1500, chunk[0]);
+        assertEquals(2499, chunk[999]);
+        assertEquals(500, replay.nextChunk(chunk, 0, 1000));
+        assertEquals(2999, chunk[499]);
+        assertEquals(0, replay.nextChunk(chunk, 0, 1000));
+    }
+
+    @Test(timeOut = 5000)
+    public void spillTest() throws IOException {
+        List<Integer> input = range(10_000);
+        try (CachedIterable<Integer> cached = RichIterator.from(input).cache(1000, Serializer.ints(), scratch)) {
+            RichIterator<Integer> first = cached.iterator();
+            assertEquals(0, spilledFiles());
+            // a second iterator reads the file while the first one is still writing it
+            RichIterator<Integer> second = cached.iterator();
+            List<Integer> firstElems = new ArrayList<>();
+            List<Integer> secondElems = new ArrayList<>();
+            for (int i = 0; i < 5000; i++) {
+                firstElems.add(first.next());
+            }
+            assertEquals(1, spilledFiles());
+            secondElems.addAll(drain(second.fused().take(3000)));
+            firstElems.addAll(drain(first));
+            secondElems.addAll(drain(cached.iterator().drop(3000)));
+            assertEquals(input, firstElems);
+            assertEquals(input, secondElems);
+            assertEquals(input, drain(cached.iterator()));
+            assertEquals(1, spilledFiles());
+        }
+        assertEquals(0, spilledFiles());
+    }
+
+    @Test(timeOut = 1000)
+    public void closeTest() throws IOException {
+        AtomicInteger closed = new AtomicInteger();
+        CachedIterable<Integer> cached = naturalNumbers().onClose(closed::incrementAndGet).cache(10, Serializer.ints(), scratch);
+        RichIterator<Integer> itr = cached.iterator();
+        for (int i = 0; i < 20; i++) {
+            itr.next();
+        }
+        assertEquals(1, spilledFiles());
+        cached.close();
+        assertEquals(1, closed.get());
+        assertEquals(0, spilledFiles());
+        assertFalse(itr.hasNext());
+        assertThrows(IllegalStateException.class, cached::iterator);
+
+        AtomicInteger exhausted = new AtomicInteger();
+        CachedIterable<Integer> finite = RichIterator.from(range(3)).fused().onClose(exhausted::incrementAndGet).cache();
+        drain(finite.iterator());
+        assertEquals(1, exhausted.get());
+        finite.close();
+        assertEquals(1, exhausted.get());
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void budgetTest() {
+        basicTestIterator().cache(0, Serializer.ints(), scratch);
+    }
+}
@@ -0,0 +1,87 @@
+package testing.performance;
+
+import iterator.RichIterator;
+import org.testng.annotations.Test;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.testng.Assert.*;
+import static testing.TestingUtils.*;
+
+public class TestChunks {
+    @Test(timeOut = 1000)
+    public void arrayChunkTest() {
+        Object[] dest = new Object[4];
+        RichIterator<Integer> itr = RichIterator.apply(1, 2, 3, 4, 5);
+        assertEquals(3, itr.nextChunk(dest, 1, 3));
+        assertEquals(new Object[]{null, 1, 2, 3}, dest);
+        assertEquals(2, itr.nextChunk(dest, 0, 4));
+        assertEquals(new Object[]{4, 5, 2, 3}, dest);
+        assertEquals(0, itr.nextChunk(dest, 0, 4));
+        assertFalse(itr.hasNext());
+    }
+
+    @Test(timeOut = 1000)
+    public void chunkThenNextTest() {
+        RichIterator<Integer> itr = RichIterator.from(Arrays.asList(1, 2, 3, 4, 5));
+        assertEquals(2, itr.nextChunk(new Object[2], 0, 2));
+        assertEquals(3, itr.next().intValue());
+    }
+
+    @Test(timeOut = 1000)
+    public void iteratorChunkTest() {
+        Object[] dest = new Object[10];
+        RichIterator<Integer> itr = naturalNumbers();
+        assertEquals(10, itr.nextChunk(dest, 0, 10));
+        assertEquals(9, dest[9]);
+        assertEquals(10, itr.next().intValue());
+        assertEquals(0, RichIterator.empty().nextChunk(dest, 0, 10));
+    }
+
+    @Test(timeOut = 1000)
+    public void forEachChunkTest() {
+        List<Integer> sizes = new ArrayList<>();
+        List<Object> elements = new ArrayList<>();
+        RichIterator.from(new LinkedList<>(Arrays.asList(1, 2, 3, 4, 5, 6, 7))).forEachChunk(3, (chunk, n) -> {
+            sizes.add(n);
+            elements.addAll(Arrays.asList(chunk).subList(0, n));
+        });
+        assertEquals(Arrays.asList(3, 3, 1), sizes);
+        assertEquals(Arrays.asList(1, 2, 3, 4, 5, 6, 7), elements);
+    }
+
+    @Test(timeOut = 1000)
+    public void fusedChunkTest() {
+        Object[] dest = new Object[8];
+        RichIterator<Integer> itr = RichIterator.apply(1, 2, 3, 4, 5, 6, 7, 8, 9, 10).fused()
+                .filter(x -> x % 2 == 0)
+                .map(x -> x * 10);
+        assertEquals(5, itr.nextChunk(dest, 0, 8));
+        assertEquals(Arrays.asList(20, 40, 60, 80, 100), Arrays.asList(dest).subList(0, 5));
+        assertNull(dest[5]);
+        assertEquals(0, itr.nextChunk(dest, 0, 8));
+    }
+
+    @Test(timeOut = 1000)
+    public void fusedChunkTakeTest() {
+        AtomicInteger pulled = new AtomicInteger();
+        RichIterator<Integer> itr = RichIterator.from(Stream.iterate(0, x -> x + 1).peek(x -> pulled.incrementAndGet()).iterator())
+                .fused()
+                .take(5);
+        Object[] dest = new Object[100];
+        assertEquals(5, itr.nextChunk(dest, 0, 100));
+        assertEquals(5, pulled.get());
+        assertEquals(0, itr.nextChunk(dest, 0, 100));
+    }
+
+    @Test(timeOut = 1000)
+    public void fusedChunkAfterHasNextTest() {
+        RichIterator<Integer> itr = basicTestIterator().fused().filter(x -> x > 1);
+        assertTrue(itr.hasNext());
+        Object[] dest = new Object[10];
+        assertEquals(4, itr.nextChunk(dest, 0, 10));
+        assertEquals(Arrays.asList(2, 3, 4, 5), Arrays.asList(dest).subList(0, 4));
+    }
+}
@@ -0,0 +1,145 @@
+package testing.performance;
+
+import iterator.DoubleRichIterator;
+import iterator.IntRichIterator;
+import iterator.LongRichIterator;
+import iterator.RichIterator;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Scanner;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.testng.Assert.*;
+import static testing.TestingUtils.*;
+
+public class TestClose {
+    private static class ClosingIterator implements Iterator<Integer>, AutoCloseable {
+        private final Iterator<Integer> itr = naturalNumbers();
+        private int closed;
+
+        @Override
+        public boolean hasNext() {
+            return itr.hasNext();
+        }
+
+        @Override
+        public Integer next() {
+            return itr.next();
+        }
+
+        @Override
+        public void close() {
+            closed++;
+        }
+    }
+
+    @Test(timeOut = 1000)
+    public void onCloseRunsOnceTest() {
+        AtomicInteger closed = new AtomicInteger();
+        RichIterator<Integer> itr = basicTestIterator().onClose(closed::incrementAndGet);
+        assertEquals(5, itr.knownSize());
+        itr.close();
+        itr.close();
+        assertEquals(1, closed.get());
+    }
+
+    @Test(timeOut = 1000)
+    public void onCloseRunsAfterSourceTest() {
+        StringBuilder order = new StringBuilder();
+        RichIterator<Integer> itr = basicTestIterator()
+                .onClose(() -> order.append("first "))
+                .onClose(() -> order.append("second"));
+        itr.close();
+        assertEquals("first second", order.toString());
+    }
+
+    @Test(timeOut = 1000)
+    public void wrapperClosesAutoCloseableTest() {
+        ClosingIterator source = new ClosingIterator();
+        RichIterator<Integer> itr = RichIterator.from(source);
+        itr.next();
+        itr.close();
+        assertEquals(1, source.closed);
+
+        Scanner scanner = new Scanner("a b c");
+        RichIterator.from(scanner).close();
+        assertThrows(IllegalStateException.class, scanner::hasNext);
+    }
+
+    @Test(timeOut = 1000)
+    public void closePropagatesThroughOperatorsTest() {
+        AtomicInteger closed = new AtomicInteger();
+        RichIterator<Integer> itr = basicTestIterator().onClose(closed::incrementAndGet)
+                .fused().map(x -> x * 2).filter(x -> x > 2).drop(1);
+        itr.close();
+        assertEquals(1, closed.get());
+        assertFalse(itr.hasNext());
+
+        IntRichIterator ints = RichIterator.apply(1, 2, 3).onClose(closed::incrementAndGet)
+                .mapToInt(x -> x).map(x -> x + 1).filter(x -> x > 0);
+        ints.boxed().close();
+        assertEquals(2, closed.get());
+    }
+
+    @Test(timeOut = 1000)
+    public void closedSourcesAreEmptyTest() throws Exception {
+        List<Iterator<?>> sources = Arrays.asList(basicTestIterator(), RichIterator.from(Arrays.asList(1, 2)),
+                RichIterator.from(new LinkedList<>(Arrays.asList(1, 2))), RichIterator.from(naturalNumbers()),
+                IntRichIterator.of(1, 2, 3), IntRichIterator.range(0, 10), IntRichIterator.iterate(0, x -> x + 1),
+                LongRichIterator.of(1, 2), LongRichIterator.range(0, 10), LongRichIterator.iterate(0, x -> x + 1),
+                DoubleRichIterator.of(1, 2), DoubleRichIterator.iterate(0, x -> x + 1));
+        for (Iterator<?> itr : sources) {
+            itr.next();
+            ((AutoCloseable) itr).close();
+            assertFalse(itr.hasNext());
+            assertThrows(NoSuchElementException.class, itr::next);
+        }
+    }
+
+    @Test(timeOut = 1000)
+    public void takeClosesWhenDoneTest() {
+        ClosingIterator source = new ClosingIterator();
+        RichIterator<Integer> itr = RichIterator.from(source).fused().take(3);
+        assertEquals(3, itr.nextChunk(new Object[10], 0, 10));
+        assertEquals(1, source.closed);
+        assertFalse(itr.hasNext());
+        assertEquals(1, source.closed);
+
+        ClosingIterator other = new ClosingIterator();
+        RichIterator<Integer> firstLarge = RichIterator.from(other).fused().takeWhile(x -> x < 100).filter(x -> x > 10);
+        assertEquals(11, firstLarge.next().intValue());
+        assertEquals(0, other.closed);
+        firstLarge.nextChunk(new Object[100], 0, 100);
+        assertFalse(firstLarge.hasNext());
+        assertEquals(1, other.closed);
+    }
+
+    @Test(timeOut = 1000)
+    public void chunksCloseWhenDoneTest() {
+        AtomicInteger closed = new AtomicInteger();
+        AtomicInteger sum = new AtomicInteger();
+        basicTestIterator().onClose(closed::incrementAndGet).fused().map(x -> x * 2)
+                .forEachChunk(2, (chunk, n) -> {
+                    for (int i = 0; i < n; i++) {
+                        sum.addAndGet((Integer) chunk[i]);
+                    }
+                });
+        assertEquals(30, sum.get());
+        assertEquals(1, closed.get());
+    }
+
+    @Test(timeOut = 1000)
+    public void streamCloseTest() {
+        AtomicInteger closed = new AtomicInteger();
+        try (Stream<Integer> stream = RichIterator.from(Arrays.asList(1, 2, 3)).onClose(closed::incrementAndGet).stream()) {
+            assertEquals(6, stream.mapToInt(x -> x).sum());
+        }
+        assertEquals(1, closed.get());
+    }
+}
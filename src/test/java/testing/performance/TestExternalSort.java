@@ -0,0 +1,141 @@
+package testing.performance;
+
+import iterator.RichIterator;
+import iterator.Serializer;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.testng.Assert.*;
+import static testing.TestingUtils.*;
+
+public class TestExternalSort {
+    private Path scratch;
+
+    @BeforeMethod
+    public void createScratch() throws IOException {
+        scratch = Files.createTempDirectory("sort-test");
+    }
+
+    @AfterMethod
+    public void deleteScratch() throws IOException {
+        try (Stream<Path> files = Files.list(scratch)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(scratch);
+    }
+
+    private long spilledFiles() throws IOException {
+        try (Stream<Path> files = Files.list(scratch)) {
+            return files.count();
+        }
+    }
+
+    private static List<Integer> randomInts(int n, int bound) {
+        Random random = new Random(n);
+        List<Integer> lst = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            lst.add(random.nextInt(bound));
+        }
+        return lst;
+    }
+
+    @Test(timeOut = 1000)
+    public void inMemoryTest() throws IOException {
+        RichIterator<Integer> itr = RichIterator.apply(3, 1, 5, 2, 4)
+                .sorted(Comparator.naturalOrder(), 10, Serializer.ints(), scratch, false);
+        assertEquals(Arrays.asList(1, 2, 3, 4, 5), drain(itr));
+        assertEquals(0, spilledFiles());
+        assertFalse(RichIterator.<Integer>empty().sorted(Comparator.naturalOrder(), 10, Serializer.ints()).hasNext());
+    }
+
+    @Test(timeOut = 5000)
+    public void spillTest() throws IOException {
+        List<Integer> input = randomInts(5000, 1000);
+        List<Integer> expected = new ArrayList<>(input);
+        Collections.sort(expected);
+        for (boolean parallel : new boolean[]{false, true}) {
+            RichIterator<Integer> itr = RichIterator.from(input)
+                    .sorted(Comparator.naturalOrder(), 100, Serializer.ints(), scratch, parallel);
+            assertEquals(0, spilledFiles());
+            assertEquals(expected.get(0), itr.next());
+            assertTrue(spilledFiles() > 0);
+            List<Integer> actual = drain(itr);
+            actual.add(0, expected.get(0));
+            assertEquals(expected, actual, "parallel " + parallel);
+            assertEquals(0, spilledFiles());
+        }
+    }
+
+    @Test(timeOut = 5000)
+    public void manyRunsTest() throws IOException {
+        // 300 runs, more than are merged at once
+        List<Integer> input = randomInts(3000, 1_000_000);
+        List<Integer> expected = new ArrayList<>(input);
+        expected.sort(Comparator.reverseOrder());
+        assertEquals(expected, drain(RichIterator.from(input).sorted(Comparator.reverseOrder(), 10, Serializer.ints(), scratch, false)));
+        assertEquals(0, spilledFiles());
+    }
+
+    @Test(timeOut = 5000)
+    public void stableTest() {
+        // compares only the key before the colon
+        Comparator<String> byKey = Comparator.comparing(s -> s.substring(0, s.indexOf(':')));
+        List<String> input = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            input.add(i % 7 + ":" + i);
+        }
+        List<String> expected = new ArrayList<>(input);
+        expected.sort(byKey);
+        for (boolean parallel : new boolean[]{false, true}) {
+            assertEquals(expected, drain(RichIterator.from(input).sorted(byKey, 64, Serializer.java(), scratch, parallel)),
+                    "parallel " + parallel);
+        }
+        // 334 runs, more than are merged at once
+        assertEquals(expected, drain(RichIterator.from(input).sorted(byKey, 3, Serializer.java(), scratch, false)));
+    }
+
+    @Test(timeOut = 1000)
+    public void stringsTest() {
+        List<String> input = Arrays.asList("pear", "", "\u05e9\u05dc\u05d5\u05dd", "apple", "fig", "banana");
+        List<String> expected = new ArrayList<>(input);
+        Collections.sort(expected);
+        assertEquals(expected, drain(RichIterator.from(input).sorted(Comparator.naturalOrder(), 2, Serializer.strings(), scratch, false)));
+    }
+
+    @Test(timeOut = 1000)
+    public void lazyAndCloseTest() throws IOException {
+        AtomicInteger reads = new AtomicInteger();
+        AtomicInteger closed = new AtomicInteger();
+        RichIterator<Integer> itr = naturalNumbers().fused().take(1000).tapEach(x -> reads.incrementAndGet())
+                .onClose(closed::incrementAndGet)
+                .sorted(Comparator.reverseOrder(), 100, Serializer.ints(), scratch, false);
+        assertEquals(0, reads.get());
+        assertEquals(999, itr.next().intValue());
+        assertEquals(1000, reads.get());
+        assertEquals(9, spilledFiles());
+        itr.close();
+        assertEquals(0, spilledFiles());
+        assertEquals(1, closed.get());
+        assertFalse(itr.hasNext());
+    }
+
+    @Test(timeOut = 1000, expectedExceptions = IllegalArgumentException.class)
+    public void badBudgetTest() {
+        basicTestIterator().sorted(Comparator.naturalOrder(), 0, Serializer.ints());
+    }
+}
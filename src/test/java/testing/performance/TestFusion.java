@@ -0,0 +1,93 @@
+package testing.performance;
+
+import iterator.RichIterator;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.testng.Assert.*;
+import static testing.TestingUtils.*;
+
+public class TestFusion {
+    @Test(timeOut = 1000)
+    public void mapFilterTest() {
+        RichIterator<Integer> itr = RichIterator.apply(1, 2, 3, 4, 5, 6).fused()
+                .map(x -> x * 10)
+                .filter(x -> x > 20)
+                .take(2);
+        assertEquals(Arrays.asList(30, 40), drain(itr));
+    }
+
+    @Test(timeOut = 1000)
+    public void operatorOrderTest() {
+        assertEquals(Arrays.asList(3, 5, 7), drain(naturalNumbers().fused()
+                .filter(x -> x % 2 == 1)
+                .drop(1)
+                .take(3)));
+        assertEquals(Arrays.asList(2, 3), drain(naturalNumbers().fused()
+                .take(4)
+                .drop(2)));
+        assertEquals(Arrays.asList(0, 2, 4), drain(naturalNumbers().fused()
+                .map(x -> x * 2)
+                .takeWhile(x -> x < 6)));
+        assertTrue(drain(basicTestIterator().fused().take(0)).isEmpty());
+        assertTrue(drain(basicTestIterator().fused().drop(10)).isEmpty());
+    }
+
+    @Test(timeOut = 1000)
+    public void takeStopsPullingTest() {
+        AtomicInteger pulled = new AtomicInteger();
+        RichIterator<Integer> itr = RichIterator.from(Stream.iterate(0, x -> x + 1).peek(x -> pulled.incrementAndGet()).iterator())
+                .fused()
+                .filter(x -> x % 2 == 0)
+                .take(3);
+        assertEquals(Arrays.asList(0, 2, 4), drain(itr));
+        assertEquals(5, pulled.get());
+    }
+
+    @Test(timeOut = 1000)
+    public void takeWhileStopsTest() {
+        CountablePredicate<Integer> p = toCountablePredicate(x -> x < 3);
+        RichIterator<Integer> itr = naturalNumbers().fused().takeWhile(p);
+        assertEquals(Arrays.asList(0, 1, 2), drain(itr));
+        assertFalse(itr.hasNext());
+        assertEquals(4, p.count());
+    }
+
+    @Test(timeOut = 1000)
+    public void mapIsLazyTest() {
+        CountableFunction<Integer, Integer> f = toCountableFunction(x -> x + 1);
+        RichIterator<Integer> itr = basicTestIterator().fused().map(f);
+        assertTrue(itr.hasNext());
+        assertTrue(itr.hasNext());
+        assertEquals(0, f.count());
+        assertEquals(2, itr.next().intValue());
+        assertEquals(1, f.count());
+    }
+
+    @Test(timeOut = 1000)
+    public void tapEachTest() {
+        StringBuilder sb = new StringBuilder();
+        RichIterator<Integer> itr = basicTestIterator().fused()
+                .tapEach(sb::append)
+                .filter(x -> x % 2 == 0)
+                .tapEach(x -> sb.append('*'));
+        assertEquals(Arrays.asList(2, 4), drain(itr));
+        assertEquals("12*34*5", sb.toString());
+    }
+
+    @Test(timeOut = 1000)
+    public void chainAfterHasNextTest() {
+        RichIterator<Integer> itr = basicTestIterator().fused().filter(x -> x > 2);
+        assertTrue(itr.hasNext());
+        assertEquals(Arrays.asList(30, 40, 50), drain(itr.map(x -> x * 10)));
+    }
+
+    @Test(timeOut = 1000, expectedExceptions = NoSuchElementException.class)
+    public void nextOnEmptyTest() {
+        basicTestIterator().fused().filter(x -> x > 10).next();
+    }
+}
@@ -0,0 +1,60 @@
+package testing.performance;
+
+import iterator.NotImplementedException;
+import iterator.RichIterator;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+
+import static org.testng.Assert.*;
+import static testing.TestingUtils.*;
+
+public class TestIndexedIterators {
+    @Test(timeOut = 1000)
+    public void sizeTest() {
+        RichIterator<Integer> itr = basicTestIterator();
+        assertEquals(5, itr.knownSize());
+        itr.next();
+        assertEquals(4, itr.knownSize());
+        assertEquals(Arrays.asList(2, 3, 4, 5), drain(itr));
+        assertEquals(0, itr.knownSize());
+        assertEquals(5, RichIterator.from(Arrays.asList(1, 2, 3, 4, 5)).knownSize());
+    }
+
+    @Test(timeOut = 1000, expectedExceptions = NoSuchElementException.class)
+    public void nextOnEmptyTest() {
+        RichIterator.apply().next();
+    }
+
+    @Test(timeOut = 1000)
+    public void chunksTest() {
+        RichIterator<Integer> itr = RichIterator.from(Arrays.asList(1, 2, 3, 4, 5));
+        itr.next();
+        Object[] chunk = new Object[3];
+        assertEquals(3, itr.nextChunk(chunk, 0, 3));
+        assertEquals(new Object[]{2, 3, 4}, chunk);
+        assertEquals(1, itr.nextChunk(chunk, 1, 2));
+        assertEquals(5, chunk[1]);
+        assertEquals(0, itr.nextChunk(chunk, 0, 3));
+    }
+
+    @Test(timeOut = 1000)
+    public void spliteratorTest() {
+        RichIterator<Integer> itr = basicTestIterator();
+        itr.next();
+        Spliterator<Integer> spliterator = itr.spliterator();
+        assertEquals(4, spliterator.getExactSizeIfKnown());
+        Spliterator<Integer> prefix = spliterator.trySplit();
+        assertEquals(2, prefix.getExactSizeIfKnown());
+        assertEquals(2, spliterator.getExactSizeIfKnown());
+        assertFalse(itr.hasNext());
+    }
+
+    @Test(timeOut = 1000, expectedExceptions = NotImplementedException.class)
+    public void operatorsAreTheExerciseTest() {
+        // the positional operators of an indexed source are left to the exercise
+        basicTestIterator().drop(1);
+    }
+}
@@ -0,0 +1,199 @@
+package testing.performance;
+
+import iterator.JoinType;
+import iterator.Pair;
+import iterator.RichIterator;
+import iterator.Serializer;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import static org.testng.Assert.*;
+import static testing.TestingUtils.*;
+
+public class TestJoins {
+    private Path scratch;
+
+    @BeforeMethod
+    public void createScratch() throws IOException {
+        scratch = Files.createTempDirectory("join-test");
+    }
+
+    @AfterMethod
+    public void deleteScratch() throws IOException {
+        try (Stream<Path> files = Files.list(scratch)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(scratch);
+    }
+
+    private long spilledFiles() throws IOException {
+        try (Stream<Path> files = Files.list(scratch)) {
+            return files.count();
+        }
+    }
+
+    // the join by nested loops, in the order of left
+    private static <A, B> List<Pair<A, B>> reference(List<A> left, List<B> right, Function<A, ?> leftKey,
+                                                     Function<B, ?> rightKey, JoinType type) {
+        List<Pair<A, B>> pairs = new ArrayList<>();
+        for (A a : left) {
+            List<B> matches = new ArrayList<>();
+            for (B b : right) {
+                if (Objects.equals(leftKey.apply(a), rightKey.apply(b))) {
+                    matches.add(b);
+                }
+            }
+            if (type == JoinType.INNER || type == JoinType.LEFT_OUTER) {
+                for (B b : matches) {
+                    pairs.add(Pair.apply(a, b));
+                }
+            }
+            if (matches.isEmpty() && (type == JoinType.LEFT_OUTER || type == JoinType.ANTI)) {
+                pairs.add(Pair.apply(a, null));
+            }
+            if (!matches.isEmpty() && type == JoinType.SEMI) {
+                pairs.add(Pair.apply(a, matches.get(0)));
+            }
+        }
+        return pairs;
+    }
+
+    private static List<Integer> randomInts(int n, int bound, long seed) {
+        Random random = new Random(seed);
+        List<Integer> lst = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            lst.add(random.nextInt(bound));
+        }
+        return lst;
+    }
+
+    private static <A> List<String> sorted(List<A> lst) {
+        List<String> strings = new ArrayList<>();
+        for (A elem : lst) {
+            strings.add(String.valueOf(elem));
+        }
+        Collections.sort(strings);
+        return strings;
+    }
+
+    @Test(timeOut = 1000)
+    public void hashJoinTest() {
+        List<String> left = Arrays.asList("a1", "b1", "c1", "b2", "d1");
+        List<String> right = Arrays.asList("b:x", "c:y", "b:z", "e:w");
+        Function<String, Character> leftKey = s -> s.charAt(0);
+        Function<String, Character> rightKey = s -> s.charAt(0);
+        for (JoinType type : JoinType.values()) {
+            assertEquals(reference(left, right, leftKey, rightKey, type),
+                    drain(RichIterator.from(left).hashJoin(right.iterator(), leftKey, rightKey, type)), type.name());
+        }
+        assertEquals(Arrays.asList(Pair.apply("b1", "b:x"), Pair.apply("b1", "b:z"), Pair.apply("b2", "b:x"), Pair.apply("b2", "b:z"),
+                Pair.apply("c1", "c:y")), sortedPairs(RichIterator.from(left).hashJoin(right.iterator(), leftKey, rightKey, JoinType.INNER)));
+    }
+
+    private static List<Pair<String, String>> sortedPairs(RichIterator<Pair<String, String>> itr) {
+        List<Pair<String, String>> pairs = drain(itr);
+        pairs.sort(Comparator.comparing((Pair<String, String> p) -> p._1).thenComparing(p -> p._2));
+        return pairs;
+    }
+
+    @Test(timeOut = 1000)
+    public void buildsOnSmallerSideTest() {
+        AtomicInteger leftKeys = new AtomicInteger();
+        List<Integer> big = randomInts(1000, 50, 1);
+        List<Integer> small = randomInts(10, 50, 2);
+        List<Pair<Integer, Integer>> pairs = drain(RichIterator.from(small).hashJoin(RichIterator.from(big), x -> {
+            leftKeys.incrementAndGet();
+            return x;
+        }, x -> x, JoinType.INNER));
+        assertEquals(sorted(reference(small, big, x -> x, x -> x, JoinType.INNER)), sorted(pairs));
+        // every key of the smaller left side was computed once, to build the table
+        assertEquals(10, leftKeys.get());
+    }
+
+    @Test(timeOut = 5000)
+    public void spillTest() throws IOException {
+        List<Integer> left = randomInts(2000, 300, 3);
+        List<Integer> right = randomInts(1000, 400, 4);
+        Function<Integer, Integer> key = x -> x;
+        for (JoinType type : JoinType.values()) {
+            RichIterator<Pair<Integer, Integer>> joined = RichIterator.from(left).fused().hashJoin(right.iterator(), key, key,
+                    type, 50, Serializer.ints(), Serializer.ints(), scratch);
+            assertTrue(joined.hasNext());
+            assertTrue(spilledFiles() > 0);
+            List<Pair<Integer, Integer>> pairs = drain(joined);
+            assertEquals(sorted(reference(left, right, key, key, type)), sorted(pairs), type.name());
+            assertEquals(0, spilledFiles());
+        }
+    }
+
+    @Test(timeOut = 5000)
+    public void skewedSpillTest() throws IOException {
+        // one key with more elements than the budget can not be partitioned
+        List<Integer> right = new ArrayList<>(Collections.nCopies(300, 7));
+        right.addAll(randomInts(100, 20, 5));
+        List<Integer> left = Arrays.asList(7, 3, 7, 100);
+        Function<Integer, Integer> key = x -> x;
+        assertEquals(sorted(reference(left, right, key, key, JoinType.INNER)), sorted(drain(RichIterator.from(left).fused()
+                .hashJoin(right.iterator(), key, key, JoinType.INNER, 10, Serializer.ints(), Serializer.ints(), scratch))));
+        assertEquals(0, spilledFiles());
+    }
+
+    @Test(timeOut = 1000, expectedExceptions = IllegalArgumentException.class)
+    public void oneSerializerTest() {
+        basicTestIterator().hashJoin(basicTestIterator(), x -> x, x -> x, JoinType.INNER, 2, null, Serializer.ints(), scratch);
+    }
+
+    @Test(timeOut = 1000)
+    public void closeTest() throws IOException {
+        AtomicInteger closed = new AtomicInteger();
+        RichIterator<Pair<Integer, Integer>> joined = naturalNumbers().onClose(closed::incrementAndGet).hashJoin(
+                RichIterator.from(randomInts(100, 10, 6)).fused().onClose(closed::incrementAndGet), x -> x % 10, x -> x,
+                JoinType.INNER, 1000, Serializer.ints(), Serializer.ints(), scratch);
+        joined.next();
+        assertEquals(1, closed.get());
+        joined.close();
+        assertEquals(2, closed.get());
+        assertFalse(joined.hasNext());
+    }
+
+    @Test(timeOut = 1000)
+    public void mergeJoinTest() {
+        assertEquals(Arrays.asList(Pair.apply(2, 2), Pair.apply(2, 2), Pair.apply(4, 4)),
+                drain(RichIterator.apply(1, 2, 2, 4).mergeJoin(RichIterator.apply(2, 3, 4), x -> x, y -> y,
+                        Comparator.naturalOrder(), JoinType.INNER)));
+        for (long seed = 0; seed < 10; seed++) {
+            List<Integer> left = randomInts(200, 60, seed);
+            List<Integer> right = randomInts(100, 60, seed + 100);
+            Collections.sort(left);
+            Collections.sort(right);
+            // several right elements per key, to check the order of the matches
+            List<String> tagged = new ArrayList<>();
+            for (int i = 0; i < right.size(); i++) {
+                tagged.add(right.get(i) + ":" + i);
+            }
+            Function<Integer, Integer> leftKey = x -> x;
+            Function<String, Integer> rightKey = s -> Integer.parseInt(s.substring(0, s.indexOf(':')));
+            for (JoinType type : JoinType.values()) {
+                assertEquals(reference(left, tagged, leftKey, rightKey, type), drain(RichIterator.from(left)
+                        .mergeJoin(tagged.iterator(), leftKey, rightKey, Comparator.naturalOrder(), type)), type.name());
+            }
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package testing.performance;
+
+import iterator.RichIterator;
+import org.testng.annotations.Test;
+
+import java.util.*;
+
+import static org.testng.Assert.*;
+import static testing.TestingUtils.*;
+
+public class TestKnownSize {
+    @Test(timeOut = 1000)
+    public void sourcesTest() {
+        assertEquals(5, basicTestIterator().knownSize());
+        assertEquals(3, RichIterator.from(Arrays.asList(1, 2, 3)).knownSize());
+        assertEquals(3, RichIterator.from(new LinkedHashSet<>(Arrays.asList(1, 2, 3))).knownSize());
+        assertEquals(0, RichIterator.empty().knownSize());
+        assertEquals(-1, naturalNumbers().knownSize());
+    }
+
+    @Test(timeOut = 1000)
+    public void shrinksWhileIteratingTest() {
+        RichIterator<Integer> itr = RichIterator.from(new LinkedList<>(Arrays.asList(1, 2, 3, 4)));
+        itr.next();
+        assertEquals(3, itr.knownSize());
+        assertEquals(2, itr.nextChunk(new Object[2], 0, 2));
+        assertEquals(1, itr.knownSize());
+        itr.next();
+        assertEquals(0, itr.knownSize());
+
+        RichIterator<Integer> arr = basicTestIterator();
+        arr.next();
+        assertEquals(4, arr.knownSize());
+    }
+
+    @Test(timeOut = 1000)
+    public void fusedTest() {
+        assertEquals(5, basicTestIterator().fused().map(x -> x * 2).knownSize());
+        assertEquals(2, basicTestIterator().fused().take(2).knownSize());
+        assertEquals(3, basicTestIterator().fused().drop(2).knownSize());
+        assertEquals(0, basicTestIterator().fused().drop(20).knownSize());
+        assertEquals(2, basicTestIterator().fused().drop(1).take(3).drop(1).knownSize());
+        assertEquals(-1, basicTestIterator().fused().filter(x -> x > 2).knownSize());
+        assertEquals(-1, naturalNumbers().fused().take(3).knownSize());
+        assertEquals(-1, naturalNumbers().fused().drop(3).knownSize());
+    }
+
+    @Test(timeOut = 1000)
+    public void fusedAfterHasNextTest() {
+        RichIterator<Integer> itr = basicTestIterator().fused().drop(1).map(x -> x * 2).take(3);
+        assertTrue(itr.hasNext());
+        assertEquals(3, itr.knownSize());
+        itr.next();
+        assertEquals(2, itr.knownSize());
+        itr.next();
+        itr.next();
+        assertEquals(0, itr.knownSize());
+        assertFalse(itr.hasNext());
+    }
+
+    @Test(timeOut = 1000)
+    public void sizedSpliteratorTest() {
+        Spliterator<Integer> spliterator = RichIterator.from(new HashSet<>(Arrays.asList(1, 2, 3))).spliterator();
+        assertEquals(3, spliterator.getExactSizeIfKnown());
+    }
+}
@@ -0,0 +1,114 @@
+package testing.performance;
+
+import iterator.RichIterator;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.testng.Assert.*;
+
+public class TestLines {
+    private Path file;
+
+    @BeforeMethod
+    public void createFile() throws IOException {
+        file = Files.createTempFile("lines", ".txt");
+    }
+
+    @AfterMethod
+    public void deleteFile() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    private static List<String> drain(RichIterator<?> itr) {
+        List<String> lst = new ArrayList<>();
+        while (itr.hasNext()) {
+            lst.add(itr.next().toString());
+        }
+        return lst;
+    }
+
+    private List<String> expected(Charset charset) throws IOException {
+        List<String> lst = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(file, charset)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lst.add(line);
+            }
+        }
+        return lst;
+    }
+
+    private void write(String content, Charset charset) throws IOException {
+        Files.write(file, content.getBytes(charset));
+    }
+
+    @Test(timeOut = 1000)
+    public void lineTerminatorsTest() throws IOException {
+        for (String content : Arrays.asList("", "\n", "a", "a\n", "a\nb", "a\r\nb\r\n", "a\rb\r", "\r\n\r\n", "a\n\nb", "a\r\r\nb")) {
+            write(content, StandardCharsets.UTF_8);
+            assertEquals(expected(StandardCharsets.UTF_8), drain(RichIterator.lines(file, StandardCharsets.UTF_8)), content);
+        }
+    }
+
+    @Test(timeOut = 5000)
+    public void longLinesTest() throws IOException {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 3; i++) {
+            sb.append(String.join("", Collections.nCopies(50_000, "ab"))).append(i).append("\r\n");
+        }
+        write(sb.toString(), StandardCharsets.US_ASCII);
+        assertEquals(expected(StandardCharsets.US_ASCII), drain(RichIterator.lines(file, StandardCharsets.US_ASCII)));
+    }
+
+    @Test(timeOut = 1000)
+    public void nonAsciiTest() throws IOException {
+        write("\u05e9\u05dc\u05d5\u05dd\nhello\n\u00e7\u00e0\r\n", StandardCharsets.UTF_8);
+        assertEquals(Arrays.asList("\u05e9\u05dc\u05d5\u05dd", "hello", "\u00e7\u00e0"), drain(RichIterator.lines(file, StandardCharsets.UTF_8)));
+        write("\u00e7\u00e0\nhello", StandardCharsets.ISO_8859_1);
+        assertEquals(Arrays.asList("\u00e7\u00e0", "hello"), drain(RichIterator.lines(file, StandardCharsets.ISO_8859_1)));
+    }
+
+    @Test(timeOut = 1000)
+    public void otherCharsetTest() throws IOException {
+        write("a\nbc\r\nd", StandardCharsets.UTF_16);
+        assertEquals(Arrays.asList("a", "bc", "d"), drain(RichIterator.lines(file, StandardCharsets.UTF_16)));
+    }
+
+    @Test(timeOut = 1000)
+    public void viewsTest() throws IOException {
+        write("ERROR one\nINFO two\nERROR \u05e9\u05dc\u05d5\u05dd\n", StandardCharsets.UTF_8);
+        RichIterator<String> errors = RichIterator.lineViews(file, StandardCharsets.UTF_8).fused()
+                .filter(l -> l.length() > 0 && l.charAt(0) == 'E')
+                .map(CharSequence::toString);
+        assertEquals(Arrays.asList("ERROR one", "ERROR \u05e9\u05dc\u05d5\u05dd"), drain(errors));
+
+        RichIterator<CharSequence> views = RichIterator.lineViews(file, StandardCharsets.UTF_8);
+        views.next();
+        views.next();
+        CharSequence third = views.next();
+        assertEquals(10, third.length());
+        assertEquals('\u05e9', third.charAt(6));
+        assertEquals("ERROR", third.subSequence(0, 5));
+    }
+
+    @Test(timeOut = 1000)
+    public void closeTest() throws Exception {
+        write("a\nb\nc\n", StandardCharsets.UTF_8);
+        RichIterator<String> itr = RichIterator.lines(file, StandardCharsets.UTF_8);
+        assertEquals("a", itr.next());
+        itr.close();
+        assertFalse(itr.hasNext());
+    }
+}
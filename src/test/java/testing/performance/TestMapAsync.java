@@ -0,0 +1,108 @@
+package testing.performance;
+
+import iterator.RichIterator;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.testng.Assert.*;
+import static testing.TestingUtils.*;
+
+public class TestMapAsync {
+    private static <A> Function<A, A> sleeping(long millis, AtomicInteger running, AtomicInteger maxRunning) {
+        return x -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(millis);
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            } finally {
+                running.decrementAndGet();
+            }
+            return x;
+        };
+    }
+
+    @Test(timeOut = 1000)
+    public void orderedTest() {
+        assertEquals(Arrays.asList(10, 20, 30, 40, 50), drain(basicTestIterator().mapAsync(x -> x * 10, 2, true)));
+        assertFalse(RichIterator.<Integer>empty().mapAsync(x -> x, 4, true).hasNext());
+    }
+
+    @Test(timeOut = 1000)
+    public void unorderedTest() {
+        RichIterator<Integer> itr = RichIterator.apply(300, 1, 2, 3).mapAsync(x -> {
+            try {
+                Thread.sleep(x);
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+            return x;
+        }, 4, false);
+        List<Integer> result = drain(itr);
+        assertEquals(new HashSet<>(Arrays.asList(300, 1, 2, 3)), new HashSet<>(result));
+        assertEquals(300, result.get(3).intValue());
+    }
+
+    @Test(timeOut = 2000)
+    public void runsConcurrentlyTest() {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        long start = System.nanoTime();
+        List<Integer> result = drain(naturalNumbers().fused().take(40).mapAsync(sleeping(50, running, maxRunning), 10, true));
+        long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        assertEquals(40, result.size());
+        assertEquals(39, result.get(39).intValue());
+        // one after the other it takes 2 seconds
+        assertTrue(millis < 1000, millis + "ms");
+        assertTrue(maxRunning.get() <= 10, "running " + maxRunning.get());
+        assertTrue(maxRunning.get() > 1, "running " + maxRunning.get());
+    }
+
+    @Test(timeOut = 1000)
+    public void failureTest() {
+        RichIterator<Integer> itr = basicTestIterator().mapAsync(x -> {
+            if (x == 3) {
+                throw new IllegalArgumentException("bad " + x);
+            }
+            return x;
+        }, 5, true);
+        assertEquals(1, itr.next().intValue());
+        assertEquals(2, itr.next().intValue());
+        try {
+            itr.next();
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertEquals("bad 3", e.getMessage());
+        }
+        assertEquals(4, itr.next().intValue());
+    }
+
+    @Test(timeOut = 2000)
+    public void closeInterruptsTest() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(3);
+        CountDownLatch interrupted = new CountDownLatch(3);
+        AtomicInteger closed = new AtomicInteger();
+        RichIterator<Integer> itr = naturalNumbers().onClose(closed::incrementAndGet).mapAsync(x -> {
+            started.countDown();
+            try {
+                Thread.sleep(10_000);
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+            }
+            return x;
+        }, 3, false);
+        assertTrue(itr.hasNext());
+        assertTrue(started.await(1, TimeUnit.SECONDS));
+        itr.close();
+        assertTrue(interrupted.await(1, TimeUnit.SECONDS));
+        assertEquals(1, closed.get());
+        assertFalse(itr.hasNext());
+    }
+}
@@ -0,0 +1,105 @@
+package testing.performance;
+
+import iterator.IntRichIterator;
+import iterator.LongRichIterator;
+import iterator.Pair;
+import iterator.RichIterator;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.testng.Assert.*;
+
+public class TestMappedFile {
+    private static final int RECORD = 12;
+    private static final int RECORDS = 1000;
+    private Path file;
+
+    @BeforeClass
+    public void writeFile() throws IOException {
+        file = Files.createTempFile("records", ".bin");
+        ByteBuffer buf = ByteBuffer.allocate(RECORD * RECORDS);
+        for (int i = 0; i < RECORDS; i++) {
+            buf.putInt(i).putLong(i * 1_000_000_000L);
+        }
+        Files.write(file, buf.array());
+    }
+
+    @AfterClass
+    public void deleteFile() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    private RichIterator<Pair<Integer, Long>> records() throws IOException {
+        return RichIterator.fromMappedFile(file, RECORD, buf -> Pair.apply(buf.getInt(0), buf.getLong(4)));
+    }
+
+    @Test(timeOut = 1000)
+    public void decodeTest() throws IOException {
+        RichIterator<Pair<Integer, Long>> itr = records();
+        assertEquals(RECORDS, itr.knownSize());
+        for (int i = 0; i < RECORDS; i++) {
+            assertEquals(Pair.apply(i, i * 1_000_000_000L), itr.next());
+        }
+        assertFalse(itr.hasNext());
+    }
+
+    @Test(timeOut = 1000)
+    public void offsetArithmeticTest() throws IOException {
+        assertEquals(RECORDS, records().length());
+        assertEquals(Pair.apply(999, 999_000_000_000L), records().last());
+        RichIterator<Pair<Integer, Long>> itr = records().drop(500).take(3);
+        assertEquals(3, itr.knownSize());
+        assertEquals(500, itr.next()._1.intValue());
+        assertEquals(Pair.apply(502, 502_000_000_000L), itr.last());
+        assertFalse(records().drop(RECORDS).hasNext());
+    }
+
+    @Test(timeOut = 1000)
+    public void decoderOnlyRunsOnNextTest() throws IOException {
+        int[] decoded = {0};
+        RichIterator<Integer> itr = RichIterator.fromMappedFile(file, RECORD, buf -> {
+            decoded[0]++;
+            return buf.getInt(0);
+        }).drop(10);
+        assertEquals(10, itr.next().intValue());
+        assertEquals(1, decoded[0]);
+    }
+
+    @Test(timeOut = 1000)
+    public void closeTest() throws IOException {
+        RichIterator<Pair<Integer, Long>> itr = records();
+        itr.next();
+        itr.close();
+        assertFalse(itr.hasNext());
+        IntRichIterator column = IntRichIterator.fromMappedFile(file, RECORD, 0, ByteOrder.BIG_ENDIAN);
+        column.close();
+        assertFalse(column.hasNext());
+    }
+
+    @Test(timeOut = 1000)
+    public void primitiveColumnsTest() throws IOException {
+        assertEquals(RECORDS * (RECORDS - 1) / 2, IntRichIterator.fromMappedFile(file, RECORD, 0, ByteOrder.BIG_ENDIAN).sum());
+        assertEquals(999_000_000_000L, LongRichIterator.fromMappedFile(file, RECORD, 4, ByteOrder.BIG_ENDIAN).max());
+        assertEquals(RECORDS, LongRichIterator.fromMappedFile(file, RECORD, 4, ByteOrder.BIG_ENDIAN).length());
+        IntRichIterator littleEndian = IntRichIterator.fromMappedFile(file, RECORD, 0, ByteOrder.LITTLE_ENDIAN);
+        littleEndian.nextInt();
+        assertEquals(1 << 24, littleEndian.nextInt());
+    }
+
+    @Test(timeOut = 1000, expectedExceptions = IOException.class)
+    public void partialRecordTest() throws IOException {
+        RichIterator.fromMappedFile(file, 7, buf -> buf.get(0));
+    }
+
+    @Test(timeOut = 1000, expectedExceptions = IllegalArgumentException.class)
+    public void columnOutsideRecordTest() throws IOException {
+        LongRichIterator.fromMappedFile(file, RECORD, 8, ByteOrder.BIG_ENDIAN);
+    }
+}
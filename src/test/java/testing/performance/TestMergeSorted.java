@@ -0,0 +1,114 @@
+package testing.performance;
+
+import iterator.RichIterator;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.testng.Assert.*;
+import static testing.TestingUtils.*;
+
+public class TestMergeSorted {
+    // k sorted shards of random sizes, and all their elements sorted
+    private static List<List<Integer>> shards(int k, List<Integer> all) {
+        Random random = new Random(k);
+        List<List<Integer>> shards = new ArrayList<>();
+        for (int i = 0; i < k; i++) {
+            List<Integer> shard = new ArrayList<>();
+            for (int n = random.nextInt(50); n > 0; n--) {
+                shard.add(random.nextInt(1000));
+            }
+            Collections.sort(shard);
+            shards.add(shard);
+            all.addAll(shard);
+        }
+        Collections.sort(all);
+        return shards;
+    }
+
+    @Test(timeOut = 1000)
+    public void mergeTest() {
+        assertEquals(Arrays.asList(1, 2, 3, 4, 7, 9), drain(RichIterator.mergeSorted(Comparator.naturalOrder(),
+                RichIterator.apply(1, 4, 7), RichIterator.apply(2, 3, 9))));
+        assertEquals(Arrays.asList(1, 2, 3, 4, 5), drain(RichIterator.mergeSorted(Comparator.naturalOrder(), basicTestIterator())));
+        assertFalse(RichIterator.mergeSorted(Comparator.naturalOrder()).hasNext());
+        assertFalse(RichIterator.mergeSorted(Comparator.<Integer>naturalOrder(), RichIterator.empty(), RichIterator.empty()).hasNext());
+    }
+
+    @Test(timeOut = 1000)
+    public void manyInputsTest() {
+        for (int k : new int[]{2, 3, 5, 8, 13, 100, 257}) {
+            List<Integer> all = new ArrayList<>();
+            List<Iterator<Integer>> inputs = new ArrayList<>();
+            for (List<Integer> shard : shards(k, all)) {
+                inputs.add(shard.iterator());
+            }
+            assertEquals(all, drain(RichIterator.mergeSorted(Comparator.naturalOrder(), false, inputs)), "k = " + k);
+        }
+    }
+
+    @Test(timeOut = 1000)
+    public void stableTest() {
+        // compares only the key before the colon, the value after it is the input
+        Comparator<String> byKey = Comparator.comparing(s -> s.substring(0, s.indexOf(':')));
+        List<Iterator<String>> inputs = Arrays.asList(
+                Arrays.asList("a:0", "b:0", "b:0", "c:0").iterator(),
+                Arrays.asList("a:1", "b:1").iterator(),
+                Arrays.asList("b:2", "c:2").iterator());
+        assertEquals(Arrays.asList("a:0", "a:1", "b:0", "b:0", "b:1", "b:2", "c:0", "c:2"),
+                drain(RichIterator.mergeSorted(byKey, false, inputs)));
+    }
+
+    @Test(timeOut = 1000)
+    public void distinctTest() {
+        Comparator<String> byKey = Comparator.comparing(s -> s.substring(0, s.indexOf(':')));
+        List<Iterator<String>> inputs = Arrays.asList(
+                Arrays.asList("b:0", "b:0", "d:0").iterator(),
+                Arrays.asList("a:1", "b:1", "c:1").iterator(),
+                Arrays.asList("a:2", "d:2").iterator());
+        assertEquals(Arrays.asList("a:1", "b:0", "c:1", "d:0"), drain(RichIterator.mergeSorted(byKey, true, inputs)));
+    }
+
+    @Test(timeOut = 1000)
+    public void comparisonsTest() {
+        AtomicInteger comparisons = new AtomicInteger();
+        Comparator<Integer> counting = (x, y) -> {
+            comparisons.incrementAndGet();
+            return Integer.compare(x, y);
+        };
+        List<Integer> all = new ArrayList<>();
+        List<Iterator<Integer>> inputs = new ArrayList<>();
+        for (List<Integer> shard : shards(64, all)) {
+            inputs.add(shard.iterator());
+        }
+        assertEquals(all, drain(RichIterator.mergeSorted(counting, false, inputs)));
+        // log2(64) = 6 per element, plus building the tree
+        assertTrue(comparisons.get() <= 6 * all.size() + 64, "comparisons " + comparisons.get() + " for " + all.size());
+    }
+
+    @Test(timeOut = 1000)
+    public void lazyAndCloseTest() {
+        AtomicInteger reads = new AtomicInteger();
+        AtomicInteger closed = new AtomicInteger();
+        RichIterator<Integer> first = basicTestIterator().fused().tapEach(x -> reads.incrementAndGet()).onClose(closed::incrementAndGet);
+        RichIterator<Integer> second = naturalNumbers().fused().tapEach(x -> reads.incrementAndGet()).onClose(closed::incrementAndGet);
+        RichIterator<Integer> merged = RichIterator.mergeSorted(Comparator.naturalOrder(), first, second);
+        assertEquals(0, reads.get());
+        List<Integer> taken = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            taken.add(merged.next());
+        }
+        assertEquals(Arrays.asList(0, 1, 1, 2, 2, 3, 3, 4, 4, 5, 5, 6), taken);
+        // the first input closed itself when it ran out
+        assertEquals(1, closed.get());
+        merged.close();
+        assertEquals(2, closed.get());
+    }
+}
@@ -0,0 +1,114 @@
+package testing.performance;
+
+import iterator.PipelineMetrics;
+import iterator.RichIterator;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.testng.Assert.*;
+import static testing.TestingUtils.*;
+
+public class TestMetrics {
+    private static final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+
+    @BeforeMethod
+    public void enable() {
+        PipelineMetrics.setEnabled(true);
+    }
+
+    @AfterMethod
+    public void disable() {
+        PipelineMetrics.setEnabled(false);
+        PipelineMetrics.unregister("test");
+    }
+
+    private static Object attribute(String stage, String attribute) throws JMException {
+        return server.getAttribute(PipelineMetrics.objectName("test", stage), attribute);
+    }
+
+    @Test(timeOut = 1000)
+    public void disabledTest() {
+        PipelineMetrics.setEnabled(false);
+        RichIterator<Integer> itr = basicTestIterator();
+        assertSame(itr, itr.metered("test", "source"));
+        assertFalse(server.isRegistered(PipelineMetrics.objectName("test", "source")));
+    }
+
+    @Test(timeOut = 1000)
+    public void countsTest() throws JMException {
+        RichIterator<Integer> evens = RichIterator.from(range(1000)).metered("test", "source")
+                .fused().filter(x -> x % 2 == 0).metered("test", "filter");
+        assertEquals(500, drain(evens).size());
+        assertEquals(1000L, attribute("source", "ElementsIn"));
+        assertEquals(1000L, attribute("source", "ElementsOut"));
+        assertEquals(1000L, attribute("filter", "ElementsIn"));
+        assertEquals(500L, attribute("filter", "ElementsOut"));
+        assertEquals(0.5, (Double) attribute("filter", "Selectivity"), 1e-9);
+        long[] histogram = (long[]) attribute("filter", "LatencyHistogram");
+        long total = 0;
+        for (long count : histogram) {
+            total += count;
+        }
+        assertEquals(500, total);
+        assertTrue((Double) attribute("filter", "Throughput") > 0);
+
+        // every pipeline built with the same names adds to the same stages
+        drain(RichIterator.from(range(10)).metered("test", "source"));
+        assertEquals(1010L, attribute("source", "ElementsOut"));
+        PipelineMetrics.unregister("test");
+        assertFalse(server.isRegistered(PipelineMetrics.objectName("test", "source")));
+    }
+
+    @Test(timeOut = 5000)
+    public void timeInStageTest() throws JMException {
+        drain(RichIterator.from(range(20)).metered("test", "source").fused().map(x -> {
+            try {
+                Thread.sleep(2);
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+            return x;
+        }).metered("test", "slow"));
+        long slow = (Long) attribute("slow", "NanosInStage");
+        assertTrue(slow >= 40_000_000L, "" + slow);
+        assertTrue((Long) attribute("source", "NanosInStage") < slow);
+        assertEquals(slow + (Long) attribute("source", "TotalNanos"), attribute("slow", "TotalNanos"));
+        assertTrue((Long) attribute("slow", "LatencyP50Nanos") >= 2_000_000L);
+        assertTrue((Long) attribute("slow", "LatencyP99Nanos") >= (Long) attribute("slow", "LatencyP50Nanos"));
+    }
+
+    @Test(timeOut = 1000)
+    public void chunksTest() throws JMException {
+        RichIterator<Integer> itr = RichIterator.from(range(1000)).metered("test", "source");
+        Object[] chunk = new Object[64];
+        int total = 0;
+        int n;
+        while ((n = itr.nextChunk(chunk, 0, chunk.length)) > 0) {
+            total += n;
+        }
+        assertEquals(1000, total);
+        assertEquals(1000L, attribute("source", "ElementsOut"));
+    }
+
+    @Test(timeOut = 5000)
+    public void threadsTest() throws Exception {
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            threads.add(new Thread(() -> drain(RichIterator.from(range(100_000)).metered("test", "source"))));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(400_000L, attribute("source", "ElementsOut"));
+    }
+}
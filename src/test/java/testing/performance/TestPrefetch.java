@@ -0,0 +1,141 @@
+package testing.performance;
+
+import iterator.RichIterator;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.testng.Assert.*;
+import static testing.TestingUtils.*;
+
+public class TestPrefetch {
+    @Test(timeOut = 5000)
+    public void orderTest() {
+        assertEquals(range(100_000), drain(naturalNumbers().fused().take(100_000).prefetch(64)));
+        assertEquals(range(1000), drain(RichIterator.from(range(1000).iterator()).prefetch(1)));
+        assertEquals(range(5), drain(basicTestIterator().fused().map(x -> x - 1).prefetch(1000)));
+        assertFalse(RichIterator.empty().prefetch(16).hasNext());
+    }
+
+    @Test(timeOut = 5000)
+    public void chunksTest() {
+        RichIterator<Integer> itr = naturalNumbers().fused().take(10_000).prefetch(100);
+        List<Object> lst = new ArrayList<>();
+        Object[] chunk = new Object[37];
+        int n;
+        while ((n = itr.nextChunk(chunk, 0, chunk.length)) > 0) {
+            for (int i = 0; i < n; i++) {
+                lst.add(chunk[i]);
+            }
+        }
+        assertEquals(new ArrayList<Object>(range(10_000)), lst);
+    }
+
+    @Test(timeOut = 5000)
+    public void failureTest() {
+        RichIterator<Integer> itr = naturalNumbers().fused().map(x -> {
+            if (x == 500) {
+                throw new IllegalArgumentException("bad " + x);
+            }
+            return x;
+        }).prefetch(64);
+        for (int i = 0; i < 500; i++) {
+            assertEquals(i, itr.next().intValue());
+        }
+        try {
+            itr.hasNext();
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertEquals("bad 500", e.getMessage());
+        }
+    }
+
+    @Test(timeOut = 5000)
+    public void closeStopsProducerTest() throws InterruptedException {
+        AtomicInteger produced = new AtomicInteger();
+        AtomicInteger closed = new AtomicInteger();
+        RichIterator<Integer> itr = naturalNumbers().onClose(closed::incrementAndGet)
+                .fused().tapEach(x -> produced.incrementAndGet()).prefetch(16);
+        assertEquals(0, itr.next().intValue());
+        Thread.sleep(50);
+        // the producer stops when the ring is full
+        assertTrue(produced.get() <= 16 + 1 + 16, "produced " + produced.get());
+        itr.close();
+        assertEquals(1, closed.get());
+        int stopped = produced.get();
+        Thread.sleep(50);
+        assertEquals(stopped, produced.get());
+        assertFalse(itr.hasNext());
+    }
+
+    @Test(timeOut = 2000)
+    public void slowSourceTest() {
+        // a batch of a 1024 ring is 256 elements, 5 seconds of this source
+        RichIterator<Integer> itr = naturalNumbers().fused().map(x -> {
+            sleep(20);
+            return x;
+        }).prefetch(1024);
+        for (int i = 0; i < 10; i++) {
+            assertEquals(i, itr.next().intValue());
+        }
+        itr.close();
+    }
+
+    @Test(timeOut = 2000)
+    public void closeInterruptsBlockedSourceTest() {
+        AtomicInteger closed = new AtomicInteger();
+        CountDownLatch never = new CountDownLatch(1);
+        RichIterator<Integer> itr = naturalNumbers().onClose(closed::incrementAndGet).fused().map(x -> {
+            if (x == 1) {
+                try {
+                    never.await();
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+            return x;
+        }).prefetch(16);
+        assertEquals(0, itr.next().intValue());
+        itr.close();
+        assertEquals(1, closed.get());
+        assertFalse(itr.hasNext());
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Test(timeOut = 5000)
+    public void sourceClosedWhenExhaustedTest() throws InterruptedException {
+        AtomicInteger closed = new AtomicInteger();
+        RichIterator<Integer> itr = basicTestIterator().onClose(closed::incrementAndGet).prefetch(4);
+        assertEquals(5, drain(itr).size());
+        assertEquals(1, closed.get());
+        itr.close();
+        assertEquals(1, closed.get());
+    }
+
+    @Test(timeOut = 5000)
+    public void closeBeforeStartTest() {
+        AtomicInteger closed = new AtomicInteger();
+        RichIterator<Integer> itr = basicTestIterator().onClose(closed::incrementAndGet).prefetch(4);
+        itr.close();
+        assertEquals(1, closed.get());
+        assertFalse(itr.hasNext());
+    }
+
+    @Test(timeOut = 5000, expectedExceptions = NoSuchElementException.class)
+    public void nextOnEmptyTest() {
+        Iterator<Integer> itr = RichIterator.<Integer>empty().prefetch(4);
+        itr.next();
+    }
+}
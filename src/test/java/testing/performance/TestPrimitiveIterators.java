@@ -0,0 +1,84 @@
+package testing.performance;
+
+import iterator.DoubleRichIterator;
+import iterator.IntRichIterator;
+import iterator.LongRichIterator;
+import iterator.RichIterator;
+import org.testng.annotations.Test;
+
+import java.util.NoSuchElementException;
+
+import static org.testng.Assert.*;
+import static testing.TestingUtils.*;
+
+public class TestPrimitiveIterators {
+    @Test(timeOut = 1000)
+    public void mapToIntTest() {
+        assertEquals(15, aTestIterator().mapToInt(a -> a.v).sum());
+        assertEquals(0, RichIterator.<A>empty().mapToInt(a -> a.v).sum());
+        assertEquals(5, basicTestIterator().mapToInt(x -> x).max());
+        assertEquals(1, randomOrderAIterator().mapToInt(a -> a.v).min());
+    }
+
+    @Test(timeOut = 1000)
+    public void mapToLongTest() {
+        assertEquals(15_000_000_000L, basicTestIterator().mapToLong(x -> x * 1_000_000_000L).sum());
+    }
+
+    @Test(timeOut = 1000)
+    public void mapToDoubleTest() {
+        assertEquals(3.0, basicTestIterator().mapToDouble(x -> x).average().getAsDouble(), 0.0);
+        assertFalse(RichIterator.<Integer>empty().mapToDouble(x -> x).average().isPresent());
+    }
+
+    @Test(timeOut = 1000)
+    public void mapAndFilterTest() {
+        int[] arr = IntRichIterator.range(0, 10).map(x -> x * 3).filter(x -> x % 2 == 0).toArray();
+        assertEquals(new int[]{0, 6, 12, 18, 24}, arr);
+        assertFalse(IntRichIterator.of(1, 3, 5).filter(x -> x % 2 == 0).hasNext());
+    }
+
+    @Test(timeOut = 1000)
+    public void filterIsLazyTest() {
+        IntRichIterator itr = IntRichIterator.iterate(1, x -> x + 1).filter(x -> x % 3 == 0);
+        assertEquals(3, itr.nextInt());
+        assertEquals(6, itr.nextInt());
+        assertTrue(itr.hasNext());
+        assertTrue(itr.hasNext());
+        assertEquals(9, itr.nextInt());
+    }
+
+    @Test(timeOut = 1000)
+    public void foldLeftTest() {
+        assertEquals(120, IntRichIterator.range(1, 6).foldLeft(1, (x, y) -> x * y));
+        assertEquals(120L, LongRichIterator.range(1, 6).foldLeft(1, (x, y) -> x * y));
+        assertEquals(7.5, DoubleRichIterator.of(0.5, 2, 5).foldLeft(0, Double::sum), 0.0);
+    }
+
+    @Test(timeOut = 1000, expectedExceptions = NoSuchElementException.class)
+    public void maxEmptyTest() {
+        IntRichIterator.empty().max();
+    }
+
+    @Test(timeOut = 1000, expectedExceptions = NoSuchElementException.class)
+    public void minEmptyTest() {
+        DoubleRichIterator.empty().min();
+    }
+
+    @Test(timeOut = 1000)
+    public void boxedTest() {
+        RichIterator<Integer> itr = IntRichIterator.of(1, 2, 3).boxed();
+        assertEquals(1, itr.next().intValue());
+        assertEquals(2, itr.next().intValue());
+        assertEquals(3, itr.next().intValue());
+        assertFalse(itr.hasNext());
+    }
+
+    @Test(timeOut = 1000)
+    public void conversionsTest() {
+        assertEquals(new long[]{2, 4, 6}, IntRichIterator.of(1, 2, 3).mapToLong(x -> x * 2L).toArray());
+        assertEquals(new int[]{1, 2}, DoubleRichIterator.of(1.2, 2.7).mapToInt(x -> (int) x).toArray());
+        assertEquals("1", LongRichIterator.of(1, 2).mapToObj(Long::toString).next());
+        assertEquals(3, IntRichIterator.range(0, 3).length());
+    }
+}
@@ -0,0 +1,105 @@
+package testing.performance;
+
+import iterator.IntHashSet;
+import iterator.IntRichIterator;
+import iterator.LongHashSet;
+import iterator.LongRichIterator;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.testng.Assert.*;
+
+public class TestPrimitiveSets {
+    @Test(timeOut = 1000)
+    public void distinctTest() {
+        assertEquals(new int[]{1, 2, 3, 0, 4}, IntRichIterator.of(1, 2, 3, 3, 0, 2, 1, 0, 4).distinct().toArray());
+        assertEquals(new long[]{5, -1, Long.MIN_VALUE, Long.MAX_VALUE},
+                LongRichIterator.of(5, -1, 5, Long.MIN_VALUE, Long.MAX_VALUE, -1, Long.MIN_VALUE).distinct().toArray());
+        assertEquals(0, IntRichIterator.empty().distinct().length());
+    }
+
+    @Test(timeOut = 1000)
+    public void toSetTest() {
+        IntHashSet set = IntRichIterator.of(3, 1, 3, 2, 0).toSet();
+        assertEquals(4, set.size());
+        assertTrue(set.contains(0));
+        assertFalse(set.contains(4));
+        int[] values = set.toArray();
+        Arrays.sort(values);
+        assertEquals(new int[]{0, 1, 2, 3}, values);
+        assertEquals(4, set.iterator().length());
+        assertTrue(LongRichIterator.empty().toSet().isEmpty());
+    }
+
+    @Test(timeOut = 1000)
+    public void containsTest() {
+        assertTrue(IntRichIterator.range(0, 100).contains(42));
+        assertFalse(IntRichIterator.range(0, 100).contains(100));
+        LongRichIterator itr = LongRichIterator.of(1, 2, 3, 4);
+        assertTrue(itr.contains(2));
+        // contains closes the iterator once the element is found
+        assertFalse(itr.hasNext());
+    }
+
+    @Test(timeOut = 5000)
+    public void intSetMatchesHashSetTest() {
+        Random random = new Random(7);
+        // dense values, sparse values and a mix, so the set switches between the table and the bitset
+        int[][] inputs = {
+                IntRichIterator.range(0, 100_000).map(i -> random.nextInt(50_000)).toArray(),
+                IntRichIterator.range(0, 100_000).map(i -> random.nextInt()).toArray(),
+                IntRichIterator.range(0, 100_000).map(i -> i % 1000 == 0 ? random.nextInt() : i - 50_000).toArray(),
+                IntRichIterator.range(0, 100_000).map(i -> i % 2 == 0 ? Integer.MIN_VALUE + i : Integer.MAX_VALUE - i).toArray(),
+        };
+        for (int[] input : inputs) {
+            IntHashSet set = new IntHashSet();
+            Set<Integer> expected = new HashSet<>();
+            for (int value : input) {
+                assertEquals(expected.add(value), set.add(value));
+            }
+            assertEquals(expected.size(), set.size());
+            for (int value : input) {
+                assertTrue(set.contains(value));
+                assertEquals(expected.contains(value + 1), set.contains(value + 1));
+            }
+            Set<Integer> values = new HashSet<>();
+            for (int value : set.toArray()) {
+                values.add(value);
+            }
+            assertEquals(expected, values);
+        }
+    }
+
+    @Test(timeOut = 5000)
+    public void longSetMatchesHashSetTest() {
+        Random random = new Random(7);
+        long[][] inputs = {
+                LongRichIterator.range(0, 100_000).map(i -> random.nextInt(50_000) + (1L << 40)).toArray(),
+                LongRichIterator.range(0, 100_000).map(i -> random.nextLong()).toArray(),
+                LongRichIterator.range(0, 100_000).map(i -> i % 1000 == 0 ? random.nextLong() : -i).toArray(),
+                LongRichIterator.range(0, 100_000).map(i -> i % 2 == 0 ? Long.MIN_VALUE + i : Long.MAX_VALUE - i).toArray(),
+                LongRichIterator.range(0, 100_000).map(i -> i << 32).toArray(),
+        };
+        for (long[] input : inputs) {
+            LongHashSet set = new LongHashSet();
+            Set<Long> expected = new HashSet<>();
+            for (long value : input) {
+                assertEquals(expected.add(value), set.add(value));
+            }
+            assertEquals(expected.size(), set.size());
+            for (long value : input) {
+                assertTrue(set.contains(value));
+                assertEquals(expected.contains(value + 1), set.contains(value + 1));
+            }
+            Set<Long> values = new HashSet<>();
+            for (long value : set.toArray()) {
+                values.add(value);
+            }
+            assertEquals(expected, values);
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package testing.performance;
+
+import iterator.Pair;
+import iterator.RichIterator;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.testng.Assert.*;
+import static testing.TestingUtils.*;
+
+public class TestProduct {
+    // the product by nested loops
+    private static <A, B> List<Pair<A, B>> reference(List<A> outer, List<B> inner) {
+        List<Pair<A, B>> pairs = new ArrayList<>();
+        for (A a : outer) {
+            for (B b : inner) {
+                pairs.add(Pair.apply(a, b));
+            }
+        }
+        return pairs;
+    }
+
+    @Test(timeOut = 1000)
+    public void productTest() {
+        assertEquals(Arrays.asList(Pair.apply(1, "a"), Pair.apply(1, "b"), Pair.apply(2, "a"), Pair.apply(2, "b")),
+                drain(RichIterator.product(Arrays.asList(1, 2), Arrays.asList("a", "b"))));
+        assertFalse(RichIterator.product(Arrays.asList(1, 2), Collections.emptyList()).hasNext());
+        assertFalse(RichIterator.product(Collections.emptyList(), Arrays.asList(1, 2)).hasNext());
+        // more outer elements than a block, through every kind of outer iterable
+        List<Integer> outer = range(3000);
+        List<Integer> inner = range(3);
+        Iterable<Integer> plain = () -> outer.iterator();
+        Iterable<Integer> rich = () -> RichIterator.from(outer);
+        for (Iterable<Integer> itr : Arrays.asList(outer, new LinkedList<>(outer), plain, rich)) {
+            assertEquals(reference(outer, inner), drain(RichIterator.product(itr, inner)));
+        }
+    }
+
+    @Test(timeOut = 1000)
+    public void readsInnerOnceTest() {
+        AtomicInteger iterations = new AtomicInteger();
+        Iterable<String> inner = () -> {
+            iterations.incrementAndGet();
+            return Arrays.asList("a", "b", "c").iterator();
+        };
+        assertEquals(300, drain(RichIterator.product(range(100), inner)).size());
+        assertEquals(1, iterations.get());
+    }
+
+    @Test(timeOut = 1000)
+    public void sizesTest() {
+        RichIterator<Pair<Integer, Integer>> product = RichIterator.product(range(10_000), range(10_000));
+        assertEquals(100_000_000, product.knownSize());
+        product.next();
+        assertEquals(99_999_999, product.knownSize());
+        assertEquals(99_999_999, product.length());
+        assertFalse(product.hasNext());
+
+        Iterable<Integer> unsized = () -> range(4).iterator();
+        assertEquals(-1, RichIterator.product(unsized, range(3)).knownSize());
+        assertEquals(12, RichIterator.product(unsized, range(3)).length());
+        assertEquals(-1, RichIterator.product(range(4), unsized).knownSize());
+    }
+
+    @Test(timeOut = 5000)
+    public void dropTest() {
+        RichIterator<Pair<Integer, Integer>> grid = RichIterator.product(range(1_000_000), range(1000));
+        RichIterator<Pair<Integer, Integer>> dropped = grid.drop(500_000_123);
+        assertEquals(Pair.apply(500_000, 123), dropped.next());
+        assertEquals(Pair.apply(500_000, 124), dropped.next());
+        assertEquals(1_000_000_000 - 500_000_125, dropped.knownSize());
+
+        List<Integer> outer = range(1100);
+        List<Integer> inner = range(7);
+        List<Pair<Integer, Integer>> expected = reference(outer, inner);
+        Iterable<Integer> plain = () -> outer.iterator();
+        for (Iterable<Integer> itr : Arrays.asList(outer, plain)) {
+            for (int first : new int[]{0, 5, 7, 7500}) {
+                for (int n : new int[]{0, 1, 6, 7, 100, 7200, 7700, 9000}) {
+                    RichIterator<Pair<Integer, Integer>> product = RichIterator.product(itr, inner);
+                    for (int i = 0; i < first; i++) {
+                        product.next();
+                    }
+                    List<Pair<Integer, Integer>> rest = expected.subList(Math.min(expected.size(), first + n), expected.size());
+                    assertEquals(rest, drain(product.drop(n)), first + " then " + n);
+                }
+            }
+        }
+    }
+
+    @Test(timeOut = 1000)
+    public void nextChunkTest() {
+        List<Integer> outer = range(1500);
+        List<Integer> inner = range(5);
+        RichIterator<Pair<Integer, Integer>> product = RichIterator.product(outer, inner);
+        List<Object> chunks = new ArrayList<>();
+        Object[] chunk = new Object[13];
+        int n;
+        while ((n = product.nextChunk(chunk, 0, chunk.length)) > 0) {
+            chunks.addAll(Arrays.asList(chunk).subList(0, n));
+        }
+        assertEquals(new ArrayList<Object>(reference(outer, inner)), chunks);
+        Iterator<Pair<Integer, Integer>> empty = RichIterator.product(outer, Collections.<Integer>emptyList());
+        assertFalse(empty.hasNext());
+    }
+}
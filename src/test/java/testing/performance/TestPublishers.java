@@ -0,0 +1,148 @@
+package testing.performance;
+
+import iterator.RichIterator;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.testng.Assert.*;
+import static testing.TestingUtils.*;
+
+public class TestPublishers {
+    private final ExecutorService executor = Executors.newFixedThreadPool(2);
+
+    @AfterClass
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * A subscriber that records the signals and requests only what the test asks for.
+     */
+    private static class RecordingSubscriber<A> implements Subscriber<A> {
+        final List<A> elements = new ArrayList<>();
+        Subscription subscription;
+        Throwable error;
+        boolean completed;
+
+        @Override
+        public void onSubscribe(Subscription s) {
+            subscription = s;
+        }
+
+        @Override
+        public void onNext(A elem) {
+            elements.add(elem);
+        }
+
+        @Override
+        public void onError(Throwable e) {
+            error = e;
+        }
+
+        @Override
+        public void onComplete() {
+            completed = true;
+        }
+    }
+
+    @Test(timeOut = 5000)
+    public void roundTripTest() {
+        List<Integer> expected = drain(naturalNumbers().fused().take(10_000));
+        Publisher<Integer> publisher = naturalNumbers().fused().take(10_000).toPublisher(executor);
+        assertEquals(expected, drain(RichIterator.fromPublisher(publisher, 16)));
+    }
+
+    @Test(timeOut = 1000)
+    public void pullsOnlyRequestedTest() {
+        AtomicInteger pulled = new AtomicInteger();
+        RecordingSubscriber<Integer> subscriber = new RecordingSubscriber<>();
+        naturalNumbers().fused().tapEach(x -> pulled.incrementAndGet()).toPublisher(Runnable::run).subscribe(subscriber);
+        assertEquals(0, pulled.get());
+        subscriber.subscription.request(3);
+        assertEquals(3, pulled.get());
+        subscriber.subscription.request(300);
+        assertEquals(303, pulled.get());
+        assertEquals(303, subscriber.elements.size());
+        assertFalse(subscriber.completed);
+    }
+
+    @Test(timeOut = 1000)
+    public void completeAndCancelTest() {
+        RecordingSubscriber<Integer> subscriber = new RecordingSubscriber<>();
+        basicTestIterator().toPublisher(Runnable::run).subscribe(subscriber);
+        subscriber.subscription.request(Long.MAX_VALUE);
+        assertEquals(5, subscriber.elements.size());
+        assertTrue(subscriber.completed);
+
+        AtomicInteger closed = new AtomicInteger();
+        RecordingSubscriber<Integer> cancelling = new RecordingSubscriber<>();
+        naturalNumbers().onClose(closed::incrementAndGet).toPublisher(Runnable::run).subscribe(cancelling);
+        cancelling.subscription.request(2);
+        cancelling.subscription.cancel();
+        assertEquals(1, closed.get());
+        assertEquals(2, cancelling.elements.size());
+        assertFalse(cancelling.completed);
+        assertNull(cancelling.error);
+    }
+
+    @Test(timeOut = 1000)
+    public void publisherErrorsTest() {
+        RecordingSubscriber<Integer> subscriber = new RecordingSubscriber<>();
+        Publisher<Integer> publisher = basicTestIterator().toPublisher(Runnable::run);
+        publisher.subscribe(new RecordingSubscriber<>());
+        publisher.subscribe(subscriber);
+        assertTrue(subscriber.error instanceof IllegalStateException);
+
+        RecordingSubscriber<Integer> badRequest = new RecordingSubscriber<>();
+        basicTestIterator().toPublisher(Runnable::run).subscribe(badRequest);
+        badRequest.subscription.request(0);
+        assertTrue(badRequest.error instanceof IllegalArgumentException);
+    }
+
+    @Test(timeOut = 1000)
+    public void boundedPrefetchTest() {
+        AtomicInteger pulled = new AtomicInteger();
+        Publisher<Integer> publisher = naturalNumbers().fused().tapEach(x -> pulled.incrementAndGet()).toPublisher(Runnable::run);
+        RichIterator<Integer> itr = RichIterator.fromPublisher(publisher, 8);
+        assertEquals(0, pulled.get());
+        assertEquals(0, itr.next().intValue());
+        assertEquals(8, pulled.get());
+        for (int i = 1; i < 100; i++) {
+            assertEquals(i, itr.next().intValue());
+            assertTrue(pulled.get() - (i + 1) <= 8, "buffered " + (pulled.get() - (i + 1)));
+        }
+        itr.close();
+        int stopped = pulled.get();
+        assertFalse(itr.hasNext());
+        assertEquals(stopped, pulled.get());
+    }
+
+    @Test(timeOut = 1000)
+    public void failureTest() {
+        Publisher<Integer> publisher = naturalNumbers().fused().map(x -> {
+            if (x == 5) {
+                throw new IllegalArgumentException("bad " + x);
+            }
+            return x;
+        }).toPublisher(executor);
+        RichIterator<Integer> itr = RichIterator.fromPublisher(publisher, 2);
+        for (int i = 0; i < 5; i++) {
+            assertEquals(i, itr.next().intValue());
+        }
+        try {
+            itr.hasNext();
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertEquals("bad 5", e.getMessage());
+        }
+    }
+}
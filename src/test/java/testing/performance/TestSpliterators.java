@@ -0,0 +1,75 @@
+package testing.performance;
+
+import iterator.IntRichIterator;
+import iterator.LongRichIterator;
+import iterator.RichIterator;
+import org.testng.annotations.Test;
+
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.testng.Assert.*;
+import static testing.TestingUtils.*;
+
+public class TestSpliterators {
+    private static final Integer[] DATA = IntStream.range(0, 10_000).boxed().toArray(Integer[]::new);
+
+    @Test(timeOut = 1000)
+    public void arraySplitTest() {
+        Spliterator<Integer> spliterator = RichIterator.apply(DATA).spliterator();
+        assertTrue(spliterator.hasCharacteristics(Spliterator.SIZED | Spliterator.SUBSIZED | Spliterator.ORDERED));
+        assertEquals(10_000, spliterator.getExactSizeIfKnown());
+        Spliterator<Integer> prefix = spliterator.trySplit();
+        assertEquals(5_000, prefix.getExactSizeIfKnown());
+        assertEquals(5_000, spliterator.getExactSizeIfKnown());
+    }
+
+    @Test(timeOut = 1000)
+    public void listSplitTest() {
+        RichIterator<Integer> itr = RichIterator.from(Arrays.asList(DATA));
+        itr.next();
+        Spliterator<Integer> spliterator = itr.spliterator();
+        assertTrue(spliterator.hasCharacteristics(Spliterator.SIZED | Spliterator.SUBSIZED));
+        assertEquals(9_999, spliterator.getExactSizeIfKnown());
+        Spliterator<Integer> prefix = spliterator.trySplit();
+        assertEquals(4_999, prefix.getExactSizeIfKnown());
+        assertEquals(5_000, spliterator.getExactSizeIfKnown());
+        assertFalse(itr.hasNext());
+    }
+
+    @Test(timeOut = 1000)
+    public void unknownSourceSplitsTest() {
+        Spliterator<Integer> spliterator = RichIterator.from(new LinkedList<>(Arrays.asList(DATA)).iterator()).spliterator();
+        assertFalse(spliterator.hasCharacteristics(Spliterator.SIZED));
+        assertNotNull(spliterator.trySplit());
+    }
+
+    @Test(timeOut = 5000)
+    public void parallelStreamTest() {
+        long expected = IntStream.range(0, 10_000).asLongStream().sum();
+        assertEquals(expected, RichIterator.apply(DATA).parallelStream().mapToLong(x -> x).sum());
+        assertEquals(expected, RichIterator.from(Arrays.asList(DATA)).parallelStream().mapToLong(x -> x).sum());
+        assertEquals(expected, RichIterator.from(new LinkedList<>(Arrays.asList(DATA)).iterator()).parallelStream().mapToLong(x -> x).sum());
+        assertEquals(expected, IntRichIterator.range(0, 10_000).parallelStream().asLongStream().sum());
+        assertEquals(expected, LongRichIterator.range(0, 10_000).parallelStream().sum());
+    }
+
+    @Test(timeOut = 1000)
+    public void streamKeepsOrderTest() {
+        RichIterator<Integer> itr = basicTestIterator();
+        itr.next();
+        assertEquals(Arrays.asList(2, 3, 4, 5), itr.stream().collect(Collectors.toList()));
+        assertEquals(Arrays.asList(0, 1, 2), naturalNumbers().stream().limit(3).collect(Collectors.toList()));
+    }
+
+    @Test(timeOut = 1000)
+    public void rangeSplitTest() {
+        IntRichIterator itr = IntRichIterator.range(10, 20);
+        itr.nextInt();
+        Spliterator.OfInt spliterator = itr.spliterator();
+        assertEquals(9, spliterator.getExactSizeIfKnown());
+        assertTrue(spliterator.hasCharacteristics(Spliterator.SUBSIZED));
+        assertEquals(new int[]{11, 12, 13}, IntRichIterator.of(11, 12, 13).stream().toArray());
+    }
+}
@@ -0,0 +1,161 @@
+package testing.performance;
+
+import iterator.Pair;
+import iterator.RichIterator;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.testng.Assert.*;
+import static testing.TestingUtils.*;
+
+public class TestTee {
+    // next() n times, take(n) would close the reader when done
+    private static <A> List<A> next(RichIterator<A> itr, int n) {
+        List<A> lst = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            lst.add(itr.next());
+        }
+        return lst;
+    }
+
+    @Test(timeOut = 1000)
+    public void teeTest() {
+        AtomicInteger reads = new AtomicInteger();
+        List<RichIterator<Integer>> tee = RichIterator.from(range(3000)).fused().tapEach(x -> reads.incrementAndGet()).tee(3);
+        assertEquals(3, tee.size());
+        for (RichIterator<Integer> itr : tee) {
+            assertEquals(range(3000), drain(itr));
+        }
+        assertEquals(3000, reads.get());
+        Pair<RichIterator<Integer>, RichIterator<Integer>> pair = basicTestIterator().duplicate();
+        assertEquals(1, pair._1.next().intValue());
+        assertEquals(range(6).subList(1, 6), drain(pair._2));
+        assertEquals(range(6).subList(2, 6), drain(pair._1));
+        assertFalse(RichIterator.empty().tee(2).get(1).hasNext());
+    }
+
+    @Test(timeOut = 1000)
+    public void chunksTest() {
+        List<RichIterator<Integer>> tee = RichIterator.from(range(5000)).tee(2);
+        assertEquals(range(100), next(tee.get(1), 100));
+        for (RichIterator<Integer> itr : tee) {
+            List<Object> lst = new ArrayList<>();
+            Object[] chunk = new Object[700];
+            int n;
+            while ((n = itr.nextChunk(chunk, 0, chunk.length)) > 0) {
+                for (int i = 0; i < n; i++) {
+                    lst.add(chunk[i]);
+                }
+            }
+            assertEquals(0, itr.knownSize());
+            assertEquals(lst.get(0), tee.indexOf(itr) == 0 ? 0 : 100);
+            assertEquals(lst.size(), tee.indexOf(itr) == 0 ? 5000 : 4900);
+        }
+    }
+
+    @Test(timeOut = 1000)
+    public void maxLagTest() {
+        List<RichIterator<Integer>> tee = naturalNumbers().tee(2, 100, false);
+        RichIterator<Integer> fast = tee.get(0);
+        RichIterator<Integer> slow = tee.get(1);
+        for (int i = 0; i < 100; i++) {
+            assertEquals(i, fast.next().intValue());
+        }
+        assertThrows(IllegalStateException.class, fast::next);
+        assertEquals(0, slow.next().intValue());
+        assertEquals(100, fast.next().intValue());
+        // a closed reader no longer holds the others back
+        slow.close();
+        assertFalse(slow.hasNext());
+        for (int i = 101; i < 10_000; i++) {
+            assertEquals(i, fast.next().intValue());
+        }
+    }
+
+    @Test(timeOut = 5000)
+    public void threadsTest() throws InterruptedException {
+        int readers = 4;
+        List<RichIterator<Integer>> tee = naturalNumbers().fused().take(200_000).tee(readers, 64, true);
+        long[] sums = new long[readers];
+        int[] counts = new int[readers];
+        boolean[] ordered = new boolean[readers];
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < readers; t++) {
+            int r = t;
+            threads.add(new Thread(() -> {
+                RichIterator<Integer> itr = tee.get(r);
+                ordered[r] = true;
+                while (itr.hasNext()) {
+                    int x = itr.next();
+                    ordered[r] &= x == counts[r];
+                    sums[r] += x;
+                    counts[r]++;
+                    if (r == 0 && x % 10_000 == 0) {
+                        // a slow reader
+                        Thread.yield();
+                    }
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        for (int r = 0; r < readers; r++) {
+            assertTrue(ordered[r]);
+            assertEquals(200_000, counts[r]);
+            assertEquals(199_999L * 200_000 / 2, sums[r]);
+        }
+    }
+
+    @Test(timeOut = 1000)
+    public void failureTest() {
+        List<RichIterator<Integer>> tee = naturalNumbers().fused().map(x -> {
+            if (x == 500) {
+                throw new IllegalArgumentException("bad " + x);
+            }
+            return x;
+        }).tee(2);
+        for (RichIterator<Integer> itr : tee) {
+            assertEquals(range(500), next(itr, 500));
+        }
+        for (RichIterator<Integer> itr : tee) {
+            try {
+                itr.hasNext();
+                fail();
+            } catch (IllegalArgumentException e) {
+                assertEquals("bad 500", e.getMessage());
+            }
+        }
+    }
+
+    @Test(timeOut = 1000)
+    public void closeTest() {
+        AtomicInteger closed = new AtomicInteger();
+        List<RichIterator<Integer>> tee = naturalNumbers().onClose(closed::incrementAndGet).tee(3);
+        tee.get(0).next();
+        tee.get(0).close();
+        tee.get(1).close();
+        assertEquals(0, closed.get());
+        assertEquals(0, tee.get(2).next().intValue());
+        tee.get(2).close();
+        assertEquals(1, closed.get());
+
+        AtomicInteger exhausted = new AtomicInteger();
+        List<RichIterator<Integer>> finite = basicTestIterator().onClose(exhausted::incrementAndGet).tee(2);
+        drain(finite.get(0));
+        assertEquals(1, exhausted.get());
+        assertEquals(range(6).subList(1, 6), drain(finite.get(1)));
+        assertEquals(1, exhausted.get());
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void argumentsTest() {
+        basicTestIterator().tee(0);
+    }
+}
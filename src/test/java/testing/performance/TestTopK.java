@@ -0,0 +1,111 @@
+package testing.performance;
+
+import iterator.DoubleRichIterator;
+import iterator.IntRichIterator;
+import iterator.LongRichIterator;
+import iterator.RichIterator;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.testng.Assert.*;
+import static testing.TestingUtils.*;
+
+public class TestTopK {
+    private static List<Integer> randomInts(int n) {
+        Random random = new Random(n);
+        List<Integer> lst = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            lst.add(random.nextInt(1000) - 500);
+        }
+        return lst;
+    }
+
+    @Test(timeOut = 1000)
+    public void topKTest() {
+        assertEquals(Arrays.asList(5, 4), basicTestIterator().topK(2, Comparator.naturalOrder()));
+        assertEquals(Arrays.asList(1, 2), basicTestIterator().bottomK(2, Comparator.naturalOrder()));
+        assertEquals(Arrays.asList(5, 4, 3, 2, 1), basicTestIterator().topK(100, Comparator.naturalOrder()));
+        assertEquals(Collections.emptyList(), basicTestIterator().topK(0, Comparator.naturalOrder()));
+        assertEquals(Collections.emptyList(), RichIterator.<Integer>empty().bottomK(3, Comparator.naturalOrder()));
+    }
+
+    @Test(timeOut = 1000)
+    public void matchesSortTest() {
+        List<Integer> input = randomInts(10_000);
+        List<Integer> ascending = new ArrayList<>(input);
+        Collections.sort(ascending);
+        List<Integer> descending = new ArrayList<>(ascending);
+        Collections.reverse(descending);
+        for (int k : new int[]{1, 7, 100, 1000}) {
+            assertEquals(descending.subList(0, k), RichIterator.from(input).topK(k, Comparator.naturalOrder()));
+            assertEquals(ascending.subList(0, k), RichIterator.from(input).bottomK(k, Comparator.naturalOrder()));
+            assertEquals(descending.subList(0, k), RichIterator.from(input).parallelTopK(k, Comparator.naturalOrder()));
+            assertEquals(ascending.subList(0, k), RichIterator.from(input).parallelBottomK(k, Comparator.naturalOrder()));
+        }
+    }
+
+    @Test(timeOut = 1000)
+    public void comparesOnceForRejectedTest() {
+        AtomicInteger comparisons = new AtomicInteger();
+        Comparator<Integer> counting = (x, y) -> {
+            comparisons.incrementAndGet();
+            return Integer.compare(x, y);
+        };
+        // every element after the first 3 is smaller than the root of the heap
+        List<Integer> input = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            input.add(10_000 - i);
+        }
+        assertEquals(Arrays.asList(10_000, 9_999, 9_998), RichIterator.from(input).topK(3, counting));
+        assertTrue(comparisons.get() < 10_000 + 20, "comparisons " + comparisons.get());
+    }
+
+    @Test(timeOut = 1000)
+    public void primitivesTest() {
+        assertEquals(new int[]{Integer.MAX_VALUE, 5, 4}, IntRichIterator.of(5, 1, Integer.MAX_VALUE, 4, Integer.MIN_VALUE, 2).topK(3));
+        assertEquals(new int[]{Integer.MIN_VALUE, 1, 2}, IntRichIterator.of(5, 1, Integer.MAX_VALUE, 4, Integer.MIN_VALUE, 2).bottomK(3));
+        assertEquals(new long[]{Long.MAX_VALUE, 5}, LongRichIterator.of(5, 1, Long.MAX_VALUE, Long.MIN_VALUE).topK(2));
+        assertEquals(new long[]{Long.MIN_VALUE, 1}, LongRichIterator.of(5, 1, Long.MAX_VALUE, Long.MIN_VALUE).bottomK(2));
+        assertEquals(new int[0], IntRichIterator.of(1, 2).topK(0));
+        assertEquals(new int[]{2, 1}, IntRichIterator.of(1, 2).topK(5));
+    }
+
+    @Test(timeOut = 1000)
+    public void primitivesMatchSortTest() {
+        int[] input = RichIterator.from(randomInts(10_000)).mapToInt(x -> x).toArray();
+        int[] sorted = input.clone();
+        Arrays.sort(sorted);
+        int[] top = IntRichIterator.of(input).topK(100);
+        int[] bottom = IntRichIterator.of(input).bottomK(100);
+        for (int i = 0; i < 100; i++) {
+            assertEquals(sorted[sorted.length - 1 - i], top[i]);
+            assertEquals(sorted[i], bottom[i]);
+        }
+    }
+
+    @Test(timeOut = 1000)
+    public void doublesTest() {
+        double[] input = {2.5, -0.0, Double.NaN, 0.0, Double.NEGATIVE_INFINITY, -7.25, Double.POSITIVE_INFINITY, 1e-300};
+        double[] sorted = input.clone();
+        Arrays.sort(sorted);
+        double[] top = DoubleRichIterator.of(input).topK(input.length);
+        double[] bottom = DoubleRichIterator.of(input).bottomK(input.length);
+        for (int i = 0; i < input.length; i++) {
+            assertEquals(0, Double.compare(sorted[input.length - 1 - i], top[i]), "top " + i);
+            assertEquals(0, Double.compare(sorted[i], bottom[i]), "bottom " + i);
+        }
+        assertEquals(new double[]{-7.25, -0.0}, DoubleRichIterator.of(2.5, -0.0, -7.25, 0.0).bottomK(2));
+    }
+
+    @Test(timeOut = 1000, expectedExceptions = IllegalArgumentException.class)
+    public void negativeKTest() {
+        basicTestIterator().topK(-1, Comparator.naturalOrder());
+    }
+}
@@ -0,0 +1,116 @@
+package testing.performance;
+
+import iterator.RichIterator;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.testng.Assert.*;
+import static testing.TestingUtils.*;
+
+public class TestWindows {
+    // copies every window, so views can be compared after the iterator moved on
+    private static <A> List<List<A>> drain(RichIterator<List<A>> itr) {
+        List<List<A>> lst = new ArrayList<>();
+        while (itr.hasNext()) {
+            lst.add(new ArrayList<>(itr.next()));
+        }
+        return lst;
+    }
+
+    @Test(timeOut = 1000)
+    public void groupedTest() {
+        assertEquals(Arrays.asList(Arrays.asList(1, 2), Arrays.asList(3, 4), Collections.singletonList(5)),
+                drain(basicTestIterator().grouped(2)));
+        assertEquals(Collections.singletonList(Arrays.asList(1, 2, 3, 4, 5)), drain(basicTestIterator().grouped(10)));
+        assertEquals(drain(basicTestIterator().grouped(2)), drain(basicTestIterator().groupedViews(2)));
+        assertFalse(RichIterator.empty().grouped(3).hasNext());
+    }
+
+    @Test(timeOut = 1000)
+    public void slidingTest() {
+        assertEquals(Arrays.asList(Arrays.asList(1, 2, 3), Arrays.asList(2, 3, 4), Arrays.asList(3, 4, 5)),
+                drain(basicTestIterator().sliding(3, 1)));
+        assertEquals(Arrays.asList(Arrays.asList(1, 2, 3), Arrays.asList(3, 4, 5)), drain(basicTestIterator().sliding(3, 2)));
+        assertEquals(Arrays.asList(Arrays.asList(1, 2, 3, 4), Collections.singletonList(5)), drain(basicTestIterator().sliding(4, 4)));
+        assertEquals(Arrays.asList(Collections.singletonList(1), Collections.singletonList(4)), drain(basicTestIterator().sliding(1, 3)));
+        assertEquals(Arrays.asList(Arrays.asList(1, 2), Collections.singletonList(5)), drain(basicTestIterator().sliding(2, 4)));
+        assertEquals(Collections.singletonList(Arrays.asList(1, 2, 3, 4, 5)), drain(basicTestIterator().sliding(7, 1)));
+    }
+
+    @Test(timeOut = 1000)
+    public void viewsMatchSafeModeTest() {
+        for (int size = 1; size <= 7; size++) {
+            for (int step = 1; step <= 7; step++) {
+                assertEquals(drain(naturalNumbers().fused().take(50).sliding(size, step)),
+                        drain(naturalNumbers().fused().take(50).slidingViews(size, step)), size + "," + step);
+            }
+        }
+    }
+
+    @Test(timeOut = 1000)
+    public void viewIsReusedTest() {
+        RichIterator<List<Integer>> itr = naturalNumbers().slidingViews(3, 1);
+        List<Integer> first = itr.next();
+        assertEquals(Arrays.asList(0, 1, 2), first);
+        assertSame(first, itr.next());
+        assertEquals(Arrays.asList(1, 2, 3), first);
+        assertEquals(1, first.get(0).intValue());
+        assertThrows(UnsupportedOperationException.class, () -> first.set(0, 7));
+        assertThrows(IndexOutOfBoundsException.class, () -> first.get(3));
+    }
+
+    @Test(timeOut = 1000, expectedExceptions = UnsupportedOperationException.class)
+    public void safeWindowIsUnmodifiableTest() {
+        basicTestIterator().grouped(2).next().add(3);
+    }
+
+    @Test(timeOut = 1000)
+    public void readsEveryElementOnceTest() {
+        AtomicInteger reads = new AtomicInteger();
+        RichIterator<List<Integer>> itr = basicTestIterator().fused().tapEach(x -> reads.incrementAndGet()).slidingViews(3, 1);
+        itr.next();
+        assertEquals(3, reads.get());
+        itr.next();
+        assertEquals(4, reads.get());
+    }
+
+    @Test(timeOut = 1000)
+    public void closeOnceTest() {
+        AtomicInteger closed = new AtomicInteger();
+        // counts every close(), unlike the operators that ignore a second one
+        RichIterator<Integer> source = new RichIterator<Integer>() {
+            private int i;
+
+            @Override
+            public boolean hasNext() {
+                return i < 5;
+            }
+
+            @Override
+            public Integer next() {
+                return i++;
+            }
+
+            @Override
+            public void close() {
+                closed.incrementAndGet();
+            }
+        };
+        RichIterator<List<Integer>> itr = source.sliding(2, 1);
+        itr.next();
+        itr.close();
+        itr.close();
+        assertEquals(1, closed.get());
+        assertFalse(itr.hasNext());
+    }
+
+    @Test(timeOut = 1000, expectedExceptions = IllegalArgumentException.class)
+    public void badStepTest() {
+        basicTestIterator().sliding(2, 0);
+    }
+}